@@ -0,0 +1,37 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method to be invoked once per reload changing the effective value of any property matching the given
+ * key patterns, whether or not these properties are bound to a field.
+ * <p>
+ * Patterns are matched segment by segment, segments being separated by {@code .}: {@code *} matches exactly one
+ * segment and a trailing {@code **} one or more segments, e.g. {@code db.pool.*} matches {@code db.pool.size} and
+ * {@code routes.**} matches {@code routes.a.path}. A pattern without wildcard matches the key itself.
+ * </p>
+ * <p>
+ * The method takes either no argument or a single {@link java.util.Set Set&lt;String&gt;} receiving the changed keys
+ * matching any of its patterns.
+ * </p>
+ * <pre class="code">
+ * &#064;OnPropertiesChanged({"db.pool.*", "routes.**"})
+ * public void onChanged(Set&lt;String&gt; changedKeys) {
+ *     ...
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface OnPropertiesChanged {
+
+    /**
+     * The key patterns to listen to.
+     */
+    String[] value();
+}
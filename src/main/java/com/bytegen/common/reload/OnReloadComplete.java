@@ -0,0 +1,30 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method to be invoked once per reload, after every {@link ReloadValue} field of the bean changed by that
+ * reload has been set. Useful to rebuild state derived from several reloadable fields at once.
+ * <p>
+ * The method takes either no argument or a single {@link java.util.Set Set&lt;String&gt;} receiving the
+ * {@link ReloadValue#value() keys} of the changed fields.
+ * </p>
+ * <pre class="code">
+ * &#064;ReloadValue("${route.pattern}")
+ * private String pattern;
+ *
+ * &#064;OnReloadComplete
+ * public void rebuild(Set&lt;String&gt; changedKeys) {
+ *     this.compiled = Pattern.compile(pattern);
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface OnReloadComplete {
+}
@@ -0,0 +1,51 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a singleton bean which cannot absorb a property change, e.g. a client whose connection settings are fixed by
+ * its constructor, to be rebuilt once the effective value of any property matching the given key patterns changed.
+ * <p>
+ * The bean is exposed through a proxy. On change a new instance is created from the same bean definition on a
+ * background thread, warmed up, then swapped in atomically: calls keep going to the previous instance until the swap,
+ * which is destroyed once its in-flight calls completed. Other beans are not touched, and a failed rebuild keeps the
+ * previous instance.
+ * </p>
+ * <p>
+ * Patterns follow {@link OnPropertiesChanged}. The proxy subclasses the bean class, final classes are proxied by
+ * their interfaces, a final class without interface is rejected, and final methods are not routed to the current
+ * instance. New instances go through the post processors of the context under the bean name, e.g. auto-proxy
+ * creators advise them as they did the initial instance.
+ * </p>
+ * <pre class="code">
+ * &#064;Bean(destroyMethod = "close")
+ * &#064;RefreshOnChange(value = "search.client.**", warmUp = "ping")
+ * public SearchClient searchClient(&#064;Value("${search.client.hosts}") String hosts) {
+ *     return new SearchClient(hosts);
+ * }
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+public @interface RefreshOnChange {
+
+    /**
+     * The key patterns triggering a rebuild.
+     */
+    String[] value();
+
+    /**
+     * The name of a method without argument invoked on a new instance before it is swapped in, none if blank.
+     */
+    String warmUp() default "";
+
+    /**
+     * The maximum time in milliseconds to wait for the in-flight calls of a replaced instance before destroying it.
+     */
+    long drainTimeoutMillis() default 30000;
+}
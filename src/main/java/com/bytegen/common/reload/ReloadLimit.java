@@ -0,0 +1,41 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field holding a live concurrency limit, resized in place during runtime instead of being re-created:
+ * <ul>
+ * <li>{@link java.util.concurrent.ThreadPoolExecutor}: {@link #value()} is the core size and {@link #max()} the
+ * maximum size, both are set to {@link #value()} if {@link #max()} is blank</li>
+ * <li>{@link com.bytegen.common.reload.limit.AdjustableSemaphore}: {@link #value()} is the number of permits</li>
+ * <li>Guava {@link com.google.common.util.concurrent.RateLimiter}: {@link #value()} is the number of permits per
+ * second</li>
+ * </ul>
+ * The field is read once the bean is initialized, it may be set by the constructor, injected or set by an init method.
+ * <pre class="code">
+ * &#064;ReloadLimit(value = "${worker.core-size}", max = "${worker.max-size}")
+ * private ThreadPoolExecutor workers;
+ *
+ * &#064;ReloadLimit("${outbound.rps}")
+ * private RateLimiter outboundLimiter;
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface ReloadLimit {
+
+    /**
+     * The limit, e.g. {@code ${worker.core-size}}
+     */
+    String value();
+
+    /**
+     * The maximum size of a thread pool, ignored by other limits
+     */
+    String max() default "";
+}
@@ -0,0 +1,36 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code Map<String, T>} field to be set with a live map of every property under the given prefix,
+ * the entries of the changed properties are updated in place during runtime.
+ * <p>
+ * The property {@code <prefix>.<key><suffix>} is the entry {@code <key>}, its value being converted once to the
+ * value type of the map. The map is read-only, thread-safe and shared by every field bound to the same prefix,
+ * so lookups involve no parsing.
+ * </p>
+ * <pre class="code">
+ * &#064;ReloadMap(prefix = "tenant", suffix = ".rps")
+ * private Map&lt;String, Integer&gt; tenantRps;   // tenant.acme.rps=100 is tenantRps.get("acme")
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface ReloadMap {
+
+    /**
+     * The prefix of the properties, without trailing dot
+     */
+    String prefix();
+
+    /**
+     * The suffix of the properties, e.g. {@code .rps}, other properties under the prefix are ignored
+     */
+    String suffix() default "";
+}
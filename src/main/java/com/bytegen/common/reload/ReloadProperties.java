@@ -0,0 +1,36 @@
+package com.bytegen.common.reload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field to be set with an object tree bound from every property under the given prefix,
+ * the tree is rebuilt and swapped if any of these properties changed during runtime.
+ * <p>
+ * Each field of the bound class maps to {@code <prefix>.<fieldName>}: simple types, collections and maps are
+ * converted from the property value, any other type is bound recursively as a nested object. Bound classes are
+ * treated as immutable, they require a default constructor (possibly private) and may declare final fields as long
+ * as these are not initialized with constant expressions.
+ * </p>
+ * <p>
+ * On reload only the nested objects below a changed property are rebuilt, unchanged branches keep their
+ * identity, then the new root is set at once. Consumers can compare references to skip work.
+ * </p>
+ * <pre class="code">
+ * &#064;ReloadProperties(prefix = "db")
+ * private volatile DbConfig db;   // db.url, db.pool.maxSize, ...
+ * </pre>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface ReloadProperties {
+
+    /**
+     * The prefix of the properties, without trailing dot
+     */
+    String prefix();
+}
@@ -1,5 +1,6 @@
 package com.bytegen.common.reload;
 
+import com.bytegen.common.reload.resolver.PropertyLayer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -43,10 +44,14 @@ import java.lang.annotation.*;
  * "a note on BeanFactoryPostProcessor-returning @Bean methods" of @{@link Bean}'s javadoc
  * for details and examples.
  * <p>
- * <h3>A note on property overriding with @PropertySource</h3>
+ * <h3>A note on property overriding with @ReloadResource</h3>
  * <p>
+ * Each location is loaded into its own {@link com.bytegen.common.reload.resolver.PropertyLayer layer}.
  * In cases where a given property key exists in more than one {@code .properties}
- * file, the last {@code @ReloadResource} annotation processed will 'win' and override.
+ * file, the layer with the highest {@link #precedence()} 'wins' and overrides, whichever
+ * file was updated last. Between locations of the same precedence, the later location of an
+ * annotation overrides the earlier ones, and the locations of the last {@code @ReloadResource}
+ * annotation processed override those of the previous ones.
  * <p>
  * For example, given two properties files {@code a.properties} and
  * {@code b.properties}, consider the following two configuration classes
@@ -58,24 +63,14 @@ import java.lang.annotation.*;
  * public class ConfigA { }
  * <p>
  * &#064;Configuration
- * &#064;ReloadResource("classpath:/com/myco/b.properties")
+ * &#064;ReloadResource(value = "file:/etc/myco/b.properties", precedence = PropertyLayer.HOST)
  * public class ConfigB { }
  * </pre>
  * <p>
- * The override ordering depends on the order in which these classes are registered
- * with the application context. Once both registered, the override ordering depends
- * on the modifier time.
- * <p>
- * <pre class="code">
- * AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
- * ctx.register(ConfigA.class);
- * ctx.register(ConfigB.class);
- * ctx.refresh();
- * </pre>
- * <p>
- * In the scenario above, the properties in {@code b.properties} will override any
- * duplicates that exist in {@code a.properties}, because {@code ConfigB} was registered
- * last. And {@code a.properties} will 'win' the override if updated after registration.
+ * The properties in {@code b.properties} override any duplicates that exist in
+ * {@code a.properties}, regardless of the registration order of the classes and of
+ * later updates of {@code a.properties}. Removing a key from {@code b.properties}
+ * makes the value of {@code a.properties} effective again.
  */
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
@@ -86,8 +81,11 @@ public @interface ReloadResource {
      * Indicate the resource location(s) of the properties file to be loaded.
      * For example, {@code "classpath:/com/myco/app.properties"} or
      * {@code "file:/path/to/file"}.
-     * <p>Resource location wildcards (e.g. *&#42;/*.properties) are not permitted;
-     * each location must evaluate to exactly one {@code .properties} resource.
+     * <p>A file system directory, e.g. {@code "file:/etc/myco/conf.d/"}, or a file name
+     * pattern in it, e.g. {@code "file:/etc/myco/conf.d/*.properties"}, loads every matching
+     * file as its own layer, merged in file name order; files created or deleted later are
+     * added or retracted. Otherwise each location must evaluate to exactly one
+     * {@code .properties} resource.
      * See {@linkplain ReloadResource above} for examples.
      */
     String[] value();
@@ -105,4 +103,10 @@ public @interface ReloadResource {
      */
     String encoding() default "";
 
+    /**
+     * The precedence of the layers of the given resources, higher wins.
+     * See {@link com.bytegen.common.reload.resolver.PropertyLayer} for the standard precedences.
+     */
+    int precedence() default PropertyLayer.APPLICATION;
+
 }
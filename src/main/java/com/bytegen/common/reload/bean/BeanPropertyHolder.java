@@ -1,37 +1,55 @@
 package com.bytegen.common.reload.bean;
 
-import com.google.common.base.Objects;
-
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 
+/**
+ * Field of a bean subscribed to a reloadable property. The bean is only weakly referenced, so that prototype or
+ * otherwise short-lived beans can be collected; {@link #getBean()} returns {@code null} once that happened.
+ */
 public class BeanPropertyHolder {
 
-    private final Object bean;
+    private final BeanReference bean;
     private final Field field;
+    private final int hash;
 
     public BeanPropertyHolder(Object bean, Field field) {
-        this.bean = bean;
+        this(bean, field, null, null);
+    }
+
+    BeanPropertyHolder(Object bean, Field field, String propertyName, ReferenceQueue<Object> queue) {
+        this.bean = new BeanReference(bean, queue, this, propertyName);
         this.field = field;
+        this.hash = 31 * System.identityHashCode(bean) + field.hashCode();
     }
 
     public Object getBean() {
-        return this.bean;
+        return this.bean.get();
     }
 
     public Field getField() {
         return this.field;
     }
 
+    public boolean isCollected() {
+        return null == this.bean.get();
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.bean, this.field);
+        return this.hash;
     }
 
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (object instanceof BeanPropertyHolder) {
             BeanPropertyHolder that = (BeanPropertyHolder) object;
-            return Objects.equal(this.bean, that.bean) && Objects.equal(this.field, that.field);
+            Object bean = this.bean.get();
+            return null != bean && bean == that.bean.get() && this.field.equals(that.field);
         }
         return false;
     }
@@ -39,8 +57,27 @@ public class BeanPropertyHolder {
     @Override
     public String toString() {
         return "{\"BeanPropertyHolder\":{"
-                + "\"bean\":" + bean
+                + "\"bean\":" + bean.get()
                 + ", \"field\":" + field
                 + "}}";
     }
+
+    static class BeanReference extends WeakReference<Object> {
+        private final BeanPropertyHolder holder;
+        private final String propertyName;
+
+        BeanReference(Object referent, ReferenceQueue<Object> queue, BeanPropertyHolder holder, String propertyName) {
+            super(referent, queue);
+            this.holder = holder;
+            this.propertyName = propertyName;
+        }
+
+        BeanPropertyHolder getHolder() {
+            return this.holder;
+        }
+
+        String getPropertyName() {
+            return this.propertyName;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.bytegen.common.reload.bean;
+
+import org.springframework.util.Assert;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent registry of the bean fields subscribed to each reloadable property.
+ * <p>
+ * Beans are held weakly: once a subscribed bean is garbage collected its holders are expunged through a
+ * {@link ReferenceQueue}, and properties left without any subscriber are dropped. Subscribing is safe while a
+ * reload iterates over the subscribers of the same property.
+ * </p>
+ */
+public class BeanPropertySubscriptions {
+
+    private final ConcurrentMap<String, Set<BeanPropertyHolder>> subscriptions = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * Subscribe the given field of the given bean to changes of the given property.
+     *
+     * @return the registered holder
+     */
+    public BeanPropertyHolder subscribe(final String propertyName, final Object bean, final Field field) {
+        Assert.notNull(propertyName, "Property name must not be null");
+        Assert.notNull(bean, "Bean must not be null");
+        Assert.notNull(field, "Field must not be null");
+        expungeStaleEntries();
+
+        final BeanPropertyHolder holder = new BeanPropertyHolder(bean, field, propertyName, this.queue);
+        this.subscriptions.compute(propertyName, (key, holders) -> {
+            Set<BeanPropertyHolder> result = (null == holders) ? ConcurrentHashMap.newKeySet() : holders;
+            result.add(holder);
+            return result;
+        });
+        return holder;
+    }
+
+    /**
+     * Return a snapshot of the live subscribers of the given property, never {@code null}.
+     */
+    public List<BeanPropertyHolder> getSubscribers(final String propertyName) {
+        expungeStaleEntries();
+
+        final Set<BeanPropertyHolder> holders = this.subscriptions.get(propertyName);
+        if (null == holders) {
+            return Collections.emptyList();
+        }
+        final List<BeanPropertyHolder> result = new ArrayList<>(holders.size());
+        for (final BeanPropertyHolder holder : holders) {
+            if (!holder.isCollected()) {
+                result.add(holder);
+            }
+        }
+        return result;
+    }
+
+    public Set<String> propertyNames() {
+        expungeStaleEntries();
+        return Collections.unmodifiableSet(this.subscriptions.keySet());
+    }
+
+    /**
+     * @return the number of live subscribers of each property, sorted by property
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        for (final String propertyName : propertyNames()) {
+            final int count = getSubscribers(propertyName).size();
+            if (count > 0) {
+                counts.put(propertyName, count);
+            }
+        }
+        return counts;
+    }
+
+    public boolean isEmpty() {
+        return this.subscriptions.isEmpty();
+    }
+
+    /**
+     * Remove the holders of every bean collected so far.
+     */
+    public void expungeStaleEntries() {
+        Reference<?> reference;
+        while (null != (reference = this.queue.poll())) {
+            final BeanPropertyHolder.BeanReference beanReference = (BeanPropertyHolder.BeanReference) reference;
+            this.subscriptions.computeIfPresent(beanReference.getPropertyName(), (key, holders) -> {
+                holders.remove(beanReference.getHolder());
+                return holders.isEmpty() ? null : holders;
+            });
+        }
+    }
+}
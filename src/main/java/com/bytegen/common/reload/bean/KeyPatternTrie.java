@@ -0,0 +1,108 @@
+package com.bytegen.common.reload.bean;
+
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Trie of values registered by key pattern over the {@code .} separated segments of the keys.
+ * <p>
+ * A segment {@code *} matches exactly one segment and a trailing {@code **} one or more segments. Matching a key
+ * walks its segments once, following the literal and the {@code *} children, so its cost depends on the depth of the
+ * key and not on the number of registered patterns.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @param <T> the type of registered values
+ */
+public class KeyPatternTrie<T> {
+
+    public static final String SEPARATOR = ".";
+    public static final String ANY_SEGMENT = "*";
+    public static final String ANY_SEGMENTS = "**";
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Register the given value under the given pattern.
+     *
+     * @throws IllegalArgumentException if {@code **} is not the last segment of the pattern
+     */
+    public synchronized void put(final String pattern, final T value) {
+        Assert.hasText(pattern, "Pattern must not be empty");
+        Assert.notNull(value, "Value must not be null");
+
+        final String[] segments = split(pattern);
+        Node<T> node = this.root;
+        for (int i = 0; i < segments.length; i++) {
+            Assert.isTrue(!ANY_SEGMENTS.equals(segments[i]) || i == segments.length - 1,
+                    "[" + ANY_SEGMENTS + "] must be the last segment of pattern [" + pattern + "]");
+            node = node.children.computeIfAbsent(segments[i], k -> new Node<>());
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Unregister the values matching the given predicate from every pattern, pruning emptied nodes.
+     */
+    public synchronized void removeIf(final Predicate<T> filter) {
+        removeIf(this.root, filter);
+    }
+
+    /**
+     * @return the values registered under a pattern matching the given key, in registration order per pattern
+     */
+    public synchronized Set<T> match(final String key) {
+        final Set<T> result = new LinkedHashSet<>();
+        if (null != key && !key.isEmpty()) {
+            match(this.root, split(key), 0, result);
+        }
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.root.children.isEmpty() && this.root.values.isEmpty();
+    }
+
+    private void match(final Node<T> node, final String[] segments, final int index, final Collection<T> result) {
+        if (index == segments.length) {
+            result.addAll(node.values);
+            return;
+        }
+        final Node<T> anySegments = node.children.get(ANY_SEGMENTS);
+        if (null != anySegments) {
+            result.addAll(anySegments.values);
+        }
+        final Node<T> literal = node.children.get(segments[index]);
+        if (null != literal) {
+            match(literal, segments, index + 1, result);
+        }
+        final Node<T> anySegment = node.children.get(ANY_SEGMENT);
+        if (null != anySegment) {
+            match(anySegment, segments, index + 1, result);
+        }
+    }
+
+    private boolean removeIf(final Node<T> node, final Predicate<T> filter) {
+        node.values.removeIf(filter);
+        node.children.values().removeIf(child -> removeIf(child, filter));
+        return node.values.isEmpty() && node.children.isEmpty();
+    }
+
+    private static String[] split(final String key) {
+        return key.split(Pattern.quote(SEPARATOR), -1);
+    }
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private final Set<T> values = new LinkedHashSet<>();
+    }
+}
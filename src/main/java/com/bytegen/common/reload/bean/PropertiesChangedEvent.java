@@ -0,0 +1,59 @@
+package com.bytegen.common.reload.bean;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * All the {@link PropertyChangedEvent}s resulting from one reload, posted as a single batch.
+ */
+public class PropertiesChangedEvent {
+
+    private final Set<String> changedPropertyNames;
+    private final List<PropertyChangedEvent> events;
+
+    /**
+     * @param changedPropertyNames the raw property names whose value changed
+     * @param events               the changes of the subscribed {@link com.bytegen.common.reload.ReloadValue} keys
+     */
+    public PropertiesChangedEvent(final Set<String> changedPropertyNames, final List<PropertyChangedEvent> events) {
+        this.changedPropertyNames = (null == changedPropertyNames) ?
+                Collections.emptySet() : Collections.unmodifiableSet(changedPropertyNames);
+        this.events = (null == events) ? Collections.emptyList() : Collections.unmodifiableList(events);
+    }
+
+    public Set<String> getChangedPropertyNames() {
+        return this.changedPropertyNames;
+    }
+
+    public List<PropertyChangedEvent> getEvents() {
+        return this.events;
+    }
+
+    public boolean isEmpty() {
+        return this.changedPropertyNames.isEmpty() && this.events.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PropertiesChangedEvent that = (PropertiesChangedEvent) o;
+        return Objects.equals(changedPropertyNames, that.changedPropertyNames) &&
+                Objects.equals(events, that.events);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(changedPropertyNames, events);
+    }
+
+    @Override
+    public String toString() {
+        return "{\"PropertiesChangedEvent\":{"
+                + "\"changedPropertyNames\":" + changedPropertyNames
+                + ", \"events\":" + events
+                + "}}";
+    }
+}
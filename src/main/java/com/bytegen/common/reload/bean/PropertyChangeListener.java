@@ -0,0 +1,15 @@
+package com.bytegen.common.reload.bean;
+
+import java.util.Set;
+
+/**
+ * Listener of the properties matching a key pattern, notified once per reload.
+ */
+@FunctionalInterface
+public interface PropertyChangeListener {
+
+    /**
+     * @param changedKeys the keys matching the patterns of this listener whose effective value changed in the reload
+     */
+    void onPropertiesChanged(Set<String> changedKeys);
+}
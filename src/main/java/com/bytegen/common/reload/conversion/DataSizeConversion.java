@@ -0,0 +1,34 @@
+package com.bytegen.common.reload.conversion;
+
+import org.springframework.beans.factory.BeanInitializationException;
+
+import java.lang.reflect.Field;
+
+/**
+ * Conversion of a data size such as {@code 64KB} or {@code 10MB} to a number of bytes, for {@code long} and
+ * {@code int} fields, see {@link FieldConverters#parseDataSize}.
+ * <pre class="code">
+ * &#064;ReloadValue(value = "${buffer.size}", conversion = DataSizeConversion.class)
+ * private long bufferBytes;
+ * </pre>
+ */
+public class DataSizeConversion implements PropertyConversion {
+
+    @Override
+    public Object convertPropertyForField(final Field field, final Object propertyValue) {
+        if (null == propertyValue) {
+            return null;
+        }
+        try {
+            final long bytes = FieldConverters.parseDataSize(propertyValue.toString());
+            if (int.class == field.getType() || Integer.class == field.getType()) {
+                return Math.toIntExact(bytes);
+            }
+            return bytes;
+        } catch (final RuntimeException e) {
+            throw new BeanInitializationException(
+                    String.format("Unable to convert property for field [%s].  Value [%s] cannot be converted to [%s]",
+                            field.getName(), propertyValue, field.getType()), e);
+        }
+    }
+}
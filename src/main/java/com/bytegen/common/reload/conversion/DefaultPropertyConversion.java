@@ -1,6 +1,5 @@
 package com.bytegen.common.reload.conversion;
 
-import com.google.common.base.Function;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.core.convert.support.DefaultConversionService;
 
@@ -25,25 +24,12 @@ public class DefaultPropertyConversion implements PropertyConversion {
     @Override
     public Object convertPropertyForField(final Field field, final Object property) {
         try {
-            return new DefaultConverter<>(field.getType()).apply(property);
+            return DefaultConversionService.getSharedInstance().convert(property, field.getType());
         } catch (final Throwable e) {
             throw new BeanInitializationException(
                     String.format("Unable to convert property for field [%s].  Value [%s] cannot be converted to [%s]",
                             field.getName(), property, field.getType()), e);
         }
     }
-
-    private static class DefaultConverter<T> implements Function<Object, T> {
-        private final Class<T> type;
-
-        public DefaultConverter(final Class<T> type) {
-            this.type = type;
-        }
-
-        @Override
-        public T apply(final Object input) {
-            return DefaultConversionService.getSharedInstance().convert(input, this.type);
-        }
-    }
 }
 
@@ -0,0 +1,15 @@
+package com.bytegen.common.reload.conversion;
+
+/**
+ * Converter of a raw property value to the type of one field, selected once per field by {@link FieldConverters}.
+ */
+@FunctionalInterface
+public interface FieldConverter {
+
+    /**
+     * @param value the raw property value, never {@code null}
+     * @return the converted value
+     * @throws IllegalArgumentException if the value cannot be converted
+     */
+    Object convert(String value);
+}
@@ -0,0 +1,295 @@
+package com.bytegen.common.reload.conversion;
+
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Built-in converters of property values, selected once from the generic type of a field so that a reload only
+ * parses the value.
+ * <p>
+ * Supported types are strings, {@code int}, {@code long}, {@code double}, {@code boolean} and their wrappers,
+ * {@link Duration}, {@link Pattern}, enums, {@link InetSocketAddress}, and {@link List}, {@link Set} or {@link Map}
+ * of these, split with the {@link Separator} of the field. Values are parsed by hand, without regular expression.
+ * </p>
+ * <ul>
+ * <li>{@link Duration}: {@code 500ms}, {@code 10s}, {@code 5m}, {@code 2h}, {@code 1d}, {@code ns} and {@code us}
+ * units, ISO-8601 such as {@code PT10S}, or a number of milliseconds</li>
+ * <li>Data sizes, see {@link #parseDataSize} and {@link DataSizeConversion}: {@code 512B}, {@code 64KB},
+ * {@code 10MB}, {@code 1GB}, {@code 1TB} in powers of 1024, or a number of bytes</li>
+ * <li>Enums: the constant name, ignoring case and {@code -} in place of {@code _}</li>
+ * <li>{@link InetSocketAddress}: {@code host:port} or {@code [ipv6]:port}, left unresolved to keep DNS out of the
+ * reload</li>
+ * </ul>
+ */
+public final class FieldConverters {
+
+    public static final String DEFAULT_SEPARATOR = ",";
+    public static final String DEFAULT_KEY_VALUE_SEPARATOR = "=";
+
+    private FieldConverters() {
+    }
+
+    /**
+     * @return the converter of the given field, {@code null} if its type is not supported
+     */
+    public static FieldConverter forField(final Field field) {
+        final Separator separator = field.getAnnotation(Separator.class);
+        return forType(ResolvableType.forField(field),
+                (null == separator) ? DEFAULT_SEPARATOR : separator.value(),
+                (null == separator) ? DEFAULT_KEY_VALUE_SEPARATOR : separator.keyValue());
+    }
+
+    /**
+     * @return the converter of the given type, {@code null} if the type is not supported
+     */
+    public static FieldConverter forType(final ResolvableType type, final String separator, final String keyValueSeparator) {
+        final Class<?> rawClass = type.resolve();
+        if (null == rawClass) {
+            return null;
+        }
+        if (List.class == rawClass || Collection.class == rawClass) {
+            return forCollection(type.asCollection().getGeneric(0), separator, ArrayList::new);
+        }
+        if (Set.class == rawClass) {
+            return forCollection(type.asCollection().getGeneric(0), separator, LinkedHashSet::new);
+        }
+        if (Map.class == rawClass) {
+            final ResolvableType mapType = type.asMap();
+            return forMap(mapType.getGeneric(0), mapType.getGeneric(1), separator, keyValueSeparator);
+        }
+        return forScalar(rawClass);
+    }
+
+    /**
+     * @return the converter of the given scalar type, {@code null} if the type is not supported
+     */
+    public static FieldConverter forScalar(final Class<?> type) {
+        if (String.class == type || Object.class == type) {
+            return value -> value;
+        }
+        final FieldConverter converter = forNonString(type);
+        // Blank values convert to null, as with the conversion service
+        return (null == converter) ? null : value -> value.trim().isEmpty() ? null : converter.convert(value);
+    }
+
+    private static FieldConverter forNonString(final Class<?> type) {
+        if (int.class == type || Integer.class == type) {
+            return value -> isHex(value) ? Integer.decode(value.trim()) : Integer.parseInt(value.trim());
+        }
+        if (long.class == type || Long.class == type) {
+            return value -> isHex(value) ? Long.decode(value.trim()) : Long.parseLong(value.trim());
+        }
+        if (double.class == type || Double.class == type) {
+            return Double::parseDouble;
+        }
+        if (boolean.class == type || Boolean.class == type) {
+            return FieldConverters::parseBoolean;
+        }
+        if (Duration.class == type) {
+            return FieldConverters::parseDuration;
+        }
+        if (Pattern.class == type) {
+            return Pattern::compile;
+        }
+        if (InetSocketAddress.class == type) {
+            return FieldConverters::parseSocketAddress;
+        }
+        if (type.isEnum()) {
+            return forEnum(type);
+        }
+        return null;
+    }
+
+    /**
+     * Parse a duration such as {@code 500ms}, {@code 10s}, {@code PT10S} or a number of milliseconds.
+     */
+    public static Duration parseDuration(final String value) {
+        final String text = value.trim();
+        if (!text.isEmpty() && (text.charAt(0) == 'P' || text.charAt(0) == 'p' || text.startsWith("-P"))) {
+            return Duration.parse(text);
+        }
+        final int unitStart = unitStart(text);
+        final long amount = Long.parseLong(text.substring(0, unitStart));
+        final String unit = text.substring(unitStart).trim().toLowerCase(Locale.ROOT);
+        switch (unit) {
+            case "":
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "ns":
+                return Duration.ofNanos(amount);
+            case "us":
+                return Duration.ofNanos(Math.multiplyExact(amount, 1000L));
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("Unknown duration unit [" + unit + "] in [" + value + "]");
+        }
+    }
+
+    /**
+     * Parse a data size such as {@code 512B}, {@code 64KB}, {@code 10MB} or a number of bytes, in powers of 1024.
+     *
+     * @return the number of bytes
+     */
+    public static long parseDataSize(final String value) {
+        final String text = value.trim();
+        final int unitStart = unitStart(text);
+        final long amount = Long.parseLong(text.substring(0, unitStart));
+        final String unit = text.substring(unitStart).trim().toUpperCase(Locale.ROOT);
+        switch (unit) {
+            case "":
+            case "B":
+                return amount;
+            case "KB":
+                return Math.multiplyExact(amount, 1L << 10);
+            case "MB":
+                return Math.multiplyExact(amount, 1L << 20);
+            case "GB":
+                return Math.multiplyExact(amount, 1L << 30);
+            case "TB":
+                return Math.multiplyExact(amount, 1L << 40);
+            default:
+                throw new IllegalArgumentException("Unknown data size unit [" + unit + "] in [" + value + "]");
+        }
+    }
+
+    private static FieldConverter forCollection(final ResolvableType elementType, final String separator,
+                                                final Supplier<Collection<Object>> factory) {
+        final Class<?> elementClass = elementType.resolve(Object.class);
+        final FieldConverter elementConverter = forScalar(elementClass);
+        if (null == elementConverter) {
+            return null;
+        }
+        return value -> {
+            final Collection<Object> result = factory.get();
+            int start = 0;
+            while (start <= value.length()) {
+                int end = value.indexOf(separator, start);
+                if (end < 0) {
+                    end = value.length();
+                }
+                if (start > 0 || end < value.length() || !value.trim().isEmpty()) {
+                    result.add(elementConverter.convert(value.substring(start, end).trim()));
+                }
+                start = end + separator.length();
+            }
+            return result;
+        };
+    }
+
+    private static FieldConverter forMap(final ResolvableType keyType, final ResolvableType valueType,
+                                         final String separator, final String keyValueSeparator) {
+        final FieldConverter keyConverter = forScalar(keyType.resolve(Object.class));
+        final FieldConverter valueConverter = forScalar(valueType.resolve(Object.class));
+        if (null == keyConverter || null == valueConverter) {
+            return null;
+        }
+        return value -> {
+            final Map<Object, Object> result = new LinkedHashMap<>();
+            int start = 0;
+            while (start <= value.length()) {
+                int end = value.indexOf(separator, start);
+                if (end < 0) {
+                    end = value.length();
+                }
+                final int keyEnd = value.indexOf(keyValueSeparator, start);
+                if (keyEnd >= 0 && keyEnd < end) {
+                    result.put(keyConverter.convert(value.substring(start, keyEnd).trim()),
+                            valueConverter.convert(value.substring(keyEnd + keyValueSeparator.length(), end).trim()));
+                } else if (!value.substring(start, end).trim().isEmpty()) {
+                    throw new IllegalArgumentException("Missing [" + keyValueSeparator + "] in entry ["
+                            + value.substring(start, end) + "] of [" + value + "]");
+                }
+                start = end + separator.length();
+            }
+            return result;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static FieldConverter forEnum(final Class<?> type) {
+        final Map<String, Object> constants = new HashMap<>();
+        for (final Object constant : type.getEnumConstants()) {
+            constants.put(((Enum) constant).name(), constant);
+            constants.putIfAbsent(normalizeEnumName(((Enum) constant).name()), constant);
+        }
+        final Map<String, Object> lookup = Collections.unmodifiableMap(constants);
+        return value -> {
+            final String text = value.trim();
+            Object constant = lookup.get(text);
+            if (null == constant) {
+                constant = lookup.get(normalizeEnumName(text));
+            }
+            if (null == constant) {
+                throw new IllegalArgumentException("No constant [" + text + "] in enum [" + type.getName() + "]");
+            }
+            return constant;
+        };
+    }
+
+    private static String normalizeEnumName(final String name) {
+        return name.replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isHex(final String value) {
+        final String text = value.trim();
+        final int index = text.startsWith("-") ? 1 : 0;
+        return text.startsWith("0x", index) || text.startsWith("0X", index) || text.startsWith("#", index);
+    }
+
+    private static Boolean parseBoolean(final String value) {
+        final String text = value.trim();
+        if ("true".equalsIgnoreCase(text) || "yes".equalsIgnoreCase(text) || "on".equalsIgnoreCase(text) || "1".equals(text)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(text) || "no".equalsIgnoreCase(text) || "off".equalsIgnoreCase(text) || "0".equals(text)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Invalid boolean value [" + value + "]");
+    }
+
+    private static InetSocketAddress parseSocketAddress(final String value) {
+        final String text = value.trim();
+        final int portSeparator = text.lastIndexOf(':');
+        if (portSeparator <= 0 || (text.indexOf(':') != portSeparator && text.charAt(portSeparator - 1) != ']')) {
+            throw new IllegalArgumentException("Invalid socket address [" + value + "], expecting host:port or [ipv6]:port");
+        }
+        String host = text.substring(0, portSeparator);
+        if (host.charAt(0) == '[' && host.charAt(host.length() - 1) == ']') {
+            host = host.substring(1, host.length() - 1);
+        }
+        return InetSocketAddress.createUnresolved(host, Integer.parseInt(text.substring(portSeparator + 1)));
+    }
+
+    /**
+     * @return the index of the first character after the leading signed integer of the given text
+     */
+    private static int unitStart(final String text) {
+        int index = (!text.isEmpty() && (text.charAt(0) == '-' || text.charAt(0) == '+')) ? 1 : 0;
+        while (index < text.length() && Character.isDigit(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,238 @@
+package com.bytegen.common.reload.conversion;
+
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded memoizing front of {@link PropertyConversion}, shared by every field bound to a reloadable property.
+ * <p>
+ * Converted values are keyed by (conversion class, generic field type, raw property value), so that the same
+ * raw value bound by many bean instances, e.g. prototype beans, is converted only once. Conversion instances
+ * are created once per class as well instead of on every call.
+ * </p>
+ * <p>
+ * By default only values of immutable types, e.g. strings, numbers, enums or {@link Duration}, are memoized, other
+ * results such as collections are converted again for every field so that each bean gets its own instance. With
+ * {@code immutableResults} enabled, {@link List}, {@link Set} and {@link Map} results are wrapped into unmodifiable
+ * views whenever the field type allows it, and every result is memoized and shared between fields: a converted
+ * value must then not be mutated by its holder.
+ * </p>
+ * <p>
+ * Fields using the default conversion are converted by the built-in {@link FieldConverters} when their type is
+ * supported, the converter being selected once per field.
+ * </p>
+ * <p>
+ * With an {@link EncryptedValueResolver}, {@code ENC(...)} values are decrypted before conversion and their
+ * results are not memoized, the plain text only lives in the resolver.
+ * </p>
+ */
+public class PropertyConversionCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final FieldConverter UNSUPPORTED = value -> value;
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(String.class, Boolean.class,
+            Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, Pattern.class, InetSocketAddress.class, Locale.class, UUID.class, URI.class));
+
+    private final Cache<ConversionKey, Object> convertedValues;
+    private final ConcurrentMap<Class<? extends PropertyConversion>, PropertyConversion> conversions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Field, FieldConverter> fieldConverters = new ConcurrentHashMap<>();
+    private final boolean immutableResults;
+    private final EncryptedValueResolver encryptedValueResolver;
+
+    public PropertyConversionCache() {
+        this(DEFAULT_MAXIMUM_SIZE, false);
+    }
+
+    public PropertyConversionCache(final long maximumSize, final boolean immutableResults) {
+        this(maximumSize, immutableResults, null);
+    }
+
+    /**
+     * @param maximumSize            the maximum number of converted values kept, {@code 0} disables memoizing
+     * @param immutableResults       whether collection results are wrapped into unmodifiable views
+     * @param encryptedValueResolver the resolver of {@code ENC(...)} values, {@code null} to convert them as is
+     */
+    public PropertyConversionCache(final long maximumSize, final boolean immutableResults,
+                                   final EncryptedValueResolver encryptedValueResolver) {
+        this.convertedValues = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, maximumSize))
+                .build();
+        this.immutableResults = immutableResults;
+        this.encryptedValueResolver = encryptedValueResolver;
+    }
+
+    /**
+     * Convert the given property for the given field, reusing a previous conversion of the same raw value if present.
+     *
+     * @param conversionClass the conversion declared for the field
+     * @param field           the destination field to set the property on
+     * @param propertyValue   the property to be converted for the given field
+     * @return the potentially converted property
+     */
+    public Object convert(final Class<? extends PropertyConversion> conversionClass, final Field field, final Object propertyValue) {
+        final PropertyConversion conversion = getConversion(conversionClass);
+        if (null == propertyValue) {
+            return conversion.convertPropertyForField(field, null);
+        }
+        if (null != this.encryptedValueResolver && EncryptedValueResolver.isEncrypted(propertyValue)) {
+            final String decrypted = this.encryptedValueResolver.decrypt((String) propertyValue);
+            return toResult(field, convertPropertyForField(conversion, field, decrypted));
+        }
+
+        final ConversionKey key = new ConversionKey(conversion.getClass(), field, propertyValue);
+        Object converted = this.convertedValues.getIfPresent(key);
+        if (null == converted) {
+            converted = toResult(field, convertPropertyForField(conversion, field, propertyValue));
+            if (null != converted && isShareable(converted)) {
+                this.convertedValues.put(key, converted);
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * @return whether the given converted value may be shared between fields, otherwise each field gets its own
+     * conversion
+     */
+    public boolean isShareable(final Object converted) {
+        return this.immutableResults || isImmutable(converted);
+    }
+
+    /**
+     * Drop all memoized values, conversion instances are kept.
+     */
+    public void invalidateAll() {
+        this.convertedValues.invalidateAll();
+    }
+
+    public long size() {
+        return this.convertedValues.size();
+    }
+
+    public PropertyConversion getConversion(final Class<? extends PropertyConversion> conversionClass) {
+        if (null == conversionClass || conversionClass == PropertyConversion.class || conversionClass == DefaultPropertyConversion.class) {
+            return DefaultPropertyConversion.getInstance();
+        }
+        return this.conversions.computeIfAbsent(conversionClass, BeanUtils::instantiateClass);
+    }
+
+    /**
+     * @return the built-in converter of the given field, {@code null} if its type is not supported
+     */
+    public FieldConverter getFieldConverter(final Field field) {
+        final FieldConverter converter = this.fieldConverters.computeIfAbsent(field, f -> {
+            final FieldConverter builtIn = FieldConverters.forField(f);
+            return (null == builtIn) ? UNSUPPORTED : builtIn;
+        });
+        return (UNSUPPORTED == converter) ? null : converter;
+    }
+
+    private Object convertPropertyForField(final PropertyConversion conversion, final Field field, final Object propertyValue) {
+        try {
+            if (conversion instanceof DefaultPropertyConversion && propertyValue instanceof String) {
+                final FieldConverter converter = getFieldConverter(field);
+                if (null != converter) {
+                    return converter.convert((String) propertyValue);
+                }
+            }
+            return conversion.convertPropertyForField(field, propertyValue);
+        } catch (final Throwable e) {
+            throw new BeanInitializationException(
+                    String.format("Unable to convert property for field [%s].  Value [%s] cannot be converted to [%s]",
+                            field.getName(), propertyValue, field.getType()), e);
+        }
+    }
+
+    private static boolean isImmutable(final Object value) {
+        if (value instanceof Enum || value instanceof Class) {
+            return true;
+        }
+        final Class<?> type = value.getClass();
+        return IMMUTABLE_TYPES.contains(type) || type.getName().startsWith("java.time.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object toResult(final Field field, final Object converted) {
+        if (!this.immutableResults || null == converted) {
+            return converted;
+        }
+
+        Object result = converted;
+        if (converted instanceof List) {
+            result = Collections.unmodifiableList((List<Object>) converted);
+        } else if (converted instanceof Set) {
+            result = Collections.unmodifiableSet((Set<Object>) converted);
+        } else if (converted instanceof Map) {
+            result = Collections.unmodifiableMap((Map<Object, Object>) converted);
+        } else if (converted instanceof Collection) {
+            result = Collections.unmodifiableCollection((Collection<Object>) converted);
+        }
+        return field.getType().isInstance(result) ? result : converted;
+    }
+
+    private static class ConversionKey {
+        private final Class<?> conversionClass;
+        private final Type targetType;
+        /**
+         * Resolved separators of the field, the same value splits differently with another {@link Separator}
+         */
+        private final String separator;
+        private final String keyValueSeparator;
+        private final Object propertyValue;
+
+        ConversionKey(final Class<?> conversionClass, final Field field, final Object propertyValue) {
+            final Separator separator = field.getAnnotation(Separator.class);
+            this.conversionClass = conversionClass;
+            this.targetType = field.getGenericType();
+            this.separator = (null == separator) ? FieldConverters.DEFAULT_SEPARATOR : separator.value();
+            this.keyValueSeparator = (null == separator) ? FieldConverters.DEFAULT_KEY_VALUE_SEPARATOR : separator.keyValue();
+            this.propertyValue = propertyValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.conversionClass, this.targetType, this.separator, this.keyValueSeparator,
+                    this.propertyValue);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (object instanceof ConversionKey) {
+                ConversionKey that = (ConversionKey) object;
+                return this.conversionClass == that.conversionClass
+                        && Objects.equal(this.targetType, that.targetType)
+                        && this.separator.equals(that.separator)
+                        && this.keyValueSeparator.equals(that.keyValueSeparator)
+                        && Objects.equal(this.propertyValue, that.propertyValue);
+            }
+            return false;
+        }
+    }
+}
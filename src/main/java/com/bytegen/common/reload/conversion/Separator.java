@@ -0,0 +1,27 @@
+package com.bytegen.common.reload.conversion;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Separators used by the built-in {@link FieldConverters} to split the value of a {@code List}, {@code Set} or
+ * {@code Map} field, e.g. {@code a=1;b=2} with {@code @Separator(value = ";")}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+@Documented
+public @interface Separator {
+
+    /**
+     * The separator of the elements, or of the entries of a map
+     */
+    String value() default FieldConverters.DEFAULT_SEPARATOR;
+
+    /**
+     * The separator of the key and the value of a map entry
+     */
+    String keyValue() default FieldConverters.DEFAULT_KEY_VALUE_SEPARATOR;
+}
@@ -0,0 +1,291 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.RefreshOnChange;
+import com.bytegen.common.reload.bean.PropertyChangeListener;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the {@link RefreshOnChange} beans behind a {@link HotSwapTargetSource} proxy.
+ * <p>
+ * New instances are created from a prototype copy of the bean definition, registered under the same name in a child
+ * bean factory so that the context itself is left untouched: dependencies are resolved from the context, placeholders
+ * see the reloaded values and the post processors of the context, e.g. auto-proxy creators, apply as they did to the
+ * initial instance. Rebuilds run one at a time on a dedicated thread of {@link ReloadExecutors}, changes arriving
+ * during a rebuild trigger one more rebuild.
+ * </p>
+ */
+public class HotSwapRefresher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(HotSwapRefresher.class);
+
+    private static final long DRAIN_POLL_MILLIS = 20;
+
+    private final DefaultListableBeanFactory beanFactory;
+    private final KeyPatternSubscriptions keyPatternSubscriptions;
+    private final ConcurrentMap<String, Refreshable> refreshables = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private DefaultListableBeanFactory targetFactory;
+
+    public HotSwapRefresher(final DefaultListableBeanFactory beanFactory, final KeyPatternSubscriptions keyPatternSubscriptions) {
+        Assert.notNull(beanFactory, "Bean factory must not be null");
+        Assert.notNull(keyPatternSubscriptions, "Key pattern subscriptions must not be null");
+
+        this.beanFactory = beanFactory;
+        this.keyPatternSubscriptions = keyPatternSubscriptions;
+        this.executor = ReloadExecutors.newScheduledExecutor("auto-reload-refresh");
+    }
+
+    /**
+     * Expose the given initialized bean through a hot-swap proxy if it is annotated with {@link RefreshOnChange}.
+     *
+     * @return the proxy, or the bean itself if it is not refreshable
+     * @throws BeanInitializationException if the bean is not a singleton, its class is final without interface, or its
+     *                                     warm-up method does not exist
+     */
+    public Object wrap(final Object bean, final String beanName) {
+        // New instances of a refreshable bean are post processed under its name, they are exposed by its proxy
+        if (null == beanName || this.refreshables.containsKey(beanName) || !this.beanFactory.containsBeanDefinition(beanName)) {
+            return bean;
+        }
+        final RootBeanDefinition definition = (RootBeanDefinition) this.beanFactory.getMergedBeanDefinition(beanName);
+        // The bean may already be an AOP proxy, as every new instance will be, the annotation is on its target class
+        final Class<?> targetClass = AopUtils.getTargetClass(bean);
+        final RefreshOnChange annotation = findAnnotation(definition, targetClass);
+        if (null == annotation) {
+            return bean;
+        }
+        if (!definition.isSingleton()) {
+            throw new BeanInitializationException(String.format("Bean [%s] annotated with @RefreshOnChange must be a singleton", beanName));
+        }
+
+        // Class of the instances: the user class of a CGLIB proxy, the proxy class itself for a JDK proxy
+        final Class<?> beanClass = ClassUtils.getUserClass(bean);
+        final Class<?>[] interfaces = getUserInterfaces(beanClass);
+        final boolean proxyTargetClass = !Modifier.isFinal(beanClass.getModifiers());
+        if (!proxyTargetClass && 0 == interfaces.length) {
+            throw new BeanInitializationException(String.format("Bean [%s] annotated with @RefreshOnChange can not be proxied, "
+                    + "class [%s] is final and implements no interface", beanName, beanClass.getCanonicalName()));
+        }
+
+        Method warmUp = null;
+        if (StringUtils.isNotBlank(annotation.warmUp())) {
+            warmUp = ReflectionUtils.findMethod(beanClass, annotation.warmUp());
+            if (null == warmUp) {
+                throw new BeanInitializationException(String.format("Warm-up method [%s] without argument not found on class [%s]",
+                        annotation.warmUp(), targetClass.getCanonicalName()));
+            }
+            ReflectionUtils.makeAccessible(warmUp);
+        }
+
+        final HotSwapTargetSource targetSource = new HotSwapTargetSource(beanClass, bean);
+        final ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTargetSource(targetSource);
+        proxyFactory.setInterfaces(interfaces);
+        proxyFactory.setProxyTargetClass(proxyTargetClass);
+        final Object proxy = proxyFactory.getProxy(this.beanFactory.getBeanClassLoader());
+
+        final RootBeanDefinition targetDefinition = definition.cloneBeanDefinition();
+        targetDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        final Refreshable refreshable = new Refreshable(beanName, targetDefinition, targetSource, warmUp, annotation.drainTimeoutMillis());
+        this.refreshables.put(beanName, refreshable);
+        for (final String pattern : annotation.value()) {
+            this.keyPatternSubscriptions.subscribe(pattern, refreshable);
+        }
+        log.info("Refreshing bean [{}] on changes of {}", beanName, annotation.value());
+        return proxy;
+    }
+
+    /**
+     * Rebuild the given bean now, e.g. after a change of a resource it reads by itself.
+     *
+     * @return completed with the new instance once it is swapped in, or exceptionally if the rebuild failed
+     */
+    public CompletableFuture<Object> refresh(final String beanName) {
+        final Refreshable refreshable = this.refreshables.get(beanName);
+        if (null == refreshable) {
+            final CompletableFuture<Object> result = new CompletableFuture<>();
+            result.completeExceptionally(new NoSuchBeanDefinitionException(beanName, "Bean is not annotated with @RefreshOnChange"));
+            return result;
+        }
+        return refreshable.schedule();
+    }
+
+    /**
+     * @return the target source of the given refreshable bean, {@code null} if it is not refreshable
+     */
+    public HotSwapTargetSource getTargetSource(final String beanName) {
+        final Refreshable refreshable = this.refreshables.get(beanName);
+        return (null == refreshable) ? null : refreshable.targetSource;
+    }
+
+    /**
+     * Stop rebuilding and destroy the replaced instances still draining, the current instances are destroyed with
+     * the context.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        for (final Refreshable refreshable : this.refreshables.values()) {
+            this.keyPatternSubscriptions.unsubscribe(refreshable);
+            for (final Object replaced : refreshable.targetSource.getRetiredTargets()) {
+                refreshable.targetSource.forget(replaced);
+                refreshable.destroy(replaced);
+            }
+        }
+    }
+
+    /**
+     * @return the interfaces of the given class, without the ones implemented by Spring proxies
+     */
+    private static Class<?>[] getUserInterfaces(final Class<?> beanClass) {
+        final Set<Class<?>> interfaces = ClassUtils.getAllInterfacesForClassAsSet(beanClass);
+        interfaces.removeAll(Arrays.asList(SpringProxy.class, Advised.class, DecoratingProxy.class, Factory.class));
+        return ClassUtils.toClassArray(interfaces);
+    }
+
+    private RefreshOnChange findAnnotation(final RootBeanDefinition definition, final Class<?> beanClass) {
+        final Method factoryMethod = definition.getResolvedFactoryMethod();
+        if (null != factoryMethod) {
+            final RefreshOnChange annotation = AnnotationUtils.findAnnotation(factoryMethod, RefreshOnChange.class);
+            if (null != annotation) {
+                return annotation;
+            }
+        }
+        return AnnotationUtils.findAnnotation(beanClass, RefreshOnChange.class);
+    }
+
+    private synchronized DefaultListableBeanFactory getTargetFactory() {
+        // Created on first use, once every post processor of the context is registered
+        if (null == this.targetFactory) {
+            final DefaultListableBeanFactory factory = new DefaultListableBeanFactory(this.beanFactory);
+            factory.copyConfigurationFrom(this.beanFactory);
+            // Neither the placeholder resolvers nor the @Value aware candidate resolver are part of the copied configuration
+            factory.addEmbeddedValueResolver(this.beanFactory::resolveEmbeddedValue);
+            factory.setAutowireCandidateResolver(BeanUtils.instantiateClass(this.beanFactory.getAutowireCandidateResolver().getClass()));
+            this.targetFactory = factory;
+        }
+        return this.targetFactory;
+    }
+
+    private class Refreshable implements PropertyChangeListener {
+        private final String beanName;
+        private final RootBeanDefinition targetDefinition;
+        private final HotSwapTargetSource targetSource;
+        private final Method warmUp;
+        private final long drainTimeoutMillis;
+        private CompletableFuture<Object> pending;
+
+        Refreshable(final String beanName, final RootBeanDefinition targetDefinition, final HotSwapTargetSource targetSource,
+                    final Method warmUp, final long drainTimeoutMillis) {
+            this.beanName = beanName;
+            this.targetDefinition = targetDefinition;
+            this.targetSource = targetSource;
+            this.warmUp = warmUp;
+            this.drainTimeoutMillis = drainTimeoutMillis;
+        }
+
+        @Override
+        public void onPropertiesChanged(final Set<String> changedKeys) {
+            log.info("Rebuilding bean [{}] after changes of {}", this.beanName, changedKeys);
+            schedule();
+        }
+
+        synchronized CompletableFuture<Object> schedule() {
+            if (null == this.pending) {
+                final CompletableFuture<Object> result = new CompletableFuture<>();
+                try {
+                    executor.execute(() -> rebuild(result));
+                } catch (final RejectedExecutionException e) {
+                    result.completeExceptionally(e);
+                    return result;
+                }
+                this.pending = result;
+            }
+            return this.pending;
+        }
+
+        private void rebuild(final CompletableFuture<Object> result) {
+            synchronized (this) {
+                // Changes from now on need another rebuild
+                this.pending = null;
+            }
+            final DefaultListableBeanFactory factory = getTargetFactory();
+            if (!factory.containsBeanDefinition(this.beanName)) {
+                factory.registerBeanDefinition(this.beanName, this.targetDefinition);
+            }
+
+            Object fresh = null;
+            try {
+                fresh = factory.getBean(this.beanName);
+                if (null != this.warmUp) {
+                    ReflectionUtils.invokeMethod(this.warmUp, fresh);
+                }
+            } catch (final Throwable e) {
+                log.error(String.format("Unable to rebuild bean [%s], keeping the current instance", this.beanName), e);
+                if (null != fresh) {
+                    destroy(fresh);
+                }
+                result.completeExceptionally(e);
+                return;
+            }
+
+            final Object replaced = this.targetSource.swap(fresh);
+            if (1 == this.targetSource.getVersion()) {
+                // The context would destroy the initial instance, it must destroy the current one instead
+                beanFactory.registerDisposableBean(this.beanName, () -> destroy(this.targetSource.getCurrentTarget()));
+            }
+            log.info("Swapped bean [{}] to a new instance, draining the previous one", this.beanName);
+            drain(replaced, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.drainTimeoutMillis));
+            result.complete(fresh);
+        }
+
+        private void drain(final Object replaced, final long deadline) {
+            final int inFlight = this.targetSource.getInFlight(replaced);
+            if (inFlight > 0 && System.nanoTime() < deadline) {
+                try {
+                    executor.schedule(() -> drain(replaced, deadline), DRAIN_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (final RejectedExecutionException e) {
+                    // Closing, destroy it now
+                }
+            }
+            if (inFlight > 0) {
+                log.warn("Destroying previous instance of bean [{}] with [{}] calls in progress", this.beanName, inFlight);
+            }
+            this.targetSource.forget(replaced);
+            destroy(replaced);
+        }
+
+        void destroy(final Object instance) {
+            getTargetFactory().destroyBean(this.beanName, instance);
+        }
+    }
+}
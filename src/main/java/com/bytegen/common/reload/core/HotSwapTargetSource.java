@@ -0,0 +1,133 @@
+package com.bytegen.common.reload.core;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TargetSource} of a {@link com.bytegen.common.reload.RefreshOnChange} proxy, counting the in-flight calls of
+ * each instance so that a replaced instance is only destroyed once drained.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public class HotSwapTargetSource implements TargetSource {
+
+    private final Class<?> targetClass;
+    private final List<Generation> retired = new CopyOnWriteArrayList<>();
+    private volatile Generation current;
+    private volatile long version;
+
+    public HotSwapTargetSource(final Class<?> targetClass, final Object target) {
+        Assert.notNull(target, "Target must not be null");
+        this.targetClass = targetClass;
+        this.current = new Generation(target);
+    }
+
+    @Override
+    public Class<?> getTargetClass() {
+        return this.targetClass;
+    }
+
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+
+    @Override
+    public Object getTarget() {
+        while (true) {
+            final Generation generation = this.current;
+            generation.inFlight.incrementAndGet();
+            if (generation == this.current) {
+                return generation.target;
+            }
+            // Swapped meanwhile, the replaced instance may already be draining
+            generation.inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void releaseTarget(final Object target) {
+        final Generation generation = this.current;
+        if (generation.target == target) {
+            generation.inFlight.decrementAndGet();
+            return;
+        }
+        for (final Generation replaced : this.retired) {
+            if (replaced.target == target) {
+                replaced.inFlight.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the instance receiving the new calls
+     */
+    public Object getCurrentTarget() {
+        return this.current.target;
+    }
+
+    /**
+     * @return the number of swaps so far
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return the number of calls in progress on the given instance
+     */
+    public int getInFlight(final Object target) {
+        final Generation generation = this.current;
+        if (generation.target == target) {
+            return generation.inFlight.get();
+        }
+        for (final Generation replaced : this.retired) {
+            if (replaced.target == target) {
+                return replaced.inFlight.get();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Route the new calls to the given instance, the replaced one is tracked until {@link #forget(Object)}.
+     *
+     * @return the replaced instance
+     */
+    synchronized Object swap(final Object target) {
+        Assert.notNull(target, "Target must not be null");
+        final Generation replaced = this.current;
+        this.retired.add(replaced);
+        this.current = new Generation(target);
+        this.version++;
+        return replaced.target;
+    }
+
+    List<Object> getRetiredTargets() {
+        final List<Object> targets = new ArrayList<>();
+        for (final Generation replaced : this.retired) {
+            targets.add(replaced.target);
+        }
+        return targets;
+    }
+
+    void forget(final Object target) {
+        this.retired.removeIf(replaced -> replaced.target == target);
+    }
+
+    private static class Generation {
+        private final Object target;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Generation(final Object target) {
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.OnPropertiesChanged;
+import com.bytegen.common.reload.bean.KeyPatternTrie;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangeListener;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routes the changed keys of each reload to the listeners of matching key patterns, see {@link OnPropertiesChanged}.
+ * <p>
+ * Patterns are kept in a {@link KeyPatternTrie}, and every listener receives a single callback per reload with all
+ * its matching keys. Beans with {@link OnPropertiesChanged} methods are held weakly.
+ * </p>
+ */
+public class KeyPatternSubscriptions implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(KeyPatternSubscriptions.class);
+
+    private final KeyPatternTrie<PropertyChangeListener> listeners = new KeyPatternTrie<>();
+    private final ConcurrentMap<Class<?>, List<Method>> callbacks = new ConcurrentHashMap<>();
+
+    public KeyPatternSubscriptions(final EventNotifier eventNotifier) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        eventNotifier.register(this);
+    }
+
+    /**
+     * Notify the given listener of the changes of the keys matching the given pattern.
+     */
+    public void subscribe(final String pattern, final PropertyChangeListener listener) {
+        this.listeners.put(pattern, listener);
+    }
+
+    /**
+     * Stop notifying the given listener, whatever its patterns.
+     */
+    public void unsubscribe(final PropertyChangeListener listener) {
+        this.listeners.removeIf(registered -> registered == listener);
+    }
+
+    /**
+     * Subscribe the {@link OnPropertiesChanged} methods of the given bean.
+     *
+     * @throws BeanInitializationException if a method has an unsupported signature
+     */
+    public void subscribe(final Object bean) {
+        for (final Method method : this.callbacks.computeIfAbsent(bean.getClass(), this::findCallbacks)) {
+            final PropertyChangeListener listener = new BeanMethodListener(bean, method);
+            for (final String pattern : method.getAnnotation(OnPropertiesChanged.class).value()) {
+                subscribe(pattern, listener);
+            }
+            log.info("Subscribing method [{}] of class [{}] to changes of {}", method.getName(),
+                    bean.getClass().getCanonicalName(), method.getAnnotation(OnPropertiesChanged.class).value());
+        }
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Listeners are notified once per batch
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        if (this.listeners.isEmpty()) {
+            return;
+        }
+        final Map<PropertyChangeListener, Set<String>> notifications = new LinkedHashMap<>();
+        for (final String key : event.getChangedPropertyNames()) {
+            for (final PropertyChangeListener listener : this.listeners.match(key)) {
+                notifications.computeIfAbsent(listener, k -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        boolean collected = false;
+        for (final Map.Entry<PropertyChangeListener, Set<String>> notification : notifications.entrySet()) {
+            final PropertyChangeListener listener = notification.getKey();
+            if (listener instanceof BeanMethodListener && ((BeanMethodListener) listener).isCollected()) {
+                collected = true;
+                continue;
+            }
+            try {
+                listener.onPropertiesChanged(Collections.unmodifiableSet(notification.getValue()));
+            } catch (final RuntimeException e) {
+                log.error(String.format("Unable to notify listener [%s] of changes %s", listener, notification.getValue()), e);
+            }
+        }
+        if (collected) {
+            this.listeners.removeIf(listener -> listener instanceof BeanMethodListener
+                    && ((BeanMethodListener) listener).isCollected());
+        }
+    }
+
+    private List<Method> findCallbacks(final Class<?> beanClass) {
+        final List<Method> methods = new ArrayList<>();
+        ReflectionUtils.doWithMethods(beanClass, method -> {
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            if (Modifier.isStatic(method.getModifiers())
+                    || parameterTypes.length > 1
+                    || (parameterTypes.length == 1 && !parameterTypes[0].isAssignableFrom(Set.class))) {
+                throw new BeanInitializationException(String.format("Method [%s] of class [%s] annotated with @OnPropertiesChanged "
+                        + "must be an instance method taking no argument or a Set<String>", method.getName(), beanClass.getCanonicalName()));
+            }
+            ReflectionUtils.makeAccessible(method);
+            methods.add(method);
+        }, method -> method.isAnnotationPresent(OnPropertiesChanged.class) && !method.isBridge());
+        return methods.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(methods);
+    }
+
+    private static class BeanMethodListener implements PropertyChangeListener {
+        private final WeakReference<Object> bean;
+        private final Method method;
+
+        BeanMethodListener(final Object bean, final Method method) {
+            this.bean = new WeakReference<>(bean);
+            this.method = method;
+        }
+
+        boolean isCollected() {
+            return null == this.bean.get();
+        }
+
+        @Override
+        public void onPropertiesChanged(final Set<String> changedKeys) {
+            final Object target = this.bean.get();
+            if (null == target) {
+                return;
+            }
+            try {
+                if (this.method.getParameterCount() == 0) {
+                    this.method.invoke(target);
+                } else {
+                    this.method.invoke(target, changedKeys);
+                }
+                log.info("Invoked change listener [{}] for class [{}] with keys {}",
+                        this.method.getName(), target.getClass().getCanonicalName(), changedKeys);
+            } catch (final IllegalAccessException | InvocationTargetException e) {
+                log.error(String.format("Unable to invoke change listener [%s] for class [%s]",
+                        this.method.getName(), target.getClass().getCanonicalName()),
+                        e instanceof InvocationTargetException ? e.getCause() : e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.method.toString();
+        }
+    }
+}
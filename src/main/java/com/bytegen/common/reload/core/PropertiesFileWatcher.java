@@ -1,58 +1,176 @@
 package com.bytegen.common.reload.core;
 
 import com.bytegen.common.reload.event.EventPublisher;
-import com.google.common.collect.Maps;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
 import com.sun.nio.file.SensitivityWatchEventModifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.Assert;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.WatchEvent.Kind;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
- * The watching process does not start by default, initiation is triggered by calling <code>startWatching()</code>
+ * Watches the directories of the given resources with one {@link WatchService} and one thread.
+ * <p>
+ * Files created, modified or deleted are collected until no event is received for {@link #DEBOUNCE_MILLIS}, so
+ * that a file written in several steps or replaced by a move is read once. Single resources are reloaded when they
+ * exist again, files of a {@link ResourceDirectory} are added and retracted as their own layers. Only the changed
+ * files are read, the other files keep their parsed layer.
+ * </p>
+ * <p>
+ * The whole tree of a recursive {@link ResourceDirectory} is registered to the same {@link WatchService}, sub
+ * directories created later are registered on their creation event, scanning only the new sub tree.
+ * </p>
+ * The watching process does not start by default, initiation is triggered by calling <code>startWatching()</code>,
+ * or by the application context when registered as a bean. Once stopped, the watcher can be started again: files
+ * changed meanwhile are reloaded on start.
  */
-public class PropertiesFileWatcher {
+public class PropertiesFileWatcher implements SmartLifecycle {
     private static Logger log = LoggerFactory.getLogger(PropertiesFileWatcher.class);
 
+    /**
+     * Quiet period closing a batch of file events
+     */
+    static final long DEBOUNCE_MILLIS = 100L;
+    /**
+     * Maximum time a batch of file events is held on continuous writes
+     */
+    static final long MAX_BATCH_MILLIS = 1000L;
+
     private final EventPublisher eventPublisher;
 
     private final Set<EncodedResource> locations;
-    private WatchService watchService;
-    private final ExecutorService service;
+    private final Set<ResourceDirectory> directories;
+    private volatile WatchService watchService;
+    private volatile ExecutorService service;
+    private volatile boolean running;
+
+    private final Map<Path, EncodedResource> resources = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+    /**
+     * Layer names of the files of directory locations, by file
+     */
+    private final Map<Path, String> directoryFiles = new ConcurrentHashMap<>();
+    /**
+     * Last known attributes of the watched files, to skip unchanged files on overflow
+     */
+    private final Map<Path, FileState> fileStates = new ConcurrentHashMap<>();
+    /**
+     * Files of the batch of events being collected
+     */
+    private final Set<Path> pendingFiles = ConcurrentHashMap.newKeySet();
+    /**
+     * Serializes loading and publishing, so the last content read is the last one published
+     */
+    private final Object publishLock = new Object();
 
     public PropertiesFileWatcher(final Set<EncodedResource> locations, final EventPublisher eventPublisher) throws IOException {
+        this(locations, Collections.emptySet(), eventPublisher);
+    }
+
+    /**
+     * @param locations   the loaded resources, including the files of the directory locations
+     * @param directories the directory locations
+     */
+    public PropertiesFileWatcher(final Set<EncodedResource> locations, final Set<ResourceDirectory> directories,
+                                 final EventPublisher eventPublisher) throws IOException {
         if (null == eventPublisher) {
             throw new BeanInitializationException("Event publisher not setup...");
         }
-        if (null == locations || locations.isEmpty()) {
+        if ((null == locations || locations.isEmpty()) && (null == directories || directories.isEmpty())) {
             throw new BeanInitializationException("Resource locations is empty...");
         }
 
-        this.locations = locations;
+        this.locations = (null == locations) ? Collections.emptySet() : locations;
+        this.directories = (null == directories) ? Collections.emptySet() : directories;
         this.eventPublisher = eventPublisher;
         this.watchService = FileSystems.getDefault().newWatchService();
-        this.service = Executors.newCachedThreadPool();
+        this.service = ReloadExecutors.newExecutor("auto-reload-watcher");
     }
 
-    public void startWatching() {
-        final Map<Path, List<EncodedResource>> pathsAndResources = findAvailableResourcePaths();
-        for (final Path pathToWatch : pathsAndResources.keySet()) {
-            final List<EncodedResource> availableResources = pathsAndResources.get(pathToWatch);
-            log.debug("Starting ResourceWatcher on file {}", availableResources);
-            this.service.submit(new ResourceWatcher(pathToWatch, availableResources));
+    public synchronized void startWatching() {
+        if (this.running) {
+            return;
+        }
+        final boolean restarting = this.service.isShutdown();
+        if (restarting) {
+            try {
+                this.watchService = FileSystems.getDefault().newWatchService();
+            } catch (final IOException e) {
+                throw new IllegalStateException("Unable to restart file watcher", e);
+            }
+            this.service = ReloadExecutors.newExecutor("auto-reload-watcher");
+        }
+        this.running = true;
+
+        final Set<Path> pathsToWatch = new LinkedHashSet<>();
+        for (final EncodedResource resource : this.locations) {
+            final Path file = getResourcePath(resource.getResource());
+            if (null == file) {
+                continue;
+            }
+            final ResourceDirectory directory = getDirectory(file);
+            if (null != directory) {
+                this.directoryFiles.put(file, getLayerName(resource));
+            } else {
+                this.resources.put(file, resource);
+                pathsToWatch.add(file.getParent());
+            }
+            if (!this.fileStates.containsKey(file)) {
+                updateFileState(file);
+            }
         }
+        for (final ResourceDirectory directory : this.directories) {
+            try {
+                pathsToWatch.addAll(directory.listDirectories(directory.getDirectory()));
+            } catch (final IOException e) {
+                log.error("Unable to list directory " + directory, e);
+            }
+        }
+
+        for (final Path pathToWatch : pathsToWatch) {
+            try {
+                register(pathToWatch);
+            } catch (final IOException e) {
+                log.error("Unable to watch path " + pathToWatch, e);
+            }
+        }
+
+        // Files of directory locations created or deleted meanwhile, and files changed while stopped
+        final Set<Path> changes = listChanges();
+        if (restarting) {
+            // A file rewritten with the same size within the timestamp granularity keeps its state, the resolver
+            // only publishes what actually changed
+            changes.addAll(this.resources.keySet());
+            changes.addAll(this.directoryFiles.keySet());
+        }
+        publishChanges(changes);
+
+        log.debug("Starting ResourceWatcher on paths {}", pathsToWatch);
+        this.service.submit(new ResourceWatcher(this.watchService));
     }
 
-    public void stop() {
+    @Override
+    public void start() {
+        startWatching();
+    }
+
+    @Override
+    public synchronized void stop() {
+        this.running = false;
         try {
             log.debug("Closing File Watching Service");
             this.watchService.close();
@@ -62,126 +180,401 @@ public class PropertiesFileWatcher {
         } catch (final IOException e) {
             log.error("Unable to stop file watcher", e);
         }
+        this.watchedDirectories.clear();
+        this.pendingFiles.clear();
     }
 
-    private Map<Path, List<EncodedResource>> findAvailableResourcePaths() {
-        final Map<Path, List<EncodedResource>> map = Maps.newHashMap();
-        for (final EncodedResource resource : this.locations) {
-            final Path resourceParentPath = getResourceParentPath(resource.getResource());
-            map.computeIfAbsent(resourceParentPath, k -> new ArrayList<>());
-            map.get(resourceParentPath).add(resource);
+    @Override
+    public void stop(final Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    /**
+     * Stop watching before the other beans, which could still be notified of changes otherwise.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Reload the given file at once, e.g. after missed events.
+     *
+     * @param resource the layer name or the path of a watched file, or of a file of a directory location
+     * @return whether the resource is watched
+     */
+    public boolean reload(final String resource) {
+        final Path file = getWatchedFile(resource);
+        if (null == file) {
+            return false;
         }
-        return map;
+        log.info("Forced reload of [{}]", file);
+        publishChanges(Collections.singleton(file));
+        return true;
     }
 
-    private Path getResourceParentPath(final Resource resource) {
-        try {
-            return Paths.get(resource.getFile()
-                    .getParentFile()
-                    .toURI());
-        } catch (final IOException e) {
-            log.error("Unable to get resource path", e);
+    /**
+     * Wait for the current content of the given file to be applied and propagated to every subscriber.
+     *
+     * @param resource the layer name or the path of a watched file, or of a file of a directory location
+     * @return the future of the version of the reload which applied the content, see
+     * {@link ReloadPropertyEventPublisher#awaitLayer}
+     * @throws IllegalArgumentException if the resource is not watched
+     */
+    public CompletableFuture<Long> awaitApplied(final String resource, final long timeout, final TimeUnit unit) {
+        final Path file = getWatchedFile(resource);
+        Assert.notNull(file, "Resource [" + resource + "] is not watched");
+        Assert.state(this.eventPublisher instanceof ReloadPropertyEventPublisher,
+                "Awaiting reloads requires a ReloadPropertyEventPublisher");
+
+        final EncodedResource encodedResource = this.resources.containsKey(file)
+                ? this.resources.get(file) : getDirectory(file).getResource(file);
+        Map<String, String> content = Collections.emptyMap();
+        if (Files.exists(file)) {
+            try {
+                content = LayeredPropertyResolver.toMap(PropertiesLoaderUtils.loadProperties(encodedResource));
+            } catch (final IOException e) {
+                final CompletableFuture<Long> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
         }
-        return null;
+        return ((ReloadPropertyEventPublisher) this.eventPublisher).awaitLayer(getLayerName(encodedResource), content,
+                timeout, unit);
     }
 
-    private void publishResourceChangedEvent(final EncodedResource resource) throws IOException {
-        final Properties reloadedProperties = PropertiesLoaderUtils.loadProperties(resource);
-        this.eventPublisher.onPropertyChanged(reloadedProperties);
+    /**
+     * @return the watched files by the name of their layer
+     */
+    public Map<String, Path> getLayerFiles() {
+        final Map<String, Path> layerFiles = new TreeMap<>();
+        for (final Map.Entry<Path, EncodedResource> resource : this.resources.entrySet()) {
+            layerFiles.put(getLayerName(resource.getValue()), resource.getKey());
+        }
+        for (final Map.Entry<Path, String> directoryFile : this.directoryFiles.entrySet()) {
+            layerFiles.put(directoryFile.getValue(), directoryFile.getKey());
+        }
+        return layerFiles;
     }
 
-    private WatchService getWatchService() {
-        return this.watchService;
+    /**
+     * @return the changed files waiting for the end of their batch of events
+     */
+    public Set<Path> getPendingChanges() {
+        return Collections.unmodifiableSet(new TreeSet<>(this.pendingFiles));
     }
 
+    /**
+     * @return the name of the {@link com.bytegen.common.reload.resolver.PropertyLayer} holding the properties of the given resource
+     */
+    public static String getLayerName(final EncodedResource resource) {
+        return resource.getResource().getDescription();
+    }
 
-    private class ResourceWatcher implements Runnable {
+    /**
+     * @return the watched file of the given layer name or path, {@code null} if not watched
+     */
+    private Path getWatchedFile(final String resource) {
+        Path file = null;
+        for (final Map.Entry<String, Path> layerFile : getLayerFiles().entrySet()) {
+            if (layerFile.getKey().equals(resource)) {
+                file = layerFile.getValue();
+            }
+        }
+        if (null == file) {
+            file = Paths.get(resource).toAbsolutePath().normalize();
+        }
+        return (this.resources.containsKey(file) || null != getDirectory(file)) ? file : null;
+    }
 
-        private final Path path;
-        private final List<EncodedResource> resources;
+    private void register(final Path directory) throws IOException {
+        final WatchKey key = directory.register(this.watchService,
+                new WatchEvent.Kind[]{StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE},
+                SensitivityWatchEventModifier.HIGH);
+        this.watchedDirectories.put(key, directory);
+        log.debug("Watching for events for path {}", directory);
+    }
 
-        public ResourceWatcher(final Path path, final List<EncodedResource> resources) {
-            this.path = path;
-            this.resources = resources;
+    private Path getResourcePath(final Resource resource) {
+        try {
+            return resource.getFile().toPath().toAbsolutePath().normalize();
+        } catch (final IOException e) {
+            log.error("Unable to get resource path of " + resource.getDescription(), e);
         }
+        return null;
+    }
 
-        @Override
-        public void run() {
+    /**
+     * Register a directory created below a recursive location with its own sub directories.
+     *
+     * @param changedFiles collects the matching files already written into the new directories
+     */
+    private void registerCreatedDirectory(final Path created, final Set<Path> changedFiles) {
+        for (final ResourceDirectory directory : this.directories) {
+            if (!directory.isRecursive() || !directory.watches(created)) {
+                continue;
+            }
             try {
-                log.debug("START");
-                log.debug("Watching for modification events for path {}", this.path.toString());
-                while (!Thread.currentThread().isInterrupted()) {
-                    final WatchKey pathBeingWatched = this.path.register(getWatchService(),
-                            new WatchEvent.Kind[]{StandardWatchEventKinds.ENTRY_MODIFY},
-                            SensitivityWatchEventModifier.HIGH);
-
-                    WatchKey watchKey = null;
-                    try {
-                        watchKey = getWatchService().take();
-                    } catch (final ClosedWatchServiceException | InterruptedException e) {
-                        log.debug("END");
-                        Thread.currentThread().interrupt();
+                for (final Path path : directory.listDirectories(created)) {
+                    if (!this.watchedDirectories.containsValue(path)) {
+                        register(path);
                     }
+                }
+                changedFiles.addAll(directory.listFiles(created));
+            } catch (final IOException e) {
+                log.error("Unable to watch created directory " + created, e);
+            }
+        }
+    }
 
-                    if (watchKey != null) {
-                        for (final WatchEvent<?> event : pathBeingWatched.pollEvents()) {
-                            log.debug("File modification Event Triggered");
-                            final Path target = path(event.context());
-                            if (isValidTargetFile(target)) {
-                                final Path watchedPath = path(watchKey.watchable());
-                                final Kind<?> eventKind = event.kind();
-
-                                logNewEvent(watchedPath, eventKind, target);
-                                publishResourceChangedEvent(getResource(target));
-                            }
-                        }
-                        if (!watchKey.reset()) {
-                            log.debug("END");
-                            Thread.currentThread().interrupt();
-                            return;
-                        }
+    private ResourceDirectory getDirectory(final Path file) {
+        for (final ResourceDirectory directory : this.directories) {
+            if (directory.matches(file)) {
+                return directory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the files of the directory locations created or deleted since last known
+     */
+    private Set<Path> listDirectoryChanges() {
+        final Set<Path> changes = new LinkedHashSet<>();
+        for (final ResourceDirectory directory : this.directories) {
+            try {
+                for (final Path file : directory.listFiles()) {
+                    if (!this.directoryFiles.containsKey(file)) {
+                        changes.add(file);
                     }
                 }
-            } catch (final Exception e) {
-                log.error("Exception thrown when watching resources, path {}\nException:", this.path.toString(), e);
-                stop();
+            } catch (final IOException e) {
+                log.error("Unable to list directory " + directory, e);
             }
         }
-
-        private void logNewEvent(final Path watchedPath, final Kind<?> eventKind, final Path target) {
-            log.debug("Watched Resource changed, modified file [{}]", target.getFileName()
-                    .toString());
-            log.debug("  Event Kind [{}]", eventKind);
-            log.debug("      Target [{}]", target);
-            log.debug("Watched Path [{}]", watchedPath);
+        for (final Path file : this.directoryFiles.keySet()) {
+            if (!Files.exists(file)) {
+                changes.add(file);
+            }
         }
+        return changes;
+    }
 
-        private Path path(final Object object) {
-            return (Path) object;
+    /**
+     * Reload the given changed files, single resources first, then the files of directory locations as one batch.
+     */
+    private void publishChanges(final Collection<Path> changedFiles) {
+        synchronized (this.publishLock) {
+            doPublishChanges(changedFiles);
         }
+    }
 
-        private boolean isValidTargetFile(final Path target) {
-            for (final EncodedResource resource : this.resources) {
-                if (pathMatchesResource(target, resource)) {
-                    return true;
+    private void doPublishChanges(final Collection<Path> changedFiles) {
+        final Map<PropertyLayer, Properties> directoryLayers = new LinkedHashMap<>();
+        final List<String> removedLayers = new ArrayList<>();
+
+        for (final Path file : changedFiles) {
+            final EncodedResource resource = this.resources.get(file);
+            if (null != resource) {
+                if (!Files.isRegularFile(file)) {
+                    // Keep the last properties, e.g. while the file is replaced
+                    log.debug("Watched Resource [{}] deleted, keeping its properties", file);
+                    this.fileStates.remove(file);
+                    continue;
+                }
+                final Properties properties = loadProperties(file, resource);
+                if (null != properties) {
+                    this.eventPublisher.onPropertyChanged(getLayerName(resource), properties);
                 }
+                continue;
             }
-            return false;
-        }
 
-        public EncodedResource getResource(final Path target) {
-            for (final EncodedResource resource : this.resources) {
-                if (pathMatchesResource(target, resource)) {
-                    return resource;
+            final ResourceDirectory directory = getDirectory(file);
+            if (null == directory) {
+                continue;
+            }
+            if (Files.isRegularFile(file)) {
+                final EncodedResource directoryResource = directory.getResource(file);
+                final Properties properties = loadProperties(file, directoryResource);
+                if (null != properties) {
+                    directoryLayers.put(directory.getLayer(file), properties);
+                    this.directoryFiles.put(file, getLayerName(directoryResource));
+                }
+            } else {
+                this.fileStates.remove(file);
+                final String layerName = this.directoryFiles.remove(file);
+                if (null != layerName) {
+                    removedLayers.add(layerName);
                 }
             }
+        }
+
+        if (!directoryLayers.isEmpty()) {
+            log.info("Reloading directory files {}", directoryLayers.keySet());
+            this.eventPublisher.onPropertyChanged(directoryLayers);
+        }
+        for (final String layerName : removedLayers) {
+            log.info("Retracting deleted file [{}]", layerName);
+            this.eventPublisher.onLayerRemoved(layerName);
+        }
+    }
+
+    private Properties loadProperties(final Path file, final EncodedResource resource) {
+        try {
+            final Properties properties = PropertiesLoaderUtils.loadProperties(resource);
+            updateFileState(file);
+            return properties;
+        } catch (final IOException e) {
+            log.warn("Unable to load properties of [{}]: {}", file, e.getMessage());
             return null;
         }
+    }
 
-        private boolean pathMatchesResource(final Path target, final EncodedResource resource) {
-            return target.getFileName()
-                    .toString()
-                    .equals(resource.getResource().getFilename());
+    private void updateFileState(final Path file) {
+        final FileState state = FileState.of(file);
+        if (null == state) {
+            this.fileStates.remove(file);
+        } else {
+            this.fileStates.put(file, state);
+        }
+    }
+
+    /**
+     * @return every watched file whose attributes changed, and the created or deleted files of directory locations
+     */
+    private Set<Path> listChanges() {
+        final Set<Path> changes = listDirectoryChanges();
+        for (final Path file : this.resources.keySet()) {
+            if (!Objects.equals(this.fileStates.get(file), FileState.of(file))) {
+                changes.add(file);
+            }
+        }
+        for (final Path file : this.directoryFiles.keySet()) {
+            if (!Objects.equals(this.fileStates.get(file), FileState.of(file))) {
+                changes.add(file);
+            }
+        }
+        return changes;
+    }
+
+    private static class FileState {
+        private final long lastModified;
+        private final long size;
+
+        FileState(final long lastModified, final long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        static FileState of(final Path file) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (final IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileState that = (FileState) o;
+            return lastModified == that.lastModified && size == that.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, size);
+        }
+    }
+
+    private class ResourceWatcher implements Runnable {
+        private final WatchService watchService;
+
+        ResourceWatcher(final WatchService watchService) {
+            this.watchService = watchService;
+        }
+
+        @Override
+        public void run() {
+            log.debug("START");
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey watchKey = watchService.take();
+
+                    final Set<Path> changedFiles = new LinkedHashSet<>();
+                    boolean overflow = false;
+                    final long batchEnd = System.currentTimeMillis() + MAX_BATCH_MILLIS;
+                    do {
+                        overflow |= pollEvents(watchKey, changedFiles);
+                        pendingFiles.addAll(changedFiles);
+                        watchKey = (System.currentTimeMillis() < batchEnd)
+                                ? watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS) : null;
+                    } while (null != watchKey);
+
+                    if (overflow) {
+                        log.warn("File events overflowed, checking every watched file");
+                        changedFiles.addAll(listChanges());
+                    }
+                    publishChanges(changedFiles);
+                    pendingFiles.removeAll(changedFiles);
+                }
+            } catch (final ClosedWatchServiceException | InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final Exception e) {
+                log.error("Exception thrown when watching resources\nException:", e);
+                stop();
+            }
+            log.debug("END");
+        }
+
+        /**
+         * @return whether events overflowed
+         */
+        private boolean pollEvents(final WatchKey watchKey, final Set<Path> changedFiles) {
+            final Path watchedPath = watchedDirectories.get(watchKey);
+            boolean overflow = false;
+            for (final WatchEvent<?> event : watchKey.pollEvents()) {
+                if (StandardWatchEventKinds.OVERFLOW == event.kind()) {
+                    overflow = true;
+                    continue;
+                }
+                if (null == watchedPath) {
+                    continue;
+                }
+                final Path target = watchedPath.resolve((Path) event.context());
+                log.debug("Watched Resource changed, event [{}] on [{}]", event.kind(), target);
+                if (StandardWatchEventKinds.ENTRY_CREATE == event.kind() && Files.isDirectory(target)) {
+                    registerCreatedDirectory(target, changedFiles);
+                } else if (resources.containsKey(target) || null != getDirectory(target)) {
+                    changedFiles.add(target);
+                } else if (StandardWatchEventKinds.ENTRY_DELETE == event.kind()) {
+                    // A deleted or moved away directory, retract the files known below it
+                    for (final Path file : directoryFiles.keySet()) {
+                        if (file.startsWith(target)) {
+                            changedFiles.add(file);
+                        }
+                    }
+                }
+            }
+            if (!watchKey.reset()) {
+                log.debug("Watched path [{}] is no longer accessible", watchedPath);
+                watchedDirectories.remove(watchKey);
+            }
+            return overflow;
         }
     }
 }
@@ -0,0 +1,142 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory overrides of this process, above every resource, e.g. to flip a kill switch at once.
+ * <p>
+ * Overrides are written into the {@link LayeredPropertyResolver#RUNTIME_LAYER} layer through the
+ * {@link ReloadPropertyEventPublisher}, so a batch is applied as one reload and subscribers are notified before
+ * {@link #set} returns. Clearing a key, explicitly or once its TTL elapsed, gives the value of the lower layers back.
+ * </p>
+ * <p>
+ * Overrides are never written to the shared snapshot, they only apply to this process.
+ * </p>
+ */
+public class PropertyOverrides implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PropertyOverrides.class);
+
+    private final ReloadPropertyEventPublisher publisher;
+
+    /**
+     * Batch of each key set with a TTL, only accessed under the lock of this instance
+     */
+    private final Map<String, Object> expirations = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public PropertyOverrides(final ReloadPropertyEventPublisher publisher) {
+        Assert.notNull(publisher, "Event publisher can not be null");
+        this.publisher = publisher;
+
+        final LayeredPropertyResolver resolver = publisher.getPropertyResolver();
+        if (null == resolver.getLayer(LayeredPropertyResolver.RUNTIME_LAYER)) {
+            resolver.putLayer(new PropertyLayer(LayeredPropertyResolver.RUNTIME_LAYER, PropertyLayer.RUNTIME, 0),
+                    Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Override the given properties until cleared.
+     */
+    public void set(final Map<String, String> overrides) {
+        set(overrides, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Override the given properties as one reload, until cleared or the given TTL elapsed.
+     *
+     * @param ttl the time to live of the overrides, {@code 0} to keep them until cleared
+     */
+    public synchronized void set(final Map<String, String> overrides, final long ttl, final TimeUnit unit) {
+        Assert.notNull(overrides, "Overrides must not be null");
+        Assert.isTrue(ttl >= 0, "TTL must not be negative");
+        if (overrides.isEmpty()) {
+            return;
+        }
+        for (final Map.Entry<String, String> override : overrides.entrySet()) {
+            Assert.notNull(override.getKey(), "Property key must not be null");
+            Assert.notNull(override.getValue(), "Override of [" + override.getKey() + "] must not be null, clear it instead");
+            this.expirations.remove(override.getKey());
+        }
+
+        this.publisher.onPropertyUpdated(LayeredPropertyResolver.RUNTIME_LAYER, new LinkedHashMap<>(overrides));
+
+        if (ttl > 0) {
+            final Set<String> keys = new HashSet<>(overrides.keySet());
+            final Object batch = new Object();
+            for (final String key : keys) {
+                this.expirations.put(key, batch);
+            }
+            getScheduler().schedule(() -> expire(keys, batch), ttl, unit);
+        }
+    }
+
+    /**
+     * Remove the overrides of the given keys as one reload.
+     */
+    public synchronized void clear(final Collection<String> keys) {
+        Assert.notNull(keys, "Keys must not be null");
+        final Map<String, String> changes = new LinkedHashMap<>();
+        for (final String key : keys) {
+            this.expirations.remove(key);
+            changes.put(key, null);
+        }
+        this.publisher.onPropertyUpdated(LayeredPropertyResolver.RUNTIME_LAYER, changes);
+    }
+
+    public void clearAll() {
+        clear(getOverrides().keySet());
+    }
+
+    /**
+     * @return the current overrides
+     */
+    public Map<String, String> getOverrides() {
+        return this.publisher.getPropertyResolver().getLayerProperties(LayeredPropertyResolver.RUNTIME_LAYER);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != this.scheduler) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        this.expirations.clear();
+    }
+
+    private synchronized void expire(final Set<String> keys, final Object batch) {
+        final Map<String, String> changes = new LinkedHashMap<>();
+        for (final String key : keys) {
+            // Keys set or cleared since are left as is
+            if (this.expirations.get(key) == batch) {
+                this.expirations.remove(key);
+                changes.put(key, null);
+            }
+        }
+        if (!changes.isEmpty()) {
+            log.info("Overrides of {} expired", changes.keySet());
+            this.publisher.onPropertyUpdated(LayeredPropertyResolver.RUNTIME_LAYER, changes);
+        }
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        if (null == this.scheduler) {
+            this.scheduler = ReloadExecutors.newScheduledExecutor("auto-reload-overrides");
+        }
+        return this.scheduler;
+    }
+}
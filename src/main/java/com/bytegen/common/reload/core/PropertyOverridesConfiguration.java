@@ -0,0 +1,16 @@
+package com.bytegen.common.reload.core;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link PropertyOverrides} of the {@link ReloadSourcePropertySupport} as a bean.
+ */
+@Configuration
+public class PropertyOverridesConfiguration {
+
+    @Bean
+    public PropertyOverrides propertyOverrides(final ReloadSourcePropertySupport reloadSourcePropertySupport) {
+        return reloadSourcePropertySupport.getPropertyOverrides();
+    }
+}
@@ -0,0 +1,34 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.reactive.PropertyPublishers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Exposes the {@link PropertyPublishers} of the reloadable properties as a bean when Reactive Streams is on the
+ * classpath.
+ */
+@Configuration
+@Conditional(PropertyPublishersConfiguration.ReactiveStreamsPresent.class)
+public class PropertyPublishersConfiguration {
+
+    private static final String PUBLISHER_CLASS = "org.reactivestreams.Publisher";
+
+    @Bean
+    public PropertyPublishers propertyPublishers(final ReloadSourcePropertySupport reloadSourcePropertySupport) {
+        return new PropertyPublishers(GuavaEventNotifier.getInstance(), reloadSourcePropertySupport.getPropertyResolver());
+    }
+
+    static class ReactiveStreamsPresent implements Condition {
+        @Override
+        public boolean matches(final ConditionContext context, final AnnotatedTypeMetadata metadata) {
+            return ClassUtils.isPresent(PUBLISHER_CLASS, context.getClassLoader());
+        }
+    }
+}
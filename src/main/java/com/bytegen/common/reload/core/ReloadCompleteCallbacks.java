@@ -0,0 +1,83 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.OnReloadComplete;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Looks up and invokes the {@link OnReloadComplete} methods of a bean class, introspecting each class only once.
+ */
+public class ReloadCompleteCallbacks {
+    private static final Logger log = LoggerFactory.getLogger(ReloadCompleteCallbacks.class);
+
+    private final ConcurrentMap<Class<?>, List<Method>> callbacks = new ConcurrentHashMap<>();
+
+    /**
+     * @return the validated {@link OnReloadComplete} methods of the given class, never {@code null}
+     * @throws BeanInitializationException if a method has an unsupported signature
+     */
+    public List<Method> getCallbacks(final Class<?> beanClass) {
+        return this.callbacks.computeIfAbsent(beanClass, this::findCallbacks);
+    }
+
+    /**
+     * Invoke every {@link OnReloadComplete} method of the given bean, failures are logged and do not prevent the
+     * other callbacks from running.
+     */
+    public void invoke(final Object bean, final Set<String> changedKeys) {
+        for (final Method method : getCallbacks(bean.getClass())) {
+            try {
+                if (method.getParameterCount() == 0) {
+                    method.invoke(bean);
+                } else {
+                    method.invoke(bean, Collections.unmodifiableSet(changedKeys));
+                }
+                log.info("Invoked reload callback [{}] for class [{}] with keys {}",
+                        method.getName(), bean.getClass().getCanonicalName(), changedKeys);
+            } catch (final IllegalAccessException | InvocationTargetException e) {
+                log.error(String.format("Unable to invoke reload callback [%s] for class [%s]",
+                        method.getName(), bean.getClass().getCanonicalName()),
+                        e instanceof InvocationTargetException ? e.getCause() : e);
+            }
+        }
+    }
+
+    private List<Method> findCallbacks(final Class<?> beanClass) {
+        final List<Method> methods = new ArrayList<>();
+        final Set<String> signatures = new HashSet<>();
+        ReflectionUtils.doWithMethods(beanClass, method -> {
+            // Overridden methods are invoked virtually, only the most specific declaration is kept
+            if (!signatures.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                return;
+            }
+            validateCallback(beanClass, method);
+            ReflectionUtils.makeAccessible(method);
+            methods.add(method);
+        }, method -> method.isAnnotationPresent(OnReloadComplete.class) && !method.isBridge());
+        return methods.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(methods);
+    }
+
+    private void validateCallback(final Class<?> beanClass, final Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        if (Modifier.isStatic(method.getModifiers())
+                || parameterTypes.length > 1
+                || (parameterTypes.length == 1 && !parameterTypes[0].isAssignableFrom(Set.class))) {
+            throw new BeanInitializationException(String.format("Method [%s] of class [%s] annotated with @OnReloadComplete "
+                    + "must be an instance method taking no argument or a Set<String>", method.getName(), beanClass.getCanonicalName()));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bytegen.common.reload.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of the executors running watchers, polling sources and asynchronous dispatch.
+ * <p>
+ * This is the Java 8 implementation, backed by platform threads. The multi-release jar ships a Java 21
+ * implementation under {@code META-INF/versions/21} running the same tasks on virtual threads.
+ * </p>
+ */
+public final class ReloadExecutors {
+
+    /**
+     * System property disabling virtual threads on Java 21+, e.g. {@code -Dauto-reload.virtual-threads=false}
+     */
+    public static final String VIRTUAL_THREADS = "auto-reload.virtual-threads";
+
+    private ReloadExecutors() {
+    }
+
+    /**
+     * @param name the name prefix of the threads
+     * @return an executor starting a new daemon thread per task when no idle one is available
+     */
+    public static ExecutorService newExecutor(final String name) {
+        return Executors.newCachedThreadPool(newThreadFactory(name));
+    }
+
+    /**
+     * @param name the name prefix of the thread
+     * @return a scheduler running delayed tasks on a single daemon thread, cancelled tasks being removed at once
+     */
+    public static ScheduledExecutorService newScheduledExecutor(final String name) {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, newThreadFactory(name));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * @return whether tasks submitted to {@link #newExecutor(String)} run on virtual threads
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    private static ThreadFactory newThreadFactory(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.inspect.JmxReloadInspector;
+import com.bytegen.common.reload.inspect.ReloadEndpoint;
+import com.bytegen.common.reload.inspect.ReloadInspector;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Exposes the {@link ReloadInspector} as the actuator endpoint {@code autoreload} when Spring Boot actuator is on the
+ * classpath, as an MBean otherwise. Disabled with {@value #INSPECTION_ENABLED}{@code =false}.
+ */
+@Configuration
+@Conditional(ReloadInspectionConfiguration.InspectionEnabled.class)
+public class ReloadInspectionConfiguration {
+
+    /**
+     * Whether the inspection endpoint or MBean is exposed, {@code true} by default.
+     */
+    public static final String INSPECTION_ENABLED = "auto-reload.inspection.enabled";
+
+    private static final String ENDPOINT_CLASS = "org.springframework.boot.actuate.endpoint.annotation.Endpoint";
+
+    @Bean
+    public ReloadInspector reloadInspector(final ReloadSourcePropertySupport reloadSourcePropertySupport) {
+        return reloadSourcePropertySupport.getInspector();
+    }
+
+    @Configuration
+    @Conditional(ActuatorPresent.class)
+    static class EndpointConfiguration {
+
+        @Bean
+        public ReloadEndpoint reloadEndpoint(final ReloadInspector reloadInspector) {
+            return new ReloadEndpoint(reloadInspector);
+        }
+    }
+
+    @Configuration
+    @Conditional(ActuatorMissing.class)
+    static class JmxConfiguration {
+
+        @Bean(initMethod = "register", destroyMethod = "unregister")
+        public JmxReloadInspector jmxReloadInspector(final ReloadInspector reloadInspector) {
+            return new JmxReloadInspector(reloadInspector);
+        }
+    }
+
+    static class InspectionEnabled implements Condition {
+        @Override
+        public boolean matches(final ConditionContext context, final AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty(INSPECTION_ENABLED, Boolean.class, true);
+        }
+    }
+
+    static class ActuatorPresent implements Condition {
+        @Override
+        public boolean matches(final ConditionContext context, final AnnotatedTypeMetadata metadata) {
+            return ClassUtils.isPresent(ENDPOINT_CLASS, context.getClassLoader());
+        }
+    }
+
+    static class ActuatorMissing implements Condition {
+        @Override
+        public boolean matches(final ConditionContext context, final AnnotatedTypeMetadata metadata) {
+            return !ClassUtils.isPresent(ENDPOINT_CLASS, context.getClassLoader());
+        }
+    }
+}
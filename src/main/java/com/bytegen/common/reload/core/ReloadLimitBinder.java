@@ -0,0 +1,186 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadLimit;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.limit.AdjustableSemaphore;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Applies the reloads of the {@link ReloadLimit} fields directly to the live thread pools, semaphores and rate
+ * limiters they hold, so that throughput is retuned under load without re-creating anything.
+ * <p>
+ * Limits are held weakly and only applied when their resolved value changed. A value which cannot be applied is
+ * logged and the previous limit is kept.
+ * </p>
+ */
+public class ReloadLimitBinder implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(ReloadLimitBinder.class);
+
+    private final PropertiesPropertyResolver propertyResolver;
+    private final List<Binding> bindings = new CopyOnWriteArrayList<>();
+
+    public ReloadLimitBinder(final EventNotifier eventNotifier, final PropertiesPropertyResolver propertyResolver) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+
+        this.propertyResolver = propertyResolver;
+        eventNotifier.register(this);
+    }
+
+    /**
+     * Apply the {@link ReloadLimit} fields of the given initialized bean and track them for reloads, the fields of an
+     * AOP proxy being read from its target.
+     *
+     * @throws BeanInitializationException if a field holds no limit or an unsupported one, or its limit is invalid, or
+     *                                     the bean is a proxy whose target is not a singleton
+     */
+    public void subscribe(final Object bean) {
+        final Object instance = getSingletonTarget(bean);
+        final Class<?> beanClass = AopUtils.getTargetClass(instance);
+        if (AopUtils.isAopProxy(instance)) {
+            // Fields of the proxy itself are never initialized
+            ReflectionUtils.doWithFields(beanClass, field -> {
+                throw new BeanInitializationException(String.format("Unable to bind limit of field [%s], the target of "
+                        + "the proxy is not a singleton", beanClass.getCanonicalName() + "." + field.getName()));
+            }, field -> field.isAnnotationPresent(ReloadLimit.class));
+            return;
+        }
+        ReflectionUtils.doWithFields(beanClass, field -> {
+            ReflectionUtils.makeAccessible(field);
+            final Object target = field.get(instance);
+            final String description = beanClass.getCanonicalName() + "." + field.getName();
+            if (!(target instanceof ThreadPoolExecutor || target instanceof AdjustableSemaphore || target instanceof RateLimiter)) {
+                throw new BeanInitializationException(String.format("Field [%s] annotated with @ReloadLimit must hold a "
+                        + "ThreadPoolExecutor, an AdjustableSemaphore or a RateLimiter, was [%s]", description, target));
+            }
+
+            final ReloadLimit annotation = field.getAnnotation(ReloadLimit.class);
+            final Binding binding = new Binding(target, annotation.value(), annotation.max(), description);
+            try {
+                binding.apply(true);
+            } catch (final RuntimeException e) {
+                throw new BeanInitializationException(String.format("Unable to apply limit of field [%s]", description), e);
+            }
+            this.bindings.add(binding);
+            log.info("Binding limit [{}] on field [{}]", annotation.value(), description);
+        }, field -> field.isAnnotationPresent(ReloadLimit.class));
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Limits are applied once per reload
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        if (event.getChangedPropertyNames().isEmpty()) {
+            return;
+        }
+        for (final Binding binding : this.bindings) {
+            if (null == binding.target.get()) {
+                this.bindings.remove(binding);
+                continue;
+            }
+            try {
+                binding.apply(false);
+            } catch (final RuntimeException e) {
+                log.warn("Unable to apply limit of field [{}], keeping the previous limit: {}", binding.description, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the innermost singleton target of the given proxy, the given bean if not a proxy
+     */
+    private static Object getSingletonTarget(final Object bean) {
+        Object instance = bean;
+        Object target = AopProxyUtils.getSingletonTarget(instance);
+        while (null != target) {
+            instance = target;
+            target = AopProxyUtils.getSingletonTarget(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Resize the given pool, moving the bound which keeps the core size not above the maximum size first.
+     */
+    static void resize(final ThreadPoolExecutor pool, final int coreSize, final int maxSize) {
+        Assert.isTrue(coreSize >= 0, "Core size must not be negative");
+        if (pool instanceof ScheduledThreadPoolExecutor) {
+            // Fixed-size pool, its maximum size has no effect
+            pool.setCorePoolSize(coreSize);
+            return;
+        }
+        Assert.isTrue(maxSize > 0 && maxSize >= coreSize, "Maximum size must be positive and not below the core size");
+        if (coreSize > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(maxSize);
+            pool.setCorePoolSize(coreSize);
+        } else {
+            pool.setCorePoolSize(coreSize);
+            pool.setMaximumPoolSize(maxSize);
+        }
+    }
+
+    private class Binding {
+        private final WeakReference<Object> target;
+        private final String value;
+        private final String max;
+        private final String description;
+        private String appliedValue;
+        private String appliedMax;
+
+        Binding(final Object target, final String value, final String max, final String description) {
+            this.target = new WeakReference<>(target);
+            this.value = value;
+            this.max = max;
+            this.description = description;
+        }
+
+        void apply(final boolean initial) {
+            final Object limit = this.target.get();
+            final String resolvedValue = propertyResolver.resolvePlaceholders(this.value).trim();
+            final String resolvedMax = StringUtils.isBlank(this.max) ? resolvedValue : propertyResolver.resolvePlaceholders(this.max).trim();
+            if (null == limit || (Objects.equals(resolvedValue, this.appliedValue) && Objects.equals(resolvedMax, this.appliedMax))) {
+                return;
+            }
+
+            if (limit instanceof ThreadPoolExecutor) {
+                resize((ThreadPoolExecutor) limit, Integer.parseInt(resolvedValue), Integer.parseInt(resolvedMax));
+            } else if (limit instanceof AdjustableSemaphore) {
+                ((AdjustableSemaphore) limit).setPermits(Integer.parseInt(resolvedValue));
+            } else {
+                final double permitsPerSecond = Double.parseDouble(resolvedValue);
+                Assert.isTrue(permitsPerSecond > 0, "Rate must be positive");
+                ((RateLimiter) limit).setRate(permitsPerSecond);
+            }
+            if (!initial) {
+                log.info("Applied limit [{}] to field [{}]", resolvedValue + (resolvedValue.equals(resolvedMax) ? "" : "/" + resolvedMax),
+                        this.description);
+            }
+            this.appliedValue = resolvedValue;
+            this.appliedMax = resolvedMax;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadMap;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.conversion.FieldConverter;
+import com.bytegen.common.reload.conversion.FieldConverters;
+import com.bytegen.common.reload.conversion.Separator;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binds the fields annotated with {@link ReloadMap} to live maps, applying on reload only the added, removed or
+ * changed entries.
+ * <p>
+ * One map is kept per (value type, prefix, suffix) and shared by every field bound to it. Entries holding a
+ * placeholder value are remembered, as they may change with properties outside of their prefix. Values are
+ * converted by the built-in {@link FieldConverters} when the value type is supported.
+ * </p>
+ */
+public class ReloadMapBinder implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(ReloadMapBinder.class);
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+    private static final TypeDescriptor STRING_TYPE = TypeDescriptor.valueOf(String.class);
+
+    private final PropertiesPropertyResolver propertyResolver;
+
+    private final BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+    private final ConcurrentMap<String, Binding> bindings = new ConcurrentHashMap<>();
+
+    public ReloadMapBinder(final EventNotifier eventNotifier, final PropertiesPropertyResolver propertyResolver) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+
+        this.propertyResolver = propertyResolver;
+        eventNotifier.register(this);
+    }
+
+    /**
+     * Bind the {@link ReloadMap} fields of the given bean and track them for reloads.
+     */
+    public void subscribe(final Object bean) {
+        ReflectionUtils.doWithFields(bean.getClass(), field -> {
+            validateField(bean, field);
+            ReflectionUtils.makeAccessible(field);
+
+            final ReloadMap annotation = field.getAnnotation(ReloadMap.class);
+            final TypeDescriptor valueType = TypeDescriptor.nested(field, 1);
+            final Separator separator = field.getAnnotation(Separator.class);
+            final String key = valueType + "@" + annotation.prefix() + ".*" + annotation.suffix()
+                    + ((null == separator) ? "" : "[" + separator.value() + separator.keyValue() + "]");
+            final Binding binding;
+            synchronized (this.bindings) {
+                binding = this.bindings.computeIfAbsent(key, k -> {
+                    final FieldConverter converter = FieldConverters.forType(ResolvableType.forField(field).asMap().getGeneric(1),
+                            (null == separator) ? FieldConverters.DEFAULT_SEPARATOR : separator.value(),
+                            (null == separator) ? FieldConverters.DEFAULT_KEY_VALUE_SEPARATOR : separator.keyValue());
+                    final Binding created = new Binding(annotation.prefix(), annotation.suffix(), valueType, converter);
+                    for (final String name : this.propertyResolver.propertyNames()) {
+                        apply(created, name);
+                    }
+                    return created;
+                });
+
+                field.set(bean, binding.view);
+                this.subscriptions.subscribe(key, bean, field);
+            }
+            log.info("Binding properties [{}] on field [{}] for class [{}]", key, field.getName(), bean.getClass().getCanonicalName());
+        }, field -> field.isAnnotationPresent(ReloadMap.class));
+    }
+
+    /**
+     * @return the subscriptions of the bound fields, keyed by value type and pattern
+     */
+    public BeanPropertySubscriptions getSubscriptions() {
+        return this.subscriptions;
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Maps are updated from the whole batch of a reload
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        final Set<String> changedPropertyNames = event.getChangedPropertyNames();
+        if (changedPropertyNames.isEmpty()) {
+            return;
+        }
+        final Set<String> subscribed = this.subscriptions.propertyNames();
+        for (final Map.Entry<String, Binding> entry : this.bindings.entrySet()) {
+            final Binding binding = entry.getValue();
+            if (!subscribed.contains(entry.getKey()) && release(entry.getKey(), binding)) {
+                continue;
+            }
+            for (final String name : changedPropertyNames) {
+                apply(binding, name);
+            }
+            for (final String name : binding.dynamicNames) {
+                if (!changedPropertyNames.contains(name)) {
+                    apply(binding, name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the binding once every field bound to it is collected, it would no longer be updated and a later bean
+     * must start from the current properties.
+     *
+     * @return whether the binding was dropped
+     */
+    private boolean release(final String key, final Binding binding) {
+        synchronized (this.bindings) {
+            if (this.subscriptions.propertyNames().contains(key) || !this.bindings.remove(key, binding)) {
+                return false;
+            }
+        }
+        log.info("Released properties [{}] as no bound field is left", key);
+        return true;
+    }
+
+    /**
+     * Put, replace or remove the entry of the given property if it belongs to the given binding.
+     */
+    private void apply(final Binding binding, final String name) {
+        final String entryKey = binding.getEntryKey(name);
+        if (null == entryKey) {
+            return;
+        }
+
+        final String raw = this.propertyResolver.getRawProperty(name);
+        if (null == raw) {
+            binding.dynamicNames.remove(name);
+            if (null != binding.entries.remove(entryKey)) {
+                log.info("Removed entry [{}] of [{}*{}]", entryKey, binding.prefix, binding.suffix);
+            }
+            return;
+        }
+        if (raw.contains(PLACEHOLDER_PREFIX)) {
+            binding.dynamicNames.add(name);
+        } else {
+            binding.dynamicNames.remove(name);
+        }
+
+        try {
+            final String resolved = this.propertyResolver.getProperty(name);
+            final Object value = (null != binding.converter) ? binding.converter.convert(resolved)
+                    : DefaultConversionService.getSharedInstance().convert(resolved, STRING_TYPE, binding.valueType);
+            if (null == value) {
+                // Blank value, a map can not hold null
+                if (null != binding.entries.remove(entryKey)) {
+                    log.info("Removed entry [{}] of [{}*{}]", entryKey, binding.prefix, binding.suffix);
+                }
+            } else if (!value.equals(binding.entries.put(entryKey, value))) {
+                log.debug("Updated entry [{}] of [{}*{}]", entryKey, binding.prefix, binding.suffix);
+            }
+        } catch (final RuntimeException e) {
+            log.error(String.format("Unable to convert property [%s] to [%s], keeping the previous entry",
+                    name, binding.valueType), e);
+        }
+    }
+
+    private void validateField(final Object bean, final Field field) {
+        if (Modifier.isFinal(field.getModifiers())) {
+            throw new BeanInitializationException(String.format("Unable to set field [%s] of class [%s] as is declared final",
+                    field.getName(), bean.getClass().getCanonicalName()));
+        }
+        if (field.getType() != Map.class || !String.class.equals(new TypeDescriptor(field).getMapKeyTypeDescriptor().getType())) {
+            throw new BeanInitializationException(String.format("Field [%s] of class [%s] annotated with @ReloadMap "
+                    + "must be declared as Map<String, T>", field.getName(), bean.getClass().getCanonicalName()));
+        }
+    }
+
+    private static class Binding {
+        private final String prefix;
+        private final String suffix;
+        private final TypeDescriptor valueType;
+        private final FieldConverter converter;
+        private final Map<String, Object> entries = new ConcurrentHashMap<>();
+        private final Map<String, Object> view = Collections.unmodifiableMap(this.entries);
+        private final Set<String> dynamicNames = ConcurrentHashMap.newKeySet();
+
+        /**
+         * @param converter the built-in converter of the value type, {@code null} to use the conversion service
+         */
+        Binding(final String prefix, final String suffix, final TypeDescriptor valueType, final FieldConverter converter) {
+            this.prefix = prefix + ".";
+            this.suffix = suffix;
+            this.valueType = valueType;
+            this.converter = converter;
+        }
+
+        /**
+         * @return the key of the entry of the given property, {@code null} if the property is not bound
+         */
+        String getEntryKey(final String name) {
+            if (name.length() <= this.prefix.length() + this.suffix.length()
+                    || !name.startsWith(this.prefix) || !name.endsWith(this.suffix)) {
+                return null;
+            }
+            return name.substring(this.prefix.length(), name.length() - this.suffix.length());
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadProperties;
+import com.bytegen.common.reload.bean.BeanPropertyHolder;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.conversion.DefaultPropertyConversion;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binds the fields annotated with {@link ReloadProperties} to immutable object trees, rebuilding on reload only the
+ * nodes below a changed property.
+ * <p>
+ * One tree is kept per (class, prefix) and shared by every field bound to it. Nodes holding a placeholder value are
+ * remembered, as they may change with properties outside of their prefix.
+ * </p>
+ */
+public class ReloadPropertiesBinder implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(ReloadPropertiesBinder.class);
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+
+    private final PropertiesPropertyResolver propertyResolver;
+    private final PropertyConversionCache conversionCache;
+
+    private final BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+    private final ConcurrentMap<String, Binding> bindings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, List<BoundField>> boundFields = new ConcurrentHashMap<>();
+
+    public ReloadPropertiesBinder(final EventNotifier eventNotifier,
+                                  final PropertiesPropertyResolver propertyResolver,
+                                  final PropertyConversionCache conversionCache) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+        Assert.notNull(conversionCache, "Conversion cache can not be null");
+
+        this.propertyResolver = propertyResolver;
+        this.conversionCache = conversionCache;
+        eventNotifier.register(this);
+    }
+
+    /**
+     * Bind the {@link ReloadProperties} fields of the given bean and track them for reloads.
+     */
+    public void subscribe(final Object bean) {
+        ReflectionUtils.doWithFields(bean.getClass(), field -> {
+            if (Modifier.isFinal(field.getModifiers())) {
+                throw new BeanInitializationException(String.format("Unable to set field [%s] of class [%s] as is declared final",
+                        field.getName(), bean.getClass().getCanonicalName()));
+            }
+            ReflectionUtils.makeAccessible(field);
+
+            final String prefix = field.getAnnotation(ReloadProperties.class).prefix();
+            final String key = field.getType().getName() + "@" + prefix;
+            final Binding binding = this.bindings.computeIfAbsent(key, k -> {
+                final Binding created = new Binding(field.getType(), prefix);
+                created.root = bind(created, field.getType(), prefix, null, null);
+                return created;
+            });
+
+            field.set(bean, binding.root);
+            this.subscriptions.subscribe(key, bean, field);
+            log.info("Binding properties [{}.*] on field [{}] for class [{}]", prefix, field.getName(), bean.getClass().getCanonicalName());
+        }, field -> field.isAnnotationPresent(ReloadProperties.class));
+    }
+
+    /**
+     * @return the subscriptions of the bound fields, keyed by class and prefix
+     */
+    public BeanPropertySubscriptions getSubscriptions() {
+        return this.subscriptions;
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Rebinding relies on the whole batch of a reload
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        final Set<String> changedPropertyNames = event.getChangedPropertyNames();
+        if (changedPropertyNames.isEmpty()) {
+            return;
+        }
+        for (final String key : this.subscriptions.propertyNames()) {
+            final Binding binding = this.bindings.get(key);
+            if (null == binding) {
+                continue;
+            }
+
+            final Object root;
+            try {
+                root = bind(binding, binding.type, binding.prefix, binding.root, changedPropertyNames);
+            } catch (final RuntimeException e) {
+                log.error(String.format("Unable to rebind properties [%s.*] to [%s]", binding.prefix, binding.type.getName()), e);
+                continue;
+            }
+            if (root == binding.root) {
+                continue;
+            }
+
+            binding.root = root;
+            for (final BeanPropertyHolder holder : this.subscriptions.getSubscribers(key)) {
+                final Object bean = holder.getBean();
+                if (null != bean) {
+                    ReflectionUtils.setField(holder.getField(), bean, root);
+                    log.info("Rebinding properties [{}.*] on field [{}] for class [{}]",
+                            binding.prefix, holder.getField().getName(), bean.getClass().getCanonicalName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the node of the given prefix, returning the previous node itself if nothing below it changed.
+     *
+     * @param changedPropertyNames the changed properties, {@code null} to build from scratch
+     */
+    private Object bind(final Binding binding, final Class<?> type, final String prefix, final Object previous,
+                        final Set<String> changedPropertyNames) {
+        if (null != previous && !binding.dynamicPrefixes.contains(prefix) && !anyUnder(changedPropertyNames, prefix)) {
+            return previous;
+        }
+
+        boolean changed = (null == previous);
+        boolean dynamic = false;
+        final List<BoundField> fields = getBoundFields(type);
+        final Object[] values = new Object[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            final BoundField boundField = fields.get(i);
+            final String key = prefix + "." + boundField.field.getName();
+            final Object previousValue = (null == previous) ? null : ReflectionUtils.getField(boundField.field, previous);
+
+            if (boundField.nested) {
+                values[i] = bind(binding, boundField.field.getType(), key, previousValue, changedPropertyNames);
+                dynamic |= binding.dynamicPrefixes.contains(key);
+            } else {
+                final String raw = this.propertyResolver.getRawProperty(key);
+                final boolean placeholder = null != raw && raw.contains(PLACEHOLDER_PREFIX);
+                dynamic |= placeholder;
+                if (null != previous && !placeholder && !changedPropertyNames.contains(key)) {
+                    values[i] = previousValue;
+                } else {
+                    values[i] = (null == raw) ? null
+                            : this.conversionCache.convert(DefaultPropertyConversion.class, boundField.field, this.propertyResolver.getProperty(key));
+                }
+            }
+            changed |= !Objects.equals(values[i], previousValue);
+        }
+
+        if (dynamic) {
+            binding.dynamicPrefixes.add(prefix);
+        } else {
+            binding.dynamicPrefixes.remove(prefix);
+        }
+        if (!changed) {
+            return previous;
+        }
+
+        final Object node = instantiate(type);
+        for (int i = 0; i < fields.size(); i++) {
+            if (null != values[i]) {
+                ReflectionUtils.setField(fields.get(i).field, node, values[i]);
+            }
+        }
+        return node;
+    }
+
+    private boolean anyUnder(final Set<String> changedPropertyNames, final String prefix) {
+        if (null == changedPropertyNames) {
+            return true;
+        }
+        final String start = prefix + ".";
+        for (final String name : changedPropertyNames) {
+            if (name.startsWith(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object instantiate(final Class<?> type) {
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            return BeanUtils.instantiateClass(constructor);
+        } catch (final NoSuchMethodException e) {
+            throw new BeanInitializationException(String.format("Class [%s] bound with @ReloadProperties requires a default constructor",
+                    type.getCanonicalName()), e);
+        }
+    }
+
+    private List<BoundField> getBoundFields(final Class<?> type) {
+        return this.boundFields.computeIfAbsent(type, t -> {
+            final List<BoundField> result = new ArrayList<>();
+            ReflectionUtils.doWithFields(t, field -> {
+                ReflectionUtils.makeAccessible(field);
+                result.add(new BoundField(field, isNested(field.getType())));
+            }, field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())
+                    && !field.isSynthetic());
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    private boolean isNested(final Class<?> type) {
+        return !BeanUtils.isSimpleProperty(type)
+                && !Collection.class.isAssignableFrom(type)
+                && !Map.class.isAssignableFrom(type)
+                && !type.getName().startsWith("java.");
+    }
+
+    private static class Binding {
+        private final Class<?> type;
+        private final String prefix;
+        private final Set<String> dynamicPrefixes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private volatile Object root;
+
+        Binding(final Class<?> type, final String prefix) {
+            this.type = type;
+            this.prefix = prefix;
+        }
+    }
+
+    private static class BoundField {
+        private final Field field;
+        private final boolean nested;
+
+        BoundField(final Field field, final boolean nested) {
+            this.field = field;
+            this.nested = nested;
+        }
+    }
+}
@@ -1,30 +1,76 @@
 package com.bytegen.common.reload.core;
 
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
 import com.bytegen.common.reload.bean.PropertyChangedEvent;
 import com.bytegen.common.reload.event.EventNotifier;
 import com.bytegen.common.reload.event.EventPublisher;
-import com.bytegen.common.reload.resolver.MutablePropertyResolver;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * User: xiang
  * Date: 2018/8/6
- * Desc:
+ * Desc: applies the changes of the sources to the resolver and publishes the changed properties.
+ * <p>
+ * While {@link #freeze() frozen}, changes of the sources are queued instead of being applied, coalesced per layer,
+ * then applied as one reload on {@link #resume()}. Runtime overrides are still applied at once.
+ * </p>
+ * <p>
+ * Each reload is given a monotonically increasing {@link #getVersion() version} once propagated to every subscriber,
+ * and {@link #awaitLayer} completes once a layer holds a given content, e.g. the current content of its file. Waits
+ * still pending when the publisher is {@link #close() closed} fail.
+ * </p>
  */
-public class ReloadPropertyEventPublisher implements EventPublisher {
+public class ReloadPropertyEventPublisher implements EventPublisher, AutoCloseable {
     private static Logger log = LoggerFactory.getLogger(ReloadPropertyEventPublisher.class);
 
-    private final MutablePropertyResolver propertyResolver;
+    private final LayeredPropertyResolver propertyResolver;
     private final EventNotifier eventNotifier;
 
     private final Map<String, String> resolvedBeanProperty;
+    private final ReadWriteLock reloadLock = new ReentrantReadWriteLock();
 
-    public ReloadPropertyEventPublisher(MutablePropertyResolver propertyResolver,
+    /**
+     * Changes queued while frozen by layer name, only accessed under the write lock
+     */
+    private final Map<String, PendingLayer> pendingLayers = new LinkedHashMap<>();
+    private volatile boolean frozen;
+    private final List<Runnable> resumeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Version of the last propagated reload, the awaited layer contents and their timeouts, only changed under the
+     * write lock
+     */
+    private volatile long version;
+    private final List<LayerWaiter> waiters = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    public ReloadPropertyEventPublisher(LayeredPropertyResolver propertyResolver,
                                         EventNotifier eventNotifier,
                                         Map<String, String> resolvedBeanProperty) {
         Assert.notNull(propertyResolver, "Property resolver must not be null");
@@ -36,7 +82,7 @@ public class ReloadPropertyEventPublisher implements EventPublisher {
         this.resolvedBeanProperty = resolvedBeanProperty;
     }
 
-    public MutablePropertyResolver getPropertyResolver() {
+    public LayeredPropertyResolver getPropertyResolver() {
         return propertyResolver;
     }
 
@@ -44,38 +90,392 @@ public class ReloadPropertyEventPublisher implements EventPublisher {
         return eventNotifier;
     }
 
+    /**
+     * Lock to be held while resolving and subscribing a bean property, so that a subscription never misses a
+     * reload running concurrently.
+     */
+    public Lock getSubscriptionLock() {
+        return this.reloadLock.readLock();
+    }
+
+    /**
+     * Queue the changes of the sources from now on, e.g. during a peak-traffic window or a deploy.
+     */
+    public void freeze() {
+        this.reloadLock.writeLock().lock();
+        try {
+            if (!this.frozen) {
+                log.info("Freezing reloads, changes are queued until resumed");
+                this.frozen = true;
+            }
+        } finally {
+            this.reloadLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the changes queued since {@link #freeze()} as one reload, then apply changes at once again.
+     */
+    public void resume() {
+        final List<LayerWaiter> applied;
+        this.reloadLock.writeLock().lock();
+        try {
+            if (!this.frozen) {
+                return;
+            }
+            this.frozen = false;
+            final Set<String> changedPropertyNames = new HashSet<>();
+            for (final PendingLayer pendingLayer : this.pendingLayers.values()) {
+                changedPropertyNames.addAll(pendingLayer.apply(this.propertyResolver));
+            }
+            log.info("Resuming reloads, applying queued changes of layers {}", this.pendingLayers.keySet());
+            this.pendingLayers.clear();
+            publishChanges(changedPropertyNames);
+            applied = collectAppliedWaiters();
+        } finally {
+            this.reloadLock.writeLock().unlock();
+        }
+        complete(applied);
+        for (final Runnable listener : this.resumeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Run the given listener after the queued changes have been applied on each {@link #resume()}.
+     */
+    public void addResumeListener(final Runnable listener) {
+        this.resumeListeners.add(listener);
+    }
+
+    public void removeResumeListener(final Runnable listener) {
+        this.resumeListeners.remove(listener);
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * @return the number of layers with changes queued since {@link #freeze()}
+     */
+    public int getPendingChangeCount() {
+        this.reloadLock.readLock().lock();
+        try {
+            return this.pendingLayers.size();
+        } finally {
+            this.reloadLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the version of the last reload propagated to every subscriber, {@code 0} before any reload
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Wait for the given layer to hold the given content, its changes being propagated to every subscriber.
+     *
+     * @param layerName the {@link PropertyLayer#getName() name} of the layer, an unknown layer holds no property
+     * @param content   the awaited content of the layer
+     * @return the future of the {@link #getVersion() version} of the reload which applied the content, completed
+     * at once if the layer already holds it, or with a {@link TimeoutException} after the given timeout, or with an
+     * {@link IllegalStateException} once closed
+     */
+    public CompletableFuture<Long> awaitLayer(final String layerName, final Map<String, String> content,
+                                              final long timeout, final TimeUnit unit) {
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        this.reloadLock.writeLock().lock();
+        try {
+            if (content.equals(this.propertyResolver.getLayerProperties(layerName))) {
+                future.complete(this.version);
+                return future;
+            }
+            final ScheduledExecutorService executor = getScheduler();
+            if (null == executor) {
+                future.completeExceptionally(closedException(layerName));
+                return future;
+            }
+            final LayerWaiter waiter = new LayerWaiter(layerName, content, future);
+            this.waiters.add(waiter);
+            waiter.timeout = executor.schedule(() -> {
+                this.reloadLock.writeLock().lock();
+                try {
+                    this.waiters.remove(waiter);
+                } finally {
+                    this.reloadLock.writeLock().unlock();
+                }
+                future.completeExceptionally(new TimeoutException(String.format(
+                        "Layer [%s] not applied within %d %s", layerName, timeout, unit)));
+            }, timeout, unit);
+        } finally {
+            this.reloadLock.writeLock().unlock();
+        }
+        return future;
+    }
+
     @Override
-    public void onPropertyChanged(final Properties properties) {
-        // Update properties of resolver
-        for (String key : properties.stringPropertyNames()) {
-            String newValue = properties.getProperty(key);
-            String oldValue = this.propertyResolver.getPropertyAsRawString(key);
+    public void onPropertyChanged(final String layerName, final Properties properties) {
+        final Map<String, String> content = LayeredPropertyResolver.toMap(properties);
+        apply(layerName, () -> {
+            final PropertyLayer layer = this.propertyResolver.getLayer(layerName);
+            if (null == layer) {
+                log.warn("Ignore changes of unknown property layer [{}]", layerName);
+                return Collections.emptySet();
+            }
+            return this.propertyResolver.putLayer(layer, content);
+        }, () -> getPendingLayer(layerName).replace(null, content));
+    }
 
-            if (propertyExists(key) && propertyChangedAndNotNull(oldValue, newValue)) {
-                this.propertyResolver.setProperty(key, newValue);
+    @Override
+    public void onPropertyChanged(final Map<PropertyLayer, Properties> layers) {
+        apply(null, () -> {
+            final Set<String> changedPropertyNames = new HashSet<>();
+            for (final Map.Entry<PropertyLayer, Properties> layer : layers.entrySet()) {
+                changedPropertyNames.addAll(this.propertyResolver.putLayer(layer.getKey(), LayeredPropertyResolver.toMap(layer.getValue())));
             }
+            return changedPropertyNames;
+        }, () -> {
+            for (final Map.Entry<PropertyLayer, Properties> layer : layers.entrySet()) {
+                getPendingLayer(layer.getKey().getName()).replace(layer.getKey(), LayeredPropertyResolver.toMap(layer.getValue()));
+            }
+        });
+    }
+
+    @Override
+    public void onPropertyUpdated(final String layerName, final Map<String, String> changes) {
+        if (changes.isEmpty()) {
+            return;
         }
+        apply(layerName, () -> {
+            if (null == this.propertyResolver.getLayer(layerName)) {
+                log.warn("Ignore changes of unknown property layer [{}]", layerName);
+                return Collections.emptySet();
+            }
+            return this.propertyResolver.updateLayer(layerName, changes);
+        }, () -> getPendingLayer(layerName).update(changes));
+    }
+
+    @Override
+    public void onLayerRemoved(final String layerName) {
+        apply(layerName, () -> this.propertyResolver.removeLayer(layerName), () -> getPendingLayer(layerName).remove());
+    }
 
+    /**
+     * Apply the given change and publish its changed properties, or queue it while frozen.
+     *
+     * @param layerName the single layer changed, {@code null} for several layers
+     * @param queue     coalesces the change into the {@link PendingLayer pending changes} of its layers
+     */
+    private void apply(final String layerName, final Supplier<Set<String>> change, final Runnable queue) {
+        List<LayerWaiter> applied = Collections.emptyList();
+        this.reloadLock.writeLock().lock();
+        try {
+            if (!this.frozen || LayeredPropertyResolver.RUNTIME_LAYER.equals(layerName)) {
+                publishChanges(change.get());
+                applied = collectAppliedWaiters();
+                return;
+            }
+            queue.run();
+            log.debug("Queued changes of layer [{}] while frozen", layerName);
+        } finally {
+            this.reloadLock.writeLock().unlock();
+            complete(applied);
+        }
+    }
+
+    private PendingLayer getPendingLayer(final String layerName) {
+        return this.pendingLayers.computeIfAbsent(layerName, PendingLayer::new);
+    }
+
+    private void publishChanges(final Set<String> changedPropertyNames) {
+        if (changedPropertyNames.isEmpty()) {
+            return;
+        }
+        log.info("Effective values changed for properties {}", changedPropertyNames);
+
+        final List<PropertyChangedEvent> events = new ArrayList<>();
         for (final String key : this.resolvedBeanProperty.keySet()) {
             final String oldValue = this.resolvedBeanProperty.get(key);
-            final String newValue = this.propertyResolver.resolvePlaceholders(key);
+            final String newValue;
+            try {
+                newValue = this.propertyResolver.resolvePlaceholders(key);
+            } catch (final IllegalArgumentException e) {
+                log.warn("Unable to resolve [{}] after reload, keeping value [{}]: {}", key, oldValue, e.getMessage());
+                continue;
+            }
 
             if (propertyChangedAndNotNull(oldValue, newValue)) {
                 // Update cache
                 this.resolvedBeanProperty.put(key, newValue);
 
-                // Post change event to notify any potential listeners
-                this.eventNotifier.post(new PropertyChangedEvent(key, oldValue, newValue));
+                events.add(new PropertyChangedEvent(key, oldValue, newValue));
                 log.info("Publish property changes for [{}] with new value [{}]", key, newValue);
             }
         }
+
+        // Post all changes of this reload at once to notify any potential listeners
+        this.eventNotifier.post(new PropertiesChangedEvent(changedPropertyNames, events));
+        this.version++;
+    }
+
+    private List<LayerWaiter> collectAppliedWaiters() {
+        if (this.waiters.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<LayerWaiter> applied = new ArrayList<>();
+        for (final Iterator<LayerWaiter> iterator = this.waiters.iterator(); iterator.hasNext(); ) {
+            final LayerWaiter waiter = iterator.next();
+            if (waiter.content.equals(this.propertyResolver.getLayerProperties(waiter.layerName))) {
+                iterator.remove();
+                waiter.version = this.version;
+                applied.add(waiter);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Complete the given waiters out of the lock, their dependent actions running on this thread
+     */
+    private void complete(final List<LayerWaiter> applied) {
+        for (final LayerWaiter waiter : applied) {
+            waiter.timeout.cancel(false);
+            waiter.future.complete(waiter.version);
+        }
+    }
+
+    /**
+     * Stop the timeouts of the awaited layers and fail the pending waits.
+     */
+    @Override
+    public void close() {
+        final List<LayerWaiter> pending;
+        this.reloadLock.writeLock().lock();
+        try {
+            this.closed = true;
+            if (null != this.scheduler) {
+                this.scheduler.shutdownNow();
+                this.scheduler = null;
+            }
+            pending = new ArrayList<>(this.waiters);
+            this.waiters.clear();
+        } finally {
+            this.reloadLock.writeLock().unlock();
+        }
+        for (final LayerWaiter waiter : pending) {
+            waiter.future.completeExceptionally(closedException(waiter.layerName));
+        }
+    }
+
+    /**
+     * @return the scheduler of the wait timeouts, {@code null} once closed, only called under the write lock
+     */
+    private ScheduledExecutorService getScheduler() {
+        if (null == this.scheduler && !this.closed) {
+            this.scheduler = ReloadExecutors.newScheduledExecutor("auto-reload-await");
+        }
+        return this.scheduler;
+    }
+
+    private static IllegalStateException closedException(final String layerName) {
+        return new IllegalStateException(String.format("Publisher closed before layer [%s] was applied", layerName));
     }
 
     private boolean propertyChangedAndNotNull(final String oldValue, final String newValue) {
         return null != newValue && (null == oldValue || !oldValue.equals(newValue));
     }
 
-    private boolean propertyExists(final String property) {
-        return this.propertyResolver.propertyNames().contains(property);
+    private static class LayerWaiter {
+        private final String layerName;
+        private final Map<String, String> content;
+        private final CompletableFuture<Long> future;
+        private ScheduledFuture<?> timeout;
+        private long version;
+
+        LayerWaiter(final String layerName, final Map<String, String> content, final CompletableFuture<Long> future) {
+            this.layerName = layerName;
+            this.content = content;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Changes of one layer queued while frozen, coalesced into the state the layer ends up in, so that the queue is
+     * bounded by the number of layers however many changes are received.
+     */
+    private static class PendingLayer {
+        private final String layerName;
+        /**
+         * Layer registered with the replaced content, {@code null} for the layer registered when applied
+         */
+        private PropertyLayer layer;
+        /**
+         * Whole content of the layer, {@code null} if not replaced
+         */
+        private Map<String, String> content;
+        /**
+         * Changes of the current content of the layer, a {@code null} value removing the key
+         */
+        private final Map<String, String> updates = new LinkedHashMap<>();
+        private boolean removed;
+
+        PendingLayer(final String layerName) {
+            this.layerName = layerName;
+        }
+
+        void replace(final PropertyLayer layer, final Map<String, String> content) {
+            if (null == layer && this.removed) {
+                // Replacing a removed layer is ignored when applied at once as well
+                return;
+            }
+            if (null != layer) {
+                this.layer = layer;
+            }
+            this.content = new HashMap<>(content);
+            this.updates.clear();
+            this.removed = false;
+        }
+
+        void update(final Map<String, String> changes) {
+            if (this.removed) {
+                return;
+            }
+            if (null == this.content) {
+                this.updates.putAll(changes);
+                return;
+            }
+            for (final Map.Entry<String, String> change : changes.entrySet()) {
+                if (null == change.getValue()) {
+                    this.content.remove(change.getKey());
+                } else {
+                    this.content.put(change.getKey(), change.getValue());
+                }
+            }
+        }
+
+        void remove() {
+            this.layer = null;
+            this.content = null;
+            this.updates.clear();
+            this.removed = true;
+        }
+
+        Set<String> apply(final LayeredPropertyResolver propertyResolver) {
+            if (this.removed) {
+                return propertyResolver.removeLayer(this.layerName);
+            }
+            final PropertyLayer target = (null != this.layer) ? this.layer : propertyResolver.getLayer(this.layerName);
+            if (null == target) {
+                log.warn("Ignore changes of unknown property layer [{}]", this.layerName);
+                return Collections.emptySet();
+            }
+            if (null != this.content) {
+                return propertyResolver.putLayer(target, this.content);
+            }
+            return propertyResolver.updateLayer(this.layerName, this.updates);
+        }
     }
 }
@@ -1,23 +1,32 @@
 package com.bytegen.common.reload.core;
 
+import com.bytegen.common.reload.OnReloadComplete;
 import com.bytegen.common.reload.ReloadValue;
 import com.bytegen.common.reload.bean.BeanPropertyHolder;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
 import com.bytegen.common.reload.bean.PropertyChangedEvent;
-import com.bytegen.common.reload.conversion.DefaultPropertyConversion;
-import com.bytegen.common.reload.conversion.PropertyConversion;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
 import com.bytegen.common.reload.event.EventNotifier;
 import com.bytegen.common.reload.event.EventSubscriber;
 import com.google.common.eventbus.Subscribe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.util.Assert;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * User: xiang
@@ -27,21 +36,81 @@ import java.util.Set;
 public class ReloadPropertyEventSubscriber implements EventSubscriber {
     private static Logger log = LoggerFactory.getLogger(ReloadPropertyEventSubscriber.class);
 
+    /**
+     * Default number of subscribers of a property from which fields are set in parallel
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * Name prefix of the threads setting fields in parallel
+     */
+    public static final String FAN_OUT_THREAD_NAME = "auto-reload-fan-out";
+
+    /**
+     * Minimum number of fields set by one fan-out task
+     */
+    private static final int PARALLEL_BATCH_SIZE = 256;
+
+    private static final Object CONVERSION_FAILED = new Object();
+
     private final EventNotifier eventNotifier;
-    private final Map<String, Set<BeanPropertyHolder>> beanPropertySubscriptions;
+    private final BeanPropertySubscriptions beanPropertySubscriptions;
+    private final PropertyConversionCache conversionCache;
+    private final ReloadCompleteCallbacks reloadCompleteCallbacks = new ReloadCompleteCallbacks();
+    private final int parallelThreshold;
+    private final int parallelism;
+    private final ExecutorService fanOutExecutor;
 
     public ReloadPropertyEventSubscriber(EventNotifier eventNotifier,
-                                         Map<String, Set<BeanPropertyHolder>> beanPropertySubscriptions) {
+                                         BeanPropertySubscriptions beanPropertySubscriptions) {
+        this(eventNotifier, beanPropertySubscriptions, new PropertyConversionCache());
+    }
+
+    public ReloadPropertyEventSubscriber(EventNotifier eventNotifier,
+                                         BeanPropertySubscriptions beanPropertySubscriptions,
+                                         PropertyConversionCache conversionCache) {
+        this(eventNotifier, beanPropertySubscriptions, conversionCache, 0, 0);
+    }
+
+    /**
+     * @param parallelThreshold number of subscribers of a property from which fields are set in parallel,
+     *                          {@code 0} keeps setting them serially
+     * @param parallelism       maximum number of fan-out tasks setting the fields of a property, {@code 0} for the
+     *                          number of available processors
+     */
+    public ReloadPropertyEventSubscriber(EventNotifier eventNotifier,
+                                         BeanPropertySubscriptions beanPropertySubscriptions,
+                                         PropertyConversionCache conversionCache,
+                                         int parallelThreshold,
+                                         int parallelism) {
         Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(conversionCache, "Conversion cache can not be null");
+        Assert.isTrue(parallelThreshold >= 0, "Parallel threshold must not be negative");
+        Assert.isTrue(parallelism >= 0, "Parallelism must not be negative");
 
         this.eventNotifier = eventNotifier;
         this.beanPropertySubscriptions = (null == beanPropertySubscriptions) ?
-                Collections.emptyMap() : beanPropertySubscriptions;
+                new BeanPropertySubscriptions() : beanPropertySubscriptions;
+        this.conversionCache = conversionCache;
+        final int poolParallelism = (0 == parallelism) ? Runtime.getRuntime().availableProcessors() : parallelism;
+        if (parallelThreshold > 0 && poolParallelism > 1) {
+            this.parallelThreshold = parallelThreshold;
+            this.parallelism = poolParallelism;
+            this.fanOutExecutor = ReloadExecutors.newExecutor(FAN_OUT_THREAD_NAME);
+        } else {
+            this.parallelThreshold = 0;
+            this.parallelism = 1;
+            this.fanOutExecutor = null;
+        }
 
         log.info("Registering ReloadPropertyEventSubscriber for properties file changes");
         registerPropertyReloader();
     }
 
+    public ReloadCompleteCallbacks getReloadCompleteCallbacks() {
+        return reloadCompleteCallbacks;
+    }
+
     /**
      * Utility method to register the class for receiving events about property files being changed,
      * setting up bean re-injection once triggered.
@@ -57,6 +126,9 @@ public class ReloadPropertyEventSubscriber implements EventSubscriber {
     public final void unregisterPropertyReloader() {
         log.info("Unregistering class from property file changes");
         this.eventNotifier.unregister(this);
+        if (null != this.fanOutExecutor) {
+            this.fanOutExecutor.shutdown();
+        }
     }
 
     /**
@@ -66,50 +138,139 @@ public class ReloadPropertyEventSubscriber implements EventSubscriber {
      */
     @Subscribe
     public void onPropertyChangedEvent(final PropertyChangedEvent event) {
-        Set<BeanPropertyHolder> holders = this.beanPropertySubscriptions.get(event.getPropertyName());
-        if (null != holders) {
-            for (final BeanPropertyHolder bean : holders) {
-                updateField(bean, event);
+        onPropertiesChangedEvent(new PropertiesChangedEvent(null, Collections.singletonList(event)));
+    }
+
+    /**
+     * Method subscribing to the {@link PropertiesChangedEvent} utilising the {@link Subscribe} annotation.
+     * All the fields changed by the reload are set before any {@link OnReloadComplete} callback is invoked.
+     * <p>
+     * Properties with at least {@code parallelThreshold} subscribers are converted once per field and set by
+     * batches on a {@link ReloadExecutors} executor.
+     * </p>
+     *
+     * @param event the {@link PropertiesChangedEvent} detailing what's changed
+     */
+    @Subscribe
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        final Map<Object, Set<String>> updatedBeans = new IdentityHashMap<>();
+        for (final PropertyChangedEvent propertyChangedEvent : event.getEvents()) {
+            final List<BeanPropertyHolder> holders = this.beanPropertySubscriptions.getSubscribers(propertyChangedEvent.getPropertyName());
+            if (null != this.fanOutExecutor && holders.size() >= this.parallelThreshold) {
+                for (final Object bean : updateFieldsInParallel(holders, propertyChangedEvent)) {
+                    updatedBeans.computeIfAbsent(bean, k -> new LinkedHashSet<>()).add(propertyChangedEvent.getPropertyName());
+                }
+                continue;
+            }
+            for (final BeanPropertyHolder holder : holders) {
+                final Object bean = holder.getBean();
+                if (null != bean && updateField(holder, propertyChangedEvent)) {
+                    updatedBeans.computeIfAbsent(bean, k -> new LinkedHashSet<>()).add(propertyChangedEvent.getPropertyName());
+                }
             }
         }
+
+        for (final Map.Entry<Object, Set<String>> updatedBean : updatedBeans.entrySet()) {
+            this.reloadCompleteCallbacks.invoke(updatedBean.getKey(), updatedBean.getValue());
+        }
     }
 
-    public void updateField(final BeanPropertyHolder holder, final PropertyChangedEvent event) {
+    /**
+     * @return whether the field has been set with the new value
+     */
+    public boolean updateField(final BeanPropertyHolder holder, final PropertyChangedEvent event) {
         final Object beanToUpdate = holder.getBean();
+        if (null == beanToUpdate) {
+            return false;
+        }
         final Field fieldToUpdate = holder.getField();
         final String canonicalName = beanToUpdate.getClass().getCanonicalName();
 
-        final Object convertedProperty = convertPropertyForField(fieldToUpdate, event.getNewValue());
         try {
+            final Object convertedProperty = convertPropertyForField(fieldToUpdate, event.getNewValue());
             fieldToUpdate.set(beanToUpdate, convertedProperty);
             log.info("Reloading property [{}] on field [{}] for class [{}] with value [{}]",
-                    event.getPropertyName(), fieldToUpdate.getName(), canonicalName, convertedProperty);
-        } catch (final IllegalAccessException e) {
+                    event.getPropertyName(), fieldToUpdate.getName(), canonicalName,
+                    EncryptedValueResolver.isEncrypted(event.getNewValue()) ? EncryptedValueResolver.MASK : convertedProperty);
+            return true;
+        } catch (final IllegalAccessException | RuntimeException e) {
             log.error(String.format("Unable to reloading property [%s] on field [%s] for class [%s]",
                     event.getPropertyName(), fieldToUpdate.getName(), canonicalName), e);
+            return false;
         }
     }
 
-    // ///////////////////////////////////
-    // Utility methods for class access //
-    // ///////////////////////////////////
+    /**
+     * @return the beans whose field has been set with the new value
+     */
+    private List<Object> updateFieldsInParallel(final List<BeanPropertyHolder> holders, final PropertyChangedEvent event) {
+        // Subscribers mostly share a few fields, e.g. one per tenant bean class, shareable values are converted once
+        final Map<Field, Object> convertedProperties = new HashMap<>();
+        for (final BeanPropertyHolder holder : holders) {
+            convertedProperties.computeIfAbsent(holder.getField(), field -> {
+                try {
+                    return convertPropertyForField(field, event.getNewValue());
+                } catch (final RuntimeException e) {
+                    log.error(String.format("Unable to reloading property [%s] on field [%s] for class [%s]",
+                            event.getPropertyName(), field.getName(), field.getDeclaringClass().getCanonicalName()), e);
+                    return CONVERSION_FAILED;
+                }
+            });
+        }
 
-    private Object convertPropertyForField(final Field field, final Object propertyValue) {
-        try {
-            Class<? extends PropertyConversion> conversionClass = field.getAnnotation(ReloadValue.class).conversion();
+        final int batchSize = Math.max(PARALLEL_BATCH_SIZE, (holders.size() + this.parallelism - 1) / this.parallelism);
+        final List<Future<List<Object>>> batches = new ArrayList<>();
+        for (int from = 0; from < holders.size(); from += batchSize) {
+            final int batchFrom = from;
+            final int batchTo = Math.min(holders.size(), from + batchSize);
+            batches.add(this.fanOutExecutor.submit(() -> updateFields(holders, batchFrom, batchTo, convertedProperties, event)));
+        }
 
-            PropertyConversion conversion;
-            if (conversionClass == PropertyConversion.class || conversionClass == DefaultPropertyConversion.class) {
-                conversion = DefaultPropertyConversion.getInstance();
-            } else {
-                conversion = BeanUtils.instantiateClass(conversionClass);
+        final List<Object> updatedBeans = new ArrayList<>(holders.size());
+        for (final Future<List<Object>> batch : batches) {
+            try {
+                updatedBeans.addAll(batch.get());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while reloading property [{}] in parallel", event.getPropertyName());
+                break;
+            } catch (final ExecutionException e) {
+                log.error(String.format("Unable to reloading property [%s] in parallel", event.getPropertyName()), e.getCause());
             }
+        }
+        log.info("Reloading property [{}] on [{}] fields in parallel with value [{}]",
+                event.getPropertyName(), updatedBeans.size(), event.getNewValue());
+        return updatedBeans;
+    }
 
-            return conversion.convertPropertyForField(field, propertyValue);
-        } catch (final Throwable e) {
-            throw new BeanInitializationException(
-                    String.format("Unable to convert property for field [%s].  Value [%s] cannot be converted to [%s]",
-                            field.getName(), propertyValue, field.getType()), e);
+    private List<Object> updateFields(final List<BeanPropertyHolder> holders, final int from, final int to,
+                                      final Map<Field, Object> convertedProperties, final PropertyChangedEvent event) {
+        final List<Object> updatedBeans = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            final BeanPropertyHolder holder = holders.get(i);
+            final Object bean = holder.getBean();
+            final Object convertedProperty = convertedProperties.get(holder.getField());
+            if (null == bean || CONVERSION_FAILED == convertedProperty) {
+                continue;
+            }
+            try {
+                // Mutable results, e.g. collections, are converted again so that each bean gets its own instance
+                holder.getField().set(bean, null == convertedProperty || this.conversionCache.isShareable(convertedProperty)
+                        ? convertedProperty : convertPropertyForField(holder.getField(), event.getNewValue()));
+                updatedBeans.add(bean);
+            } catch (final IllegalAccessException | RuntimeException e) {
+                log.error(String.format("Unable to reloading property on field [%s] for class [%s]",
+                        holder.getField().getName(), bean.getClass().getCanonicalName()), e);
+            }
         }
+        return updatedBeans;
+    }
+
+    // ///////////////////////////////////
+    // Utility methods for class access //
+    // ///////////////////////////////////
+
+    private Object convertPropertyForField(final Field field, final Object propertyValue) {
+        return this.conversionCache.convert(field.getAnnotation(ReloadValue.class).conversion(), field, propertyValue);
     }
 }
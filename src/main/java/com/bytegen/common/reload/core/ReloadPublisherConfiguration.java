@@ -0,0 +1,17 @@
+package com.bytegen.common.reload.core;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the {@link ReloadPropertyEventPublisher} of the {@link ReloadSourcePropertySupport} as a bean, e.g. to
+ * {@link ReloadPropertyEventPublisher#freeze() freeze} reloads during a deploy.
+ */
+@Configuration
+public class ReloadPublisherConfiguration {
+
+    @Bean
+    public ReloadPropertyEventPublisher reloadPropertyEventPublisher(final ReloadSourcePropertySupport reloadSourcePropertySupport) {
+        return reloadSourcePropertySupport.getPublisher();
+    }
+}
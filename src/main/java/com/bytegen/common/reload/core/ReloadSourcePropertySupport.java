@@ -2,41 +2,62 @@ package com.bytegen.common.reload.core;
 
 import com.bytegen.common.reload.ReloadResource;
 import com.bytegen.common.reload.ReloadValue;
-import com.bytegen.common.reload.bean.BeanPropertyHolder;
-import com.bytegen.common.reload.conversion.DefaultPropertyConversion;
-import com.bytegen.common.reload.conversion.PropertyConversion;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.crypto.AesGcmPropertyDecryptor;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.crypto.PropertyDecryptor;
 import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
 import com.bytegen.common.reload.event.GuavaEventNotifier;
-import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.bytegen.common.reload.inspect.ReloadInspector;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.OffHeapPropertyStore;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import com.bytegen.common.reload.shared.SharedSnapshotCoordinator;
+import com.bytegen.common.reload.zookeeper.ZooKeeperPropertiesWatcher;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
 
-import javax.annotation.Resource;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
  * <p>
@@ -51,63 +72,361 @@ import java.util.*;
  * <p>
  * The processor will also substitute any properties with values starting with "${" and ending with "}", none recursive.
  * </p>
+ * <p>
+ * The file watcher is registered as a {@link org.springframework.context.SmartLifecycle} singleton, so that it is stopped
+ * and restarted along with the context. Every watcher and subscriber is released when the processor is destroyed.
+ * </p>
  */
 @Component
-public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProcessorAdapter implements InitializingBean {
+public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProcessorAdapter
+        implements InitializingBean, DisposableBean, BeanFactoryAware {
     private static final Logger log = LoggerFactory.getLogger(ReloadSourcePropertySupport.class);
 
-    @Resource
+    /**
+     * Maximum number of memoized converted values, {@code 0} disables memoizing
+     */
+    public static final String CONVERSION_CACHE_SIZE = "auto-reload.conversion.cache-size";
+    /**
+     * Whether memoized collection values are wrapped into unmodifiable views
+     */
+    public static final String CONVERSION_IMMUTABLE = "auto-reload.conversion.immutable";
+    /**
+     * Memory-mapped snapshot file shared by the processes of the host, sharing is disabled if blank
+     */
+    public static final String SHARED_SNAPSHOT_PATH = "auto-reload.shared-snapshot.path";
+    /**
+     * Interval in milliseconds at which following processes check the shared snapshot version
+     */
+    public static final String SHARED_SNAPSHOT_POLL_INTERVAL = "auto-reload.shared-snapshot.poll-interval";
+    /**
+     * Whether the reloadable properties are exposed to the Environment as a live PropertySource
+     */
+    public static final String PROPERTY_SOURCE_ENABLED = "auto-reload.property-source.enabled";
+    /**
+     * Whether @Value fields referencing reloadable properties are rebound on reload
+     */
+    public static final String VALUE_REBIND_ENABLED = "auto-reload.value-rebind.enabled";
+    /**
+     * Number of subscribers of a property from which fields are set in parallel, {@code 0} always sets them serially
+     */
+    public static final String FAN_OUT_THRESHOLD = "auto-reload.fan-out.threshold";
+    /**
+     * Parallelism of the fan-out pool, {@code 0} for the number of available processors
+     */
+    public static final String FAN_OUT_PARALLELISM = "auto-reload.fan-out.parallelism";
+    /**
+     * Base64 AES key decrypting ENC(...) values, ignored if a {@link PropertyDecryptor} bean is declared
+     */
+    public static final String ENCRYPTION_KEY = "auto-reload.encryption.key";
+    /**
+     * ZooKeeper connect string of the znode source, disabled if blank
+     */
+    public static final String ZOOKEEPER_CONNECT_STRING = "auto-reload.zookeeper.connect-string";
+    /**
+     * Root znode whose subtree is mapped to properties
+     */
+    public static final String ZOOKEEPER_ROOT = "auto-reload.zookeeper.root";
+    /**
+     * ZooKeeper session timeout in milliseconds
+     */
+    public static final String ZOOKEEPER_SESSION_TIMEOUT = "auto-reload.zookeeper.session-timeout";
+    /**
+     * Precedence of the znode layer, see {@link PropertyLayer}
+     */
+    public static final String ZOOKEEPER_PRECEDENCE = "auto-reload.zookeeper.precedence";
+    /**
+     * Store of the reloadable properties, {@code heap} or {@code off-heap} for very large key spaces
+     */
+    public static final String PROPERTY_STORE = "auto-reload.property-store";
+    /**
+     * Name of the singleton registering the properties file watcher to the context lifecycle
+     */
+    public static final String FILE_WATCHER_BEAN_NAME = "autoReloadPropertiesFileWatcher";
+
+    @Autowired
     private Environment environment;
-    @Resource
+    @Autowired
     private ReloadResourceFactoryProcessor reloadResourceFactoryProcessor;
+    @Autowired(required = false)
+    private PropertyDecryptor propertyDecryptor;
 
     private final EventNotifier eventNotifier = GuavaEventNotifier.getInstance();
-    private final PropertiesPropertyResolver propertyResolver = new PropertiesPropertyResolver();
+    private LayeredPropertyResolver propertyResolver;
+
+    private final Map<String, String> resolvedBeanProperty = new ConcurrentHashMap<>();
+    private final Set<ResourceDirectory> resourceDirectories = new LinkedHashSet<>();
+    private final BeanPropertySubscriptions beanPropertySubscriptions = new BeanPropertySubscriptions();
+    private PropertyConversionCache conversionCache;
+    private ReloadPropertyEventPublisher publisher;
+    private ReloadPropertyEventSubscriber subscriber;
+    private ValueFieldRebinder valueFieldRebinder;
+    private ReloadPropertiesBinder propertiesBinder;
+    private ReloadMapBinder mapBinder;
+    private ReloadLimitBinder limitBinder;
+    private EncryptedValueResolver encryptedValueResolver;
+    private volatile PropertiesFileWatcher fileWatcher;
+    private volatile SharedSnapshotCoordinator snapshotCoordinator;
+    private ReloadInspector inspector;
+    private PropertyOverrides propertyOverrides;
+    private KeyPatternSubscriptions keyPatternSubscriptions;
+    private HotSwapRefresher hotSwapRefresher;
+    private ZooKeeperPropertiesWatcher zooKeeperWatcher;
+    private BeanFactory beanFactory;
 
-    private final Map<String, String> resolvedBeanProperty = new HashMap<>();
-    private final Map<String, Set<BeanPropertyHolder>> beanPropertySubscriptions = new HashMap<>();
-    private final ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(propertyResolver, eventNotifier, resolvedBeanProperty);
-    private final ReloadPropertyEventSubscriber subscriber = new ReloadPropertyEventSubscriber(eventNotifier, beanPropertySubscriptions);
+    @Override
+    public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        this.propertyResolver = createPropertyResolver();
+        final String encryptionKey = environment.getProperty(ENCRYPTION_KEY);
+        if (null == propertyDecryptor && StringUtils.isNotBlank(encryptionKey)) {
+            propertyDecryptor = AesGcmPropertyDecryptor.fromBase64(encryptionKey);
+        }
+        if (null != propertyDecryptor) {
+            this.encryptedValueResolver = new EncryptedValueResolver(eventNotifier, propertyDecryptor, propertyResolver);
+        }
+        this.conversionCache = new PropertyConversionCache(
+                environment.getProperty(CONVERSION_CACHE_SIZE, Long.class, (long) PropertyConversionCache.DEFAULT_MAXIMUM_SIZE),
+                environment.getProperty(CONVERSION_IMMUTABLE, Boolean.class, false),
+                encryptedValueResolver);
+        this.publisher = new ReloadPropertyEventPublisher(propertyResolver, eventNotifier, resolvedBeanProperty);
+        this.subscriber = new ReloadPropertyEventSubscriber(eventNotifier, beanPropertySubscriptions, conversionCache,
+                environment.getProperty(FAN_OUT_THRESHOLD, Integer.class, ReloadPropertyEventSubscriber.DEFAULT_PARALLEL_THRESHOLD),
+                environment.getProperty(FAN_OUT_PARALLELISM, Integer.class, 0));
+        this.propertiesBinder = new ReloadPropertiesBinder(eventNotifier, propertyResolver, conversionCache);
+        this.mapBinder = new ReloadMapBinder(eventNotifier, propertyResolver);
+        this.limitBinder = new ReloadLimitBinder(eventNotifier, propertyResolver);
+        this.propertyOverrides = new PropertyOverrides(publisher);
+        this.keyPatternSubscriptions = new KeyPatternSubscriptions(eventNotifier);
+        if (beanFactory instanceof DefaultListableBeanFactory) {
+            this.hotSwapRefresher = new HotSwapRefresher((DefaultListableBeanFactory) beanFactory, keyPatternSubscriptions);
+        }
+        if (environment instanceof ConfigurableEnvironment && environment.getProperty(PROPERTY_SOURCE_ENABLED, Boolean.class, true)) {
+            registerPropertySource((ConfigurableEnvironment) environment);
+            if (environment.getProperty(VALUE_REBIND_ENABLED, Boolean.class, true)) {
+                this.valueFieldRebinder = new ValueFieldRebinder(eventNotifier, environment, propertyResolver, conversionCache);
+            }
+        }
+
+        this.inspector = new ReloadInspector(propertyResolver, getSubscriptions(), this::getFileWatcher);
+
+        startZooKeeperWatcher();
+
         log.info("Loading Reloadable Properties resources...");
-        Pair<Set<EncodedResource>, Properties> resourceAndProperties = loadResources(reloadResourceFactoryProcessor.getReloadResourceCandidates());
-        Set<EncodedResource> locations = resourceAndProperties.getLeft();
-        Properties properties = resourceAndProperties.getRight();
-        propertyResolver.addProperties(properties);
+        Set<EncodedResource> locations = loadResources(reloadResourceFactoryProcessor.getReloadResourceCandidates());
 
         log.info("Registering ReloadPropertyPubSub for properties file changes");
-        if (null == locations || locations.isEmpty()) {
+        if ((null == locations || locations.isEmpty()) && resourceDirectories.isEmpty()) {
             log.info("Locations are empty, break for reloadable source property support...!");
             return;
         }
 
+        final String sharedSnapshotPath = environment.getProperty(SHARED_SNAPSHOT_PATH);
+        if (StringUtils.isNotBlank(sharedSnapshotPath)) {
+            try {
+                log.info("Start sharing properties through snapshot [{}]", sharedSnapshotPath);
+                // Only the leading process of the host watches the given locations
+                this.snapshotCoordinator = new SharedSnapshotCoordinator(Paths.get(sharedSnapshotPath),
+                        environment.getProperty(SHARED_SNAPSHOT_POLL_INTERVAL, Long.class, SharedSnapshotCoordinator.DEFAULT_POLL_INTERVAL_MILLIS),
+                        publisher, propertyResolver, locations, resourceDirectories);
+                this.snapshotCoordinator.start();
+            } catch (final IOException e) {
+                log.error("Unable to start shared snapshot coordinator", e);
+            }
+            return;
+        }
+
         try {
             log.info("Start watching for properties file changes");
             // Here we actually create and set a FileWatcher to monitor the given locations
-            new PropertiesFileWatcher(locations, publisher).startWatching();
+            final PropertiesFileWatcher watcher = new PropertiesFileWatcher(locations, resourceDirectories, publisher);
+            watcher.startWatching();
+            this.fileWatcher = watcher;
+            if (beanFactory instanceof SingletonBeanRegistry
+                    && !((SingletonBeanRegistry) beanFactory).containsSingleton(FILE_WATCHER_BEAN_NAME)) {
+                ((SingletonBeanRegistry) beanFactory).registerSingleton(FILE_WATCHER_BEAN_NAME, watcher);
+            }
         } catch (final IOException e) {
             log.error("Unable to start properties file watcher", e);
         }
     }
 
-    private Pair<Set<EncodedResource>, Properties> loadResources(List<AnnotatedBeanDefinition> definitions) {
+    @Override
+    public void destroy() {
+        final PropertiesFileWatcher watcher = this.fileWatcher;
+        if (null != watcher) {
+            watcher.stop();
+        }
+        final SharedSnapshotCoordinator coordinator = this.snapshotCoordinator;
+        if (null != coordinator) {
+            coordinator.stop();
+        }
+        if (null != zooKeeperWatcher) {
+            zooKeeperWatcher.close();
+        }
+        if (null != hotSwapRefresher) {
+            hotSwapRefresher.close();
+        }
+        if (null != propertyOverrides) {
+            propertyOverrides.close();
+        }
+        if (null != publisher) {
+            publisher.close();
+        }
+        if (null != subscriber) {
+            subscriber.unregisterPropertyReloader();
+        }
+        // The notifier is shared by the whole class loader, a refreshed context must not notify stale beans
+        for (final EventSubscriber eventSubscriber : Arrays.<EventSubscriber>asList(valueFieldRebinder, propertiesBinder,
+                mapBinder, limitBinder, keyPatternSubscriptions, encryptedValueResolver)) {
+            if (null != eventSubscriber) {
+                eventNotifier.unregister(eventSubscriber);
+            }
+        }
+    }
+
+    /**
+     * Wait for the current content of the given file to be applied to every bound field and listener, e.g. to
+     * confirm a rollout instead of sleeping.
+     *
+     * @param resource the layer name or the path of a watched file
+     * @return the future of the version of the reload which applied the content, failed with a
+     * {@link java.util.concurrent.TimeoutException} after the given timeout
+     * @throws IllegalArgumentException if the resource is not watched by this process
+     */
+    public CompletableFuture<Long> awaitApplied(final String resource, final long timeout, final TimeUnit unit) {
+        final PropertiesFileWatcher watcher = getFileWatcher();
+        Assert.notNull(watcher, "No file is watched by this process");
+        return watcher.awaitApplied(resource, timeout, unit);
+    }
+
+    /**
+     * @return the resolver of the reloadable properties, available once this processor is initialized
+     */
+    public LayeredPropertyResolver getPropertyResolver() {
+        return this.propertyResolver;
+    }
+
+    /**
+     * @return the publisher of property changes, available once this processor is initialized
+     */
+    public ReloadPropertyEventPublisher getPublisher() {
+        return this.publisher;
+    }
+
+    /**
+     * @return the refresher of the {@link com.bytegen.common.reload.RefreshOnChange} beans, {@code null} if the bean
+     * factory does not support rebuilding beans
+     */
+    public HotSwapRefresher getHotSwapRefresher() {
+        return this.hotSwapRefresher;
+    }
+
+    /**
+     * @return the inspector of the reloadable properties, available once this processor is initialized
+     */
+    public ReloadInspector getInspector() {
+        return this.inspector;
+    }
+
+    /**
+     * @return the runtime overrides of this process, available once this processor is initialized
+     */
+    public PropertyOverrides getPropertyOverrides() {
+        return this.propertyOverrides;
+    }
+
+    /**
+     * @return the listeners of key patterns, available once this processor is initialized
+     */
+    public KeyPatternSubscriptions getKeyPatternSubscriptions() {
+        return this.keyPatternSubscriptions;
+    }
+
+    private Map<String, BeanPropertySubscriptions> getSubscriptions() {
+        final Map<String, BeanPropertySubscriptions> subscriptions = new LinkedHashMap<>();
+        subscriptions.put("reloadValue", beanPropertySubscriptions);
+        if (null != valueFieldRebinder) {
+            subscriptions.put("value", valueFieldRebinder.getSubscriptions());
+        }
+        subscriptions.put("reloadProperties", propertiesBinder.getSubscriptions());
+        subscriptions.put("reloadMap", mapBinder.getSubscriptions());
+        return subscriptions;
+    }
+
+    private PropertiesFileWatcher getFileWatcher() {
+        final SharedSnapshotCoordinator coordinator = this.snapshotCoordinator;
+        return null != coordinator ? coordinator.getWatcher() : this.fileWatcher;
+    }
+
+    private LayeredPropertyResolver createPropertyResolver() {
+        final String store = environment.getProperty(PROPERTY_STORE, "heap");
+        if ("heap".equalsIgnoreCase(store)) {
+            return new LayeredPropertyResolver();
+        }
+        if ("off-heap".equalsIgnoreCase(store)) {
+            log.info("Storing reloadable properties off-heap");
+            return new LayeredPropertyResolver(OffHeapPropertyStore::new);
+        }
+        throw new BeanInitializationException(String.format("Unknown property store [%s] for [%s], expected heap or off-heap",
+                store, PROPERTY_STORE));
+    }
+
+    private void startZooKeeperWatcher() throws Exception {
+        final String connectString = environment.getProperty(ZOOKEEPER_CONNECT_STRING);
+        if (StringUtils.isBlank(connectString)) {
+            return;
+        }
+        if (!ClassUtils.isPresent("org.apache.zookeeper.ZooKeeper", getClass().getClassLoader())) {
+            throw new BeanInitializationException(String.format("Property [%s] is set but ZooKeeper is not on the classpath",
+                    ZOOKEEPER_CONNECT_STRING));
+        }
+
+        final String root = environment.getRequiredProperty(ZOOKEEPER_ROOT);
+        final int sessionTimeout = environment.getProperty(ZOOKEEPER_SESSION_TIMEOUT, Integer.class,
+                ZooKeeperPropertiesWatcher.DEFAULT_SESSION_TIMEOUT_MILLIS);
+        final PropertyLayer layer = new PropertyLayer("zookeeper:" + root,
+                environment.getProperty(ZOOKEEPER_PRECEDENCE, Integer.class, PropertyLayer.HOST), 0);
+
+        log.info("Start watching ZooKeeper [{}] under [{}]", connectString, root);
+        // Properties of the znodes are required before any bean is processed
+        this.zooKeeperWatcher = new ZooKeeperPropertiesWatcher(connectString, root, sessionTimeout, publisher, layer);
+        this.zooKeeperWatcher.start(sessionTimeout);
+    }
+
+    private void registerPropertySource(final ConfigurableEnvironment environment) {
+        final MutablePropertySources propertySources = environment.getPropertySources();
+        if (propertySources.contains(ReloadablePropertySource.NAME)) {
+            return;
+        }
+        // Command line arguments, system properties and environment variables keep overriding the resources
+        final ReloadablePropertySource propertySource = new ReloadablePropertySource(propertyResolver, encryptedValueResolver);
+        if (propertySources.contains(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME)) {
+            propertySources.addAfter(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME, propertySource);
+        } else {
+            propertySources.addFirst(propertySource);
+        }
+        log.info("Registered reloadable property source [{}]", ReloadablePropertySource.NAME);
+    }
+
+    private Set<EncodedResource> loadResources(List<AnnotatedBeanDefinition> definitions) {
         // None @ReloadResource annotated bean definition found
         if (CollectionUtils.isEmpty(definitions)) {
-            return Pair.of(null, null);
+            return null;
         }
 
-        Properties properties = new Properties();
-        Set<EncodedResource> locations = new HashSet<>();
+        Set<EncodedResource> locations = new LinkedHashSet<>();
 
         definitions.forEach(bd -> {
             Map<String, Object> attributes = bd.getMetadata()
                     .getAnnotationAttributes(ReloadResource.class.getCanonicalName());
-            processReloadResourceAttributes(new AnnotationAttributes(attributes), properties, locations);
+            processReloadResourceAttributes(new AnnotationAttributes(attributes), locations);
         });
 
-        return Pair.of(locations, properties);
+        return locations;
     }
 
     private String resolveEnvironmentProperty(String text) {
@@ -117,7 +436,7 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
         return null;
     }
 
-    private void processReloadResourceAttributes(AnnotationAttributes propertySource, Properties properties, Set<EncodedResource> encodedResources) throws BeanDefinitionStoreException {
+    private void processReloadResourceAttributes(AnnotationAttributes propertySource, Set<EncodedResource> encodedResources) throws BeanDefinitionStoreException {
         ResourceLoader resourceLoader = new DefaultResourceLoader();
         String encoding = resolveEnvironmentProperty(propertySource.getString("encoding"));
         if (StringUtils.isBlank(encoding)) {
@@ -127,6 +446,7 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
 
         Assert.isTrue(locations.length > 0, "At least one @ReloadResource(value) location is required");
         boolean ignoreResourceNotFound = propertySource.getBoolean("ignoreResourceNotFound");
+        int precedence = propertySource.getNumber("precedence");
 
         for (String location : locations) {
             try {
@@ -138,11 +458,30 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
                     continue;
                 }
 
+                ResourceDirectory directory = ResourceDirectory.of(resourceLoader, resolved, encoding, precedence,
+                        encodedResources.size() + resourceDirectories.size() + 1);
+                if (null != directory) {
+                    if (resourceDirectories.add(directory)) {
+                        // Files of a directory share its position and are merged by file name
+                        for (Path file : directory.listFiles()) {
+                            EncodedResource encodedResource = directory.getResource(file);
+                            Properties props = PropertiesLoaderUtils.loadProperties(encodedResource);
+                            encodedResources.add(encodedResource);
+                            propertyResolver.putLayer(directory.getLayer(file), LayeredPropertyResolver.toMap(props));
+                        }
+                    }
+                    continue;
+                }
+
                 EncodedResource encodedResource = new EncodedResource(resourceLoader.getResource(resolved), encoding);
                 Properties props = PropertiesLoaderUtils.loadProperties(encodedResource);
 
-                encodedResources.add(encodedResource);
-                properties.putAll(props);
+                if (encodedResources.add(encodedResource)) {
+                    // Later locations, then later registered annotations, override earlier ones of the same precedence
+                    PropertyLayer layer = new PropertyLayer(PropertiesFileWatcher.getLayerName(encodedResource), precedence,
+                            encodedResources.size() + resourceDirectories.size());
+                    propertyResolver.putLayer(layer, LayeredPropertyResolver.toMap(props));
+                }
             } catch (IOException ex) {
                 // Resource not found when trying to open it
                 if (ignoreResourceNotFound &&
@@ -165,10 +504,39 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
             log.debug("Setting Reloadable Properties on [{}]", beanName);
         }
         setPropertiesOnBean(bean);
+
+        final Lock lock = publisher.getSubscriptionLock();
+        lock.lock();
+        try {
+            propertiesBinder.subscribe(bean);
+            mapBinder.subscribe(bean);
+            keyPatternSubscriptions.subscribe(bean);
+            if (null != valueFieldRebinder) {
+                valueFieldRebinder.subscribe(bean);
+            }
+        } finally {
+            lock.unlock();
+        }
         return true;
     }
 
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+        // Limits are usually created by the constructor or an init method, they are bound once the bean is initialized
+        final Lock lock = publisher.getSubscriptionLock();
+        lock.lock();
+        try {
+            limitBinder.subscribe(bean);
+        } finally {
+            lock.unlock();
+        }
+        return (null == hotSwapRefresher) ? bean : hotSwapRefresher.wrap(bean, beanName);
+    }
+
     private void setPropertiesOnBean(final Object bean) {
+        // Fail fast on invalid @OnReloadComplete methods
+        subscriber.getReloadCompleteCallbacks().getCallbacks(bean.getClass());
+
         ReflectionUtils.doWithFields(bean.getClass(), new ReflectionUtils.FieldCallback() {
 
             @Override
@@ -180,28 +548,39 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
                     ReflectionUtils.makeAccessible(field);
                     validateFieldNotFinal(bean, field);
 
-                    final String propertyValue = propertyResolver.resolvePlaceholders(annotation.value());
-                    validatePropertyAvailableOrDefaultSet(bean, field, annotation, propertyValue);
+                    final Lock lock = publisher.getSubscriptionLock();
+                    lock.lock();
+                    try {
+                        setPropertyOnField(bean, field, annotation);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        });
+    }
 
-                    if (null != propertyValue) {
-                        log.info("Attempting to convert and set property [{}] on field [{}] for class [{}] to type [{}]",
-                                propertyValue, field.getName(), bean.getClass().getCanonicalName(), field.getType());
+    private void setPropertyOnField(final Object bean, final Field field, final ReloadValue annotation) throws IllegalAccessException {
+        final String propertyValue = propertyResolver.resolvePlaceholders(annotation.value());
+        validatePropertyAvailableOrDefaultSet(bean, field, annotation, propertyValue);
 
-                        final Object convertedProperty = convertPropertyForField(field, propertyValue, annotation.conversion());
+        if (null != propertyValue) {
+            final boolean encrypted = EncryptedValueResolver.isEncrypted(propertyValue);
+            log.info("Attempting to convert and set property [{}] on field [{}] for class [{}] to type [{}]",
+                    propertyValue, field.getName(), bean.getClass().getCanonicalName(), field.getType());
 
-                        log.info("Setting field [{}] of class [{}] with value [{}]",
-                                field.getName(), bean.getClass().getCanonicalName(), convertedProperty);
+            final Object convertedProperty = conversionCache.convert(annotation.conversion(), field, propertyValue);
 
-                        field.set(bean, convertedProperty);
+            log.info("Setting field [{}] of class [{}] with value [{}]",
+                    field.getName(), bean.getClass().getCanonicalName(), encrypted ? EncryptedValueResolver.MASK : convertedProperty);
 
-                        subscribeBeanToPropertyChangedEvent(annotation.value(), propertyValue, new BeanPropertyHolder(bean, field));
-                    } else {
-                        log.info("Leaving field [{}] of class [{}] with default value",
-                                field.getName(), bean.getClass().getCanonicalName());
-                    }
-                }
-            }
-        });
+            field.set(bean, convertedProperty);
+
+            subscribeBeanToPropertyChangedEvent(annotation.value(), propertyValue, bean, field);
+        } else {
+            log.info("Leaving field [{}] of class [{}] with default value",
+                    field.getName(), bean.getClass().getCanonicalName());
+        }
     }
 
     private void validatePropertyAvailableOrDefaultSet(final Object bean, final Field field, final ReloadValue annotation, final Object propertyValue)
@@ -228,31 +607,8 @@ public class ReloadSourcePropertySupport extends InstantiationAwareBeanPostProce
         }
     }
 
-    private void subscribeBeanToPropertyChangedEvent(final String propertyName, final String propertyValue, final BeanPropertyHolder fieldProperty) {
+    private void subscribeBeanToPropertyChangedEvent(final String propertyName, final String propertyValue, final Object bean, final Field field) {
         this.resolvedBeanProperty.put(propertyName, propertyValue);
-        this.beanPropertySubscriptions.computeIfAbsent(propertyName, k -> new HashSet<>());
-        this.beanPropertySubscriptions.get(propertyName).add(fieldProperty);
-    }
-
-    // ///////////////////////////////////
-    // Utility methods for class access //
-    // ///////////////////////////////////
-
-    private Object convertPropertyForField(final Field field, final Object propertyValue, final Class<? extends PropertyConversion> conversionClass) {
-        try {
-            PropertyConversion conversion;
-            if (conversionClass == PropertyConversion.class || conversionClass == DefaultPropertyConversion.class) {
-                conversion = DefaultPropertyConversion.getInstance();
-            } else {
-                conversion = BeanUtils.instantiateClass(conversionClass);
-            }
-
-            return conversion.convertPropertyForField(field, propertyValue);
-        } catch (final Throwable e) {
-            throw new BeanInitializationException(
-                    String.format("Unable to convert property for field [%s].  Value [%s] cannot be converted to [%s]",
-                            field.getName(), propertyValue, field.getType()), e);
-        }
+        this.beanPropertySubscriptions.subscribe(propertyName, bean, field);
     }
-
 }
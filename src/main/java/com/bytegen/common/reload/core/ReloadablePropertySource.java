@@ -0,0 +1,50 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import org.springframework.core.env.EnumerablePropertySource;
+
+import java.util.Set;
+
+/**
+ * Spring {@link org.springframework.core.env.PropertySource} exposing the live effective values of the reloadable
+ * resources to the {@link org.springframework.core.env.Environment}, so that {@code Environment.getProperty} and
+ * {@code @Value} see reloads. Lookups read the resolver directly, nested placeholders are left to the environment.
+ * {@code ENC(...)} values are exposed decrypted when an {@link EncryptedValueResolver} is given.
+ */
+public class ReloadablePropertySource extends EnumerablePropertySource<PropertiesPropertyResolver> {
+
+    public static final String NAME = "autoReloadProperties";
+
+    private final EncryptedValueResolver encryptedValueResolver;
+
+    public ReloadablePropertySource(final PropertiesPropertyResolver propertyResolver) {
+        this(propertyResolver, null);
+    }
+
+    public ReloadablePropertySource(final PropertiesPropertyResolver propertyResolver,
+                                    final EncryptedValueResolver encryptedValueResolver) {
+        super(NAME, propertyResolver);
+        this.encryptedValueResolver = encryptedValueResolver;
+    }
+
+    @Override
+    public Object getProperty(final String name) {
+        final String value = this.source.getRawProperty(name);
+        if (null != this.encryptedValueResolver) {
+            return this.encryptedValueResolver.decrypt(value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsProperty(final String name) {
+        return null != this.source.getRawProperty(name);
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        final Set<String> names = this.source.propertyNames();
+        return names.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,243 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A directory location of a {@link com.bytegen.common.reload.ReloadResource}, either the directory itself, e.g.
+ * {@code file:/etc/app/conf.d/}, or a file name pattern in it, e.g. {@code file:/etc/app/conf.d/*.properties}.
+ * <p>
+ * Each matching file is its own {@link PropertyLayer}, all of them sharing the precedence and position of the
+ * location so that they are merged by file name, the last one winning. Files are discovered and retracted while
+ * watching.
+ * </p>
+ * <p>
+ * A pattern starting with a {@code **} directory, e.g. {@code file:/etc/app/conf/**&#47;*.properties}, makes the
+ * location recursive: the pattern filters the paths relative to the directory, files of the whole tree are merged
+ * by path. Wildcards of the other directories of the location are taken literally.
+ * </p>
+ */
+public class ResourceDirectory {
+
+    /**
+     * File name pattern of a directory location
+     */
+    public static final String DEFAULT_PATTERN = "*.properties";
+
+    private static final String WILDCARDS = "*?[{";
+    private static final String ANY_DIRECTORIES = "**";
+    private static final String ANY_DIRECTORY = ANY_DIRECTORIES + "/";
+
+    private final Path directory;
+    private final String pattern;
+    private final PathMatcher matcher;
+    private final PathMatcher topLevelMatcher;
+    private final boolean recursive;
+    private final String encoding;
+    private final int precedence;
+    private final int position;
+
+    public ResourceDirectory(final Path directory, final String pattern, final String encoding,
+                             final int precedence, final int position) {
+        Assert.notNull(directory, "Directory must not be null");
+        Assert.hasText(pattern, "Pattern must not be empty");
+
+        this.directory = directory.toAbsolutePath().normalize();
+        this.pattern = pattern;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        this.recursive = pattern.contains("**") || pattern.contains("/");
+        // "**/" also stands for no directory at all
+        this.topLevelMatcher = pattern.startsWith(ANY_DIRECTORY)
+                ? FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(ANY_DIRECTORY.length())) : null;
+        this.encoding = encoding;
+        this.precedence = precedence;
+        this.position = position;
+    }
+
+    /**
+     * @return whether the given location holds a file name pattern, or a {@code **} directory
+     */
+    public static boolean isPattern(final String location) {
+        return getPatternStart(location) >= 0;
+    }
+
+    /**
+     * @param location a resolved location, either a pattern or a file system directory
+     * @return the directory location, or {@code null} if the location is a single resource
+     * @throws IOException if the location is a pattern outside of the file system
+     */
+    public static ResourceDirectory of(final ResourceLoader resourceLoader, final String location, final String encoding,
+                                       final int precedence, final int position) throws IOException {
+        final int patternStart = getPatternStart(location);
+        // An existing file named like a pattern, e.g. app[1].properties, is a single resource
+        if (patternStart >= 0 && !isFile(resourceLoader.getResource(location))) {
+            Assert.isTrue(patternStart > 0, "Pattern location [" + location + "] requires a directory");
+
+            final Resource resource = resourceLoader.getResource(location.substring(0, patternStart));
+            return new ResourceDirectory(resource.getFile().toPath(), location.substring(patternStart),
+                    encoding, precedence, position);
+        }
+
+        final Resource resource = resourceLoader.getResource(location);
+        if (resource.exists() && resource.isFile() && resource.getFile().isDirectory()) {
+            return new ResourceDirectory(resource.getFile().toPath(), DEFAULT_PATTERN, encoding, precedence, position);
+        }
+        return null;
+    }
+
+    /**
+     * Wildcards only count in the file name and from a {@code **} directory on, literal brackets or braces of the
+     * parent directories are kept, e.g. {@code file:/opt/app[1]/conf/*.properties}.
+     *
+     * @return the start of the pattern in the given location, {@code -1} if none
+     */
+    private static int getPatternStart(final String location) {
+        int from = 0;
+        int end;
+        while ((end = location.indexOf('/', from)) >= 0) {
+            if (ANY_DIRECTORIES.equals(location.substring(from, end))) {
+                return from;
+            }
+            from = end + 1;
+        }
+        for (int i = from; i < location.length(); i++) {
+            if (WILDCARDS.indexOf(location.charAt(i)) >= 0) {
+                return from;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isFile(final Resource resource) {
+        try {
+            return resource.exists() && resource.isFile() && resource.getFile().isFile();
+        } catch (final IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public boolean isRecursive() {
+        return this.recursive;
+    }
+
+    /**
+     * @return whether the given file belongs to this location, whether or not it still exists
+     */
+    public boolean matches(final Path file) {
+        final Path normalized = file.toAbsolutePath().normalize();
+        if (!this.recursive) {
+            return this.directory.equals(normalized.getParent()) && this.matcher.matches(normalized.getFileName());
+        }
+        if (!normalized.startsWith(this.directory) || normalized.equals(this.directory)) {
+            return false;
+        }
+        final Path relative = this.directory.relativize(normalized);
+        return this.matcher.matches(relative) || (null != this.topLevelMatcher && this.topLevelMatcher.matches(relative));
+    }
+
+    /**
+     * @return whether the given directory is to be watched for this location
+     */
+    public boolean watches(final Path path) {
+        final Path normalized = path.toAbsolutePath().normalize();
+        return this.recursive ? normalized.startsWith(this.directory) : this.directory.equals(normalized);
+    }
+
+    /**
+     * @return the existing matching files, sorted by path
+     */
+    public List<Path> listFiles() throws IOException {
+        return listFiles(this.directory);
+    }
+
+    /**
+     * @return the existing matching files below the given watched directory, sorted by path
+     */
+    public List<Path> listFiles(final Path from) throws IOException {
+        if (!Files.isDirectory(from)) {
+            return Collections.emptyList();
+        }
+        final List<Path> files = new ArrayList<>();
+        if (this.recursive) {
+            try (Stream<Path> stream = Files.walk(from)) {
+                stream.filter(file -> Files.isRegularFile(file) && matches(file)).forEach(files::add);
+            }
+        } else {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(from)) {
+                for (final Path file : stream) {
+                    if (Files.isRegularFile(file) && matches(file)) {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * @return the given directory and, for a recursive location, all its sub directories
+     */
+    public List<Path> listDirectories(final Path from) throws IOException {
+        if (!Files.isDirectory(from)) {
+            return Collections.emptyList();
+        }
+        if (!this.recursive) {
+            return Collections.singletonList(from);
+        }
+        try (Stream<Path> stream = Files.walk(from)) {
+            return stream.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+    }
+
+    public EncodedResource getResource(final Path file) {
+        return new EncodedResource(new FileSystemResource(file.toFile()), this.encoding);
+    }
+
+    /**
+     * @return the layer of the given file, named after its resource
+     */
+    public PropertyLayer getLayer(final Path file) {
+        return new PropertyLayer(PropertiesFileWatcher.getLayerName(getResource(file)), this.precedence, this.position);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ResourceDirectory that = (ResourceDirectory) o;
+        return Objects.equals(directory, that.directory) &&
+                Objects.equals(pattern, that.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(directory, pattern);
+    }
+
+    @Override
+    public String toString() {
+        return this.directory.resolve(this.pattern).toString();
+    }
+}
@@ -0,0 +1,232 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.bean.BeanPropertyHolder;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.conversion.DefaultPropertyConversion;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.PropertySources;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-injects {@link Value @Value} fields referencing reloadable properties when a reload changes their resolved
+ * value, so that plain Spring beans follow reloads without refreshing any scope.
+ * <p>
+ * Only fields with {@code ${...}} placeholders referencing at least one reloadable key are tracked; SpEL
+ * expressions and method or constructor injection are not rebound. Expressions are resolved through the property
+ * sources of the {@link Environment}, exactly as Spring injected them, except that {@code ENC(...)} values are kept
+ * encrypted: the tracked values never hold a secret, which is only decrypted by the conversion, without memoizing.
+ * </p>
+ */
+public class ValueFieldRebinder implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(ValueFieldRebinder.class);
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+    private static final String PLACEHOLDER_SUFFIX = "}";
+    private static final String VALUE_SEPARATOR = ":";
+
+    private final PropertyResolver environmentResolver;
+    private final PropertiesPropertyResolver propertyResolver;
+    private final PropertyConversionCache conversionCache;
+
+    private final Map<String, String> resolvedValues = new ConcurrentHashMap<>();
+    private final BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+
+    public ValueFieldRebinder(final EventNotifier eventNotifier,
+                              final Environment environment,
+                              final PropertiesPropertyResolver propertyResolver,
+                              final PropertyConversionCache conversionCache) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(environment, "Environment can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+        Assert.notNull(conversionCache, "Conversion cache can not be null");
+
+        this.environmentResolver = (environment instanceof ConfigurableEnvironment)
+                ? new PropertySourcesPropertyResolver(new RawPropertySources(
+                ((ConfigurableEnvironment) environment).getPropertySources(), propertyResolver))
+                : environment;
+        this.propertyResolver = propertyResolver;
+        this.conversionCache = conversionCache;
+        eventNotifier.register(this);
+    }
+
+    /**
+     * Track the {@link Value @Value} fields of the given bean referencing reloadable properties.
+     */
+    public void subscribe(final Object bean) {
+        ReflectionUtils.doWithFields(bean.getClass(), field -> {
+            final String expression = field.getAnnotation(Value.class).value();
+            if (!referencesReloadableProperty(expression)) {
+                return;
+            }
+            final String value;
+            try {
+                value = this.environmentResolver.resolveRequiredPlaceholders(expression);
+            } catch (final IllegalArgumentException e) {
+                // Left to the @Value injection to fail
+                return;
+            }
+            final String previousValue = this.resolvedValues.put(expression, value);
+            if (null != previousValue && !previousValue.equals(value)) {
+                // Changed by a reload not dispatched yet, the tracked fields would be skipped by its event otherwise
+                for (final BeanPropertyHolder holder : this.subscriptions.getSubscribers(expression)) {
+                    rebind(holder, expression, value);
+                }
+            }
+            ReflectionUtils.makeAccessible(field);
+            this.subscriptions.subscribe(expression, bean, field);
+            log.debug("Tracking @Value [{}] on field [{}] for class [{}]", expression, field.getName(), bean.getClass().getCanonicalName());
+        }, field -> field.isAnnotationPresent(Value.class) && !Modifier.isStatic(field.getModifiers())
+                && !Modifier.isFinal(field.getModifiers()));
+    }
+
+    /**
+     * @return the subscriptions of the @Value fields
+     */
+    public BeanPropertySubscriptions getSubscriptions() {
+        return this.subscriptions;
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Rebinding relies on the whole batch of a reload
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        if (event.getChangedPropertyNames().isEmpty()) {
+            return;
+        }
+        for (final String expression : this.subscriptions.propertyNames()) {
+            final String oldValue = this.resolvedValues.get(expression);
+            final String newValue;
+            try {
+                newValue = this.environmentResolver.resolveRequiredPlaceholders(expression);
+            } catch (final IllegalArgumentException e) {
+                log.warn("Unable to resolve @Value [{}] after reload, keeping value [{}]: {}", expression, oldValue, e.getMessage());
+                continue;
+            }
+            if (newValue.equals(oldValue)) {
+                continue;
+            }
+
+            this.resolvedValues.put(expression, newValue);
+            for (final BeanPropertyHolder holder : this.subscriptions.getSubscribers(expression)) {
+                rebind(holder, expression, newValue);
+            }
+        }
+    }
+
+    private void rebind(final BeanPropertyHolder holder, final String expression, final String value) {
+        final Object bean = holder.getBean();
+        if (null == bean) {
+            return;
+        }
+        final Field field = holder.getField();
+        try {
+            final Object convertedProperty = this.conversionCache.convert(DefaultPropertyConversion.class, field, value);
+            field.set(bean, convertedProperty);
+            log.info("Rebinding @Value [{}] on field [{}] for class [{}]",
+                    expression, field.getName(), bean.getClass().getCanonicalName());
+        } catch (final IllegalAccessException | RuntimeException e) {
+            log.error(String.format("Unable to rebind @Value [%s] on field [%s] for class [%s]",
+                    expression, field.getName(), bean.getClass().getCanonicalName()), e);
+        }
+    }
+
+    /**
+     * @return whether the expression has a {@code ${...}} placeholder whose key, or a nested one, is reloadable
+     */
+    private boolean referencesReloadableProperty(final String expression) {
+        if (expression.contains("#{")) {
+            return false;
+        }
+        int start = expression.indexOf(PLACEHOLDER_PREFIX);
+        while (start >= 0) {
+            final int end = findPlaceholderEnd(expression, start + PLACEHOLDER_PREFIX.length());
+            if (end < 0) {
+                return false;
+            }
+            final String placeholder = expression.substring(start + PLACEHOLDER_PREFIX.length(), end);
+            final int separator = placeholder.indexOf(VALUE_SEPARATOR);
+            final String key = (separator < 0) ? placeholder : placeholder.substring(0, separator);
+            if (null != this.propertyResolver.getRawProperty(key) || referencesReloadableProperty(placeholder)) {
+                return true;
+            }
+            start = expression.indexOf(PLACEHOLDER_PREFIX, end + PLACEHOLDER_SUFFIX.length());
+        }
+        return false;
+    }
+
+    private int findPlaceholderEnd(final String expression, final int from) {
+        int nested = 0;
+        for (int i = from; i < expression.length(); i++) {
+            if (expression.startsWith(PLACEHOLDER_PREFIX, i)) {
+                nested++;
+                i += PLACEHOLDER_PREFIX.length() - 1;
+            } else if (expression.startsWith(PLACEHOLDER_SUFFIX, i)) {
+                if (nested == 0) {
+                    return i;
+                }
+                nested--;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Property sources of the environment, the {@link ReloadablePropertySource} being replaced by one exposing the
+     * {@code ENC(...)} values as is.
+     */
+    private static class RawPropertySources implements PropertySources {
+        private final PropertySources propertySources;
+        private final ReloadablePropertySource rawPropertySource;
+
+        RawPropertySources(final PropertySources propertySources, final PropertiesPropertyResolver propertyResolver) {
+            this.propertySources = propertySources;
+            this.rawPropertySource = new ReloadablePropertySource(propertyResolver);
+        }
+
+        @Override
+        public boolean contains(final String name) {
+            return this.propertySources.contains(name);
+        }
+
+        @Override
+        public PropertySource<?> get(final String name) {
+            return ReloadablePropertySource.NAME.equals(name) ? this.rawPropertySource : this.propertySources.get(name);
+        }
+
+        @Override
+        public Iterator<PropertySource<?>> iterator() {
+            final List<PropertySource<?>> sources = new ArrayList<>();
+            for (final PropertySource<?> source : this.propertySources) {
+                sources.add(ReloadablePropertySource.NAME.equals(source.getName()) ? this.rawPropertySource : source);
+            }
+            return sources.iterator();
+        }
+    }
+}
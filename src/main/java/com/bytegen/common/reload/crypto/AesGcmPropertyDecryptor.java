@@ -0,0 +1,100 @@
+package com.bytegen.common.reload.crypto;
+
+import org.springframework.util.Assert;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.ProviderException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * {@link PropertyDecryptor} based on JCE AES/GCM, the cipher text being the Base64 of the 12 bytes IV followed by
+ * the encrypted UTF-8 value and its 128 bits tag.
+ */
+public class AesGcmPropertyDecryptor implements PropertyDecryptor {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+
+    private final SecretKeySpec key;
+
+    /**
+     * @param key the AES key, 16, 24 or 32 bytes
+     */
+    public AesGcmPropertyDecryptor(final byte[] key) {
+        Assert.isTrue(null != key && (key.length == 16 || key.length == 24 || key.length == 32),
+                "AES key must be 16, 24 or 32 bytes long");
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * @param base64Key the Base64 encoded AES key
+     */
+    public static AesGcmPropertyDecryptor fromBase64(final String base64Key) {
+        return new AesGcmPropertyDecryptor(Base64.getDecoder().decode(base64Key.trim()));
+    }
+
+    @Override
+    public char[] decrypt(final String cipherText) throws GeneralSecurityException {
+        final byte[] data;
+        try {
+            data = Base64.getDecoder().decode(cipherText.trim());
+        } catch (final IllegalArgumentException e) {
+            throw new GeneralSecurityException("Cipher text is not valid Base64", e);
+        }
+        if (data.length < IV_LENGTH + TAG_LENGTH / 8) {
+            throw new GeneralSecurityException("Cipher text is too short");
+        }
+
+        // Cipher instances are not thread safe, each distinct value is decrypted once anyway
+        final byte[] plain;
+        try {
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, data, 0, IV_LENGTH));
+            plain = cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+        } catch (final ProviderException e) {
+            // Thrown instead of a GeneralSecurityException by some providers, e.g. on malformed input
+            throw new GeneralSecurityException("Unable to decrypt cipher text", e);
+        }
+        try {
+            final CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(plain));
+            final char[] result = Arrays.copyOfRange(chars.array(), chars.position(), chars.limit());
+            Arrays.fill(chars.array(), '\0');
+            return result;
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+
+    /**
+     * Encrypt the given value into the cipher text to write as {@code ENC(<cipher text>)}.
+     */
+    public String encrypt(final char[] plainText) throws GeneralSecurityException {
+        final ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(plainText));
+        final byte[] plain = Arrays.copyOfRange(bytes.array(), bytes.position(), bytes.limit());
+        Arrays.fill(bytes.array(), (byte) 0);
+
+        final byte[] iv = new byte[IV_LENGTH];
+        new SecureRandom().nextBytes(iv);
+        try {
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH, iv));
+            final byte[] encrypted = cipher.doFinal(plain);
+
+            final byte[] data = new byte[IV_LENGTH + encrypted.length];
+            System.arraycopy(iv, 0, data, 0, IV_LENGTH);
+            System.arraycopy(encrypted, 0, data, IV_LENGTH, encrypted.length);
+            return Base64.getEncoder().encodeToString(data);
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+    }
+}
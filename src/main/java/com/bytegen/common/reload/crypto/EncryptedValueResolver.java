@@ -0,0 +1,199 @@
+package com.bytegen.common.reload.crypto;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.security.GeneralSecurityException;
+import java.security.ProviderException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Replaces the {@code ENC(<cipher text>)} parts of property values with their plain text.
+ * <p>
+ * Each distinct cipher text is decrypted once and kept until no reloadable property holds it anymore, the cached
+ * plain text is then wiped. Reloads that do not touch a secret never decrypt it again.
+ * </p>
+ * <p>
+ * The first reload after a decryption indexes which properties hold which cipher text, later reloads only look at
+ * the changed properties.
+ * </p>
+ */
+public class EncryptedValueResolver implements EventSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(EncryptedValueResolver.class);
+
+    public static final String ENCRYPTED_PREFIX = "ENC(";
+    public static final String ENCRYPTED_SUFFIX = ")";
+
+    /**
+     * Logged in place of values holding a secret
+     */
+    public static final String MASK = "******";
+
+    private final PropertyDecryptor decryptor;
+    private final PropertiesPropertyResolver propertyResolver;
+    private final ConcurrentMap<String, char[]> plainTexts = new ConcurrentHashMap<>();
+
+    /**
+     * Cipher texts held by each property holding any, null until the first reload after a decryption
+     */
+    private Map<String, Set<String>> heldCipherTexts;
+    /**
+     * Number of properties holding each indexed cipher text
+     */
+    private final Map<String, Integer> references = new HashMap<>();
+
+    public EncryptedValueResolver(final EventNotifier eventNotifier,
+                                  final PropertyDecryptor decryptor,
+                                  final PropertiesPropertyResolver propertyResolver) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(decryptor, "Decryptor can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+
+        this.decryptor = decryptor;
+        this.propertyResolver = propertyResolver;
+        eventNotifier.register(this);
+    }
+
+    public static boolean isEncrypted(final Object value) {
+        return value instanceof String && ((String) value).contains(ENCRYPTED_PREFIX);
+    }
+
+    /**
+     * @return the given value with every {@code ENC(...)} part decrypted, the value itself if none
+     * @throws IllegalArgumentException if a part can not be decrypted
+     */
+    public String decrypt(final String value) {
+        if (!isEncrypted(value)) {
+            return value;
+        }
+
+        final StringBuilder result = new StringBuilder(value.length());
+        int from = 0;
+        int start;
+        while ((start = value.indexOf(ENCRYPTED_PREFIX, from)) >= 0) {
+            final int end = value.indexOf(ENCRYPTED_SUFFIX, start + ENCRYPTED_PREFIX.length());
+            if (end < 0) {
+                break;
+            }
+            result.append(value, from, start)
+                    .append(getPlainText(value.substring(start + ENCRYPTED_PREFIX.length(), end)));
+            from = end + ENCRYPTED_SUFFIX.length();
+        }
+        return result.append(value, from, value.length()).toString();
+    }
+
+    public int size() {
+        return this.plainTexts.size();
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Eviction relies on the whole batch of a reload
+    }
+
+    /**
+     * Wipe the plain texts of the cipher texts no longer held by any property.
+     */
+    @Subscribe
+    @Override
+    public synchronized void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        if (null == this.heldCipherTexts) {
+            if (this.plainTexts.isEmpty()) {
+                return;
+            }
+
+            this.heldCipherTexts = new HashMap<>();
+            for (final String key : this.propertyResolver.propertyNames()) {
+                reindex(key);
+            }
+            wipe(new HashSet<>(this.plainTexts.keySet()));
+            return;
+        }
+
+        final Set<String> released = new HashSet<>();
+        for (final String key : event.getChangedPropertyNames()) {
+            released.addAll(reindex(key));
+        }
+        wipe(released);
+    }
+
+    /**
+     * @return the cipher texts no property holds anymore since the key changed
+     */
+    private Set<String> reindex(final String key) {
+        final Set<String> current = new HashSet<>();
+        collectCipherTexts(this.propertyResolver.getRawProperty(key), current);
+        Set<String> previous = current.isEmpty()
+                ? this.heldCipherTexts.remove(key) : this.heldCipherTexts.put(key, current);
+        if (null == previous) {
+            previous = Collections.emptySet();
+        }
+
+        for (final String cipherText : current) {
+            if (!previous.contains(cipherText)) {
+                this.references.merge(cipherText, 1, Integer::sum);
+            }
+        }
+        final Set<String> released = new HashSet<>();
+        for (final String cipherText : previous) {
+            if (!current.contains(cipherText)
+                    && null == this.references.computeIfPresent(cipherText, (k, count) -> count > 1 ? count - 1 : null)) {
+                released.add(cipherText);
+            }
+        }
+        return released;
+    }
+
+    private void wipe(final Set<String> cipherTexts) {
+        for (final String cipherText : cipherTexts) {
+            if (this.references.containsKey(cipherText)) {
+                continue;
+            }
+            final char[] plainText = this.plainTexts.remove(cipherText);
+            if (null != plainText) {
+                Arrays.fill(plainText, '\0');
+                log.info("Wiped replaced encrypted property value");
+            }
+        }
+    }
+
+    private char[] getPlainText(final String cipherText) {
+        return this.plainTexts.computeIfAbsent(cipherText, k -> {
+            try {
+                return this.decryptor.decrypt(k);
+            } catch (final GeneralSecurityException | ProviderException e) {
+                throw new IllegalArgumentException("Unable to decrypt property value", e);
+            }
+        });
+    }
+
+    private void collectCipherTexts(final String value, final Set<String> cipherTexts) {
+        if (!isEncrypted(value)) {
+            return;
+        }
+        int start;
+        int from = 0;
+        while ((start = value.indexOf(ENCRYPTED_PREFIX, from)) >= 0) {
+            final int end = value.indexOf(ENCRYPTED_SUFFIX, start + ENCRYPTED_PREFIX.length());
+            if (end < 0) {
+                return;
+            }
+            cipherTexts.add(value.substring(start + ENCRYPTED_PREFIX.length(), end));
+            from = end + ENCRYPTED_SUFFIX.length();
+        }
+    }
+}
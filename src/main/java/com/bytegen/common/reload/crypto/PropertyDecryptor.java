@@ -0,0 +1,18 @@
+package com.bytegen.common.reload.crypto;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Decrypts the cipher text of property values written as {@code ENC(<cipher text>)}.
+ * <p>
+ * Declare an implementation as a bean to replace the default {@link AesGcmPropertyDecryptor}.
+ * </p>
+ */
+public interface PropertyDecryptor {
+
+    /**
+     * @param cipherText the content between {@code ENC(} and {@code )}
+     * @return the plain text, the caller wipes the returned array once it is no longer used
+     */
+    char[] decrypt(String cipherText) throws GeneralSecurityException;
+}
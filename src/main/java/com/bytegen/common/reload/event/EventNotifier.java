@@ -1,5 +1,6 @@
 package com.bytegen.common.reload.event;
 
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
 import com.bytegen.common.reload.bean.PropertyChangedEvent;
 
 /**
@@ -10,6 +11,15 @@ import com.bytegen.common.reload.bean.PropertyChangedEvent;
 public interface EventNotifier {
     void post(PropertyChangedEvent propertyChangedEvent);
 
+    /**
+     * Post all the changes of a reload at once. Notifiers written before batches existed post each change on its own.
+     */
+    default void post(PropertiesChangedEvent propertiesChangedEvent) {
+        for (final PropertyChangedEvent event : propertiesChangedEvent.getEvents()) {
+            post(event);
+        }
+    }
+
     void unregister(EventSubscriber eventSubscriber);
 
     void register(EventSubscriber eventSubscriber);
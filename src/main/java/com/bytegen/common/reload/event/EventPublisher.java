@@ -1,10 +1,61 @@
 package com.bytegen.common.reload.event;
 
+import com.bytegen.common.reload.resolver.PropertyLayer;
+
+import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
 
 /**
  * Publish {@link com.bytegen.common.reload.bean.PropertyChangedEvent} on resource updated
  */
 public interface EventPublisher {
-    void onPropertyChanged(Properties properties);
+
+    /**
+     * Layer of the properties published without layer, above the defaults and among the application resources
+     */
+    PropertyLayer DEFAULT_LAYER = new PropertyLayer("default", PropertyLayer.APPLICATION, 0);
+
+    /**
+     * Replace the content of the {@link #DEFAULT_LAYER}, registering it if unknown. Sources written before layers
+     * existed keep publishing all their properties at once.
+     *
+     * @param properties the new content of the default layer
+     */
+    default void onPropertyChanged(Properties properties) {
+        onPropertyChanged(Collections.singletonMap(DEFAULT_LAYER, properties));
+    }
+
+    /**
+     * Replace the content of the given registered layer, e.g. on its resource updated.
+     *
+     * @param layerName  the {@link PropertyLayer#getName() name} of the layer
+     * @param properties the new content of the layer
+     */
+    void onPropertyChanged(String layerName, Properties properties);
+
+    /**
+     * Replace the content of several layers as one reload, registering unknown layers.
+     *
+     * @param layers the new content of each layer
+     */
+    void onPropertyChanged(Map<PropertyLayer, Properties> layers);
+
+    /**
+     * Apply the given changes to the given registered layer, e.g. on a few entries of a remote source updated.
+     *
+     * @param layerName the {@link PropertyLayer#getName() name} of the layer
+     * @param changes   the changed keys with their new value, a {@code null} value removes the key
+     */
+    void onPropertyUpdated(String layerName, Map<String, String> changes);
+
+    /**
+     * Remove the given layer and retract its keys, e.g. on its resource deleted. By default the layer is emptied and
+     * stays registered.
+     *
+     * @param layerName the {@link PropertyLayer#getName() name} of the layer
+     */
+    default void onLayerRemoved(String layerName) {
+        onPropertyChanged(layerName, new Properties());
+    }
 }
@@ -1,5 +1,6 @@
 package com.bytegen.common.reload.event;
 
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
 import com.bytegen.common.reload.bean.PropertyChangedEvent;
 import com.google.common.eventbus.Subscribe;
 
@@ -10,4 +11,15 @@ public interface EventSubscriber {
 
     @Subscribe
     void onPropertyChangedEvent(final PropertyChangedEvent event);
+
+    /**
+     * Invoked once per reload with all its changes. Subscribers written before batches existed receive each change
+     * through {@link #onPropertyChangedEvent(PropertyChangedEvent)}.
+     */
+    @Subscribe
+    default void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        for (final PropertyChangedEvent propertyChangedEvent : event.getEvents()) {
+            onPropertyChangedEvent(propertyChangedEvent);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.bytegen.common.reload.event;
 
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
 import com.bytegen.common.reload.bean.PropertyChangedEvent;
 import com.google.common.eventbus.EventBus;
 
@@ -28,6 +29,11 @@ public class GuavaEventNotifier implements EventNotifier {
         guavaEvent.post(event);
     }
 
+    @Override
+    public void post(final PropertiesChangedEvent event) {
+        guavaEvent.post(event);
+    }
+
     @Override
     public void unregister(final EventSubscriber eventSubscriber) {
         guavaEvent.unregister(eventSubscriber);
@@ -0,0 +1,104 @@
+package com.bytegen.common.reload.inspect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exposes a {@link ReloadInspector} on the platform MBean server as {@value #OBJECT_NAME}.
+ */
+public class JmxReloadInspector implements ReloadInspectorMXBean {
+    private static final Logger log = LoggerFactory.getLogger(JmxReloadInspector.class);
+
+    public static final String OBJECT_NAME = "com.bytegen.common.reload:type=ReloadInspector";
+
+    private final ReloadInspector inspector;
+    private ObjectName objectName;
+
+    public JmxReloadInspector(final ReloadInspector inspector) {
+        Assert.notNull(inspector, "Inspector must not be null");
+        this.inspector = inspector;
+    }
+
+    /**
+     * Register on the platform MBean server, suffixed with the identity of this instance if the name is taken,
+     * e.g. by another application context of the same JVM.
+     */
+    public void register() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            this.objectName = server.registerMBean(this, new ObjectName(OBJECT_NAME)).getObjectName();
+        } catch (final InstanceAlreadyExistsException e) {
+            this.objectName = server.registerMBean(this,
+                    new ObjectName(OBJECT_NAME + ",identity=" + ObjectUtils.getIdentityHexString(this))).getObjectName();
+        }
+        log.info("Registered reload inspector MBean [{}]", this.objectName);
+    }
+
+    public void unregister() throws JMException {
+        if (null != this.objectName) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+            this.objectName = null;
+        }
+    }
+
+    @Override
+    public Map<String, String> getSources() {
+        final Map<String, String> sources = new LinkedHashMap<>();
+        for (final Map<String, Object> source : this.inspector.getSources()) {
+            final Map<String, Object> description = new LinkedHashMap<>(source);
+            sources.put(String.valueOf(description.remove("name")), description.toString());
+        }
+        return sources;
+    }
+
+    @Override
+    public Map<String, String> getRawProperties() {
+        return getProperties("raw");
+    }
+
+    @Override
+    public Map<String, String> getResolvedProperties() {
+        return getProperties("resolved");
+    }
+
+    @Override
+    public Map<String, Integer> getSubscriberCounts() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        for (final Map.Entry<String, Map<String, Integer>> kind : this.inspector.getSubscribers().entrySet()) {
+            for (final Map.Entry<String, Integer> count : kind.getValue().entrySet()) {
+                counts.put(kind.getKey() + " " + count.getKey(), count.getValue());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<String> getPendingChanges() {
+        return this.inspector.getPendingChanges();
+    }
+
+    @Override
+    public boolean reload(final String resource) {
+        return this.inspector.reload(resource);
+    }
+
+    private Map<String, String> getProperties(final String attribute) {
+        final Map<String, String> properties = new TreeMap<>();
+        for (final Map.Entry<String, Map<String, Object>> property : this.inspector.getProperties().entrySet()) {
+            properties.put(property.getKey(), String.valueOf(property.getValue().get(attribute)));
+        }
+        return properties;
+    }
+}
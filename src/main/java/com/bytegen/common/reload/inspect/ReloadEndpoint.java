@@ -0,0 +1,39 @@
+package com.bytegen.common.reload.inspect;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spring Boot actuator endpoint {@code autoreload} over a {@link ReloadInspector}: reading returns the state of the
+ * reloadable properties, writing {@code {"resource": "..."}} reloads one resource at once.
+ */
+@Endpoint(id = ReloadEndpoint.ID)
+public class ReloadEndpoint {
+
+    public static final String ID = "autoreload";
+
+    private final ReloadInspector inspector;
+
+    public ReloadEndpoint(final ReloadInspector inspector) {
+        Assert.notNull(inspector, "Inspector must not be null");
+        this.inspector = inspector;
+    }
+
+    @ReadOperation
+    public Map<String, Object> inspect() {
+        return this.inspector.inspect();
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload(final String resource) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("resource", resource);
+        result.put("reloaded", this.inspector.reload(resource));
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package com.bytegen.common.reload.inspect;
+
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.core.PropertiesFileWatcher;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.springframework.util.Assert;
+import org.springframework.util.PropertyPlaceholderHelper;
+import org.springframework.util.SystemPropertyUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only view of the state of the reloadable properties, and forced reload of one resource.
+ * <p>
+ * Values of keys looking like secrets, e.g. {@code db.password}, and {@code ENC(...)} values are masked, as well as
+ * the resolved values referencing them through placeholders.
+ * </p>
+ */
+public class ReloadInspector {
+
+    private static final Pattern SENSITIVE_KEY = Pattern.compile(".*(password|secret|key|token|credentials?).*",
+            Pattern.CASE_INSENSITIVE);
+    private static final PropertyPlaceholderHelper PLACEHOLDER_HELPER = new PropertyPlaceholderHelper(
+            SystemPropertyUtils.PLACEHOLDER_PREFIX, SystemPropertyUtils.PLACEHOLDER_SUFFIX,
+            SystemPropertyUtils.VALUE_SEPARATOR, true);
+
+    private final LayeredPropertyResolver propertyResolver;
+    private final Map<String, BeanPropertySubscriptions> subscriptions;
+    private final Supplier<PropertiesFileWatcher> fileWatcher;
+
+    /**
+     * @param subscriptions the subscriptions by kind of binding, e.g. {@code "@ReloadValue"}
+     * @param fileWatcher   the current file watcher of this process, supplying {@code null} if none
+     */
+    public ReloadInspector(final LayeredPropertyResolver propertyResolver,
+                           final Map<String, BeanPropertySubscriptions> subscriptions,
+                           final Supplier<PropertiesFileWatcher> fileWatcher) {
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+        Assert.notNull(subscriptions, "Subscriptions must not be null");
+        Assert.notNull(fileWatcher, "File watcher supplier must not be null");
+
+        this.propertyResolver = propertyResolver;
+        this.subscriptions = subscriptions;
+        this.fileWatcher = fileWatcher;
+    }
+
+    /**
+     * @return the sources, properties, subscriber counts and pending changes
+     */
+    public Map<String, Object> inspect() {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sources", getSources());
+        result.put("properties", getProperties());
+        result.put("subscribers", getSubscribers());
+        result.put("pendingChanges", getPendingChanges());
+        return result;
+    }
+
+    /**
+     * @return the layers from lowest to highest precedence, with their version and times
+     */
+    public List<Map<String, Object>> getSources() {
+        final Map<String, Path> layerFiles = getLayerFiles();
+        final List<Map<String, Object>> sources = new ArrayList<>();
+        for (final PropertyLayer layer : this.propertyResolver.getLayers()) {
+            final Map<String, Object> source = new LinkedHashMap<>();
+            source.put("name", layer.getName());
+            source.put("precedence", layer.getPrecedence());
+            source.put("position", layer.getPosition());
+            source.put("keys", this.propertyResolver.getLayerProperties(layer.getName()).size());
+            source.put("version", this.propertyResolver.getLayerVersion(layer.getName()));
+            source.put("lastApplied", toTime(this.propertyResolver.getLayerUpdateTime(layer.getName())));
+
+            final Path file = layerFiles.get(layer.getName());
+            if (null != file) {
+                source.put("file", file.toString());
+                source.put("lastModified", getLastModified(file));
+            }
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    /**
+     * @return the raw and resolved effective value of every key with its layer, secrets being masked
+     */
+    public Map<String, Map<String, Object>> getProperties() {
+        final Map<String, Map<String, Object>> properties = new TreeMap<>();
+        for (final String key : this.propertyResolver.propertyNames()) {
+            final String raw = this.propertyResolver.getRawProperty(key);
+            if (null == raw) {
+                continue;
+            }
+            final boolean sensitive = isSensitive(key, raw);
+
+            String resolved;
+            try {
+                resolved = this.propertyResolver.resolvePlaceholders(raw);
+            } catch (final IllegalArgumentException e) {
+                resolved = null;
+            }
+
+            final Map<String, Object> property = new LinkedHashMap<>();
+            property.put("raw", sensitive ? EncryptedValueResolver.MASK : raw);
+            property.put("resolved", (sensitive || isSensitive(key, resolved) || referencesSensitive(raw))
+                    ? EncryptedValueResolver.MASK : resolved);
+            final List<PropertyLayer> layers = this.propertyResolver.getDefiningLayers(key);
+            if (!layers.isEmpty()) {
+                property.put("layer", layers.get(layers.size() - 1).getName());
+            }
+            properties.put(key, property);
+        }
+        return properties;
+    }
+
+    /**
+     * @return the live subscriber count of each key, by kind of binding
+     */
+    public Map<String, Map<String, Integer>> getSubscribers() {
+        final Map<String, Map<String, Integer>> subscribers = new LinkedHashMap<>();
+        for (final Map.Entry<String, BeanPropertySubscriptions> entry : this.subscriptions.entrySet()) {
+            subscribers.put(entry.getKey(), entry.getValue().getSubscriberCounts());
+        }
+        return subscribers;
+    }
+
+    /**
+     * @return the changed files not applied yet, waiting for the end of their batch of events
+     */
+    public List<String> getPendingChanges() {
+        final PropertiesFileWatcher watcher = this.fileWatcher.get();
+        if (null == watcher) {
+            return Collections.emptyList();
+        }
+        final List<String> pending = new ArrayList<>();
+        for (final Path file : watcher.getPendingChanges()) {
+            pending.add(file.toString());
+        }
+        return pending;
+    }
+
+    /**
+     * Reload the given resource at once, e.g. after events missed on a network file system.
+     *
+     * @param resource the layer name or the path of a watched file
+     * @return whether the resource is watched by this process
+     */
+    public boolean reload(final String resource) {
+        final PropertiesFileWatcher watcher = this.fileWatcher.get();
+        try {
+            return null != watcher && watcher.reload(resource);
+        } catch (final InvalidPathException e) {
+            // Neither a layer name nor a path
+            return false;
+        }
+    }
+
+    private Map<String, Path> getLayerFiles() {
+        final PropertiesFileWatcher watcher = this.fileWatcher.get();
+        return null == watcher ? Collections.emptyMap() : watcher.getLayerFiles();
+    }
+
+    private boolean isSensitive(final String key, final String value) {
+        return SENSITIVE_KEY.matcher(key).matches() || EncryptedValueResolver.isEncrypted(value);
+    }
+
+    /**
+     * @return whether the given value references, directly or through other values, a key looking like a secret or
+     * an {@code ENC(...)} value
+     */
+    private boolean referencesSensitive(final String value) {
+        final AtomicBoolean sensitive = new AtomicBoolean();
+        try {
+            PLACEHOLDER_HELPER.replacePlaceholders(value, placeholder -> {
+                final String referenced = this.propertyResolver.getRawProperty(placeholder);
+                if (null != referenced && isSensitive(placeholder, referenced)) {
+                    sensitive.set(true);
+                }
+                return referenced;
+            });
+        } catch (final IllegalArgumentException e) {
+            // Circular placeholder, the references met so far are enough
+        }
+        return sensitive.get();
+    }
+
+    private String getLastModified(final Path file) {
+        try {
+            return toTime(Files.getLastModifiedTime(file).toMillis());
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private String toTime(final long millis) {
+        return millis <= 0 ? null : Instant.ofEpochMilli(millis).toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bytegen.common.reload.inspect;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of a {@link ReloadInspector}, used when Spring Boot actuator is not available.
+ */
+public interface ReloadInspectorMXBean {
+
+    /**
+     * @return a description of each layer, by layer name
+     */
+    Map<String, String> getSources();
+
+    /**
+     * @return the raw effective value of each key, secrets being masked
+     */
+    Map<String, String> getRawProperties();
+
+    /**
+     * @return the resolved effective value of each key, secrets being masked
+     */
+    Map<String, String> getResolvedProperties();
+
+    /**
+     * @return the live subscriber count of each {@code <kind> <key>}
+     */
+    Map<String, Integer> getSubscriberCounts();
+
+    List<String> getPendingChanges();
+
+    /**
+     * @param resource the layer name or the path of a watched file
+     * @return whether the resource is watched by this process
+     */
+    boolean reload(String resource);
+}
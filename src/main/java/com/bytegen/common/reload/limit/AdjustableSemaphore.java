@@ -0,0 +1,46 @@
+package com.bytegen.common.reload.limit;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * {@link Semaphore} whose total number of permits can be changed while permits are held.
+ * <p>
+ * Adding permits releases them at once. Removing permits lets the current holders complete: the available permits
+ * may become negative, and new acquirers wait until enough permits are released.
+ * </p>
+ */
+public class AdjustableSemaphore extends Semaphore {
+    private static final long serialVersionUID = 1L;
+
+    private int permits;
+
+    public AdjustableSemaphore(final int permits) {
+        this(permits, false);
+    }
+
+    public AdjustableSemaphore(final int permits, final boolean fair) {
+        super(permits, fair);
+        Assert.isTrue(permits >= 0, "Permits must not be negative");
+        this.permits = permits;
+    }
+
+    /**
+     * @return the total number of permits, held or available
+     */
+    public synchronized int getPermits() {
+        return this.permits;
+    }
+
+    public synchronized void setPermits(final int permits) {
+        Assert.isTrue(permits >= 0, "Permits must not be negative");
+        final int delta = permits - this.permits;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        this.permits = permits;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bytegen.common.reload.nativeimage;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * GraalVM native-image {@link Feature} registering the {@link ReloadReflectionMetadata} of every reachable class,
+ * so that beans of the application need no hand written reflection configuration.
+ * <p>
+ * Enabled by {@code META-INF/native-image/com.bytegen.common/auto-reload/native-image.properties}, only loaded by the
+ * image builder.
+ * </p>
+ */
+public class AutoReloadFeature implements Feature {
+
+    @Override
+    public void beforeAnalysis(final BeforeAnalysisAccess access) {
+        access.registerSubtypeReachabilityHandler((duringAnalysis, type) -> {
+            final ReloadReflectionMetadata metadata = ReloadReflectionMetadata.of(type);
+            if (metadata.isEmpty()) {
+                return;
+            }
+            try {
+                RuntimeReflection.register(metadata.getClasses().toArray(new Class<?>[0]));
+                RuntimeReflection.register(metadata.getFields().toArray(new Field[0]));
+                RuntimeReflection.register(metadata.getMethods().toArray(new Method[0]));
+                RuntimeReflection.register(metadata.getConstructors().toArray(new Constructor<?>[0]));
+            } catch (final LinkageError e) {
+                // Signature referencing a class missing from the image class path, the type is skipped
+                return;
+            }
+            duringAnalysis.requireAnalysisIteration();
+        }, Object.class);
+    }
+}
@@ -0,0 +1,143 @@
+package com.bytegen.common.reload.nativeimage;
+
+import com.bytegen.common.reload.OnPropertiesChanged;
+import com.bytegen.common.reload.OnReloadComplete;
+import com.bytegen.common.reload.ReloadLimit;
+import com.bytegen.common.reload.ReloadMap;
+import com.bytegen.common.reload.ReloadProperties;
+import com.bytegen.common.reload.ReloadValue;
+import com.bytegen.common.reload.conversion.PropertyConversion;
+import com.bytegen.common.reload.event.EventSubscriber;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Members of a class accessed reflectively by the reload machinery, registered for reflection by
+ * {@link AutoReloadFeature} when building a native image.
+ * <ul>
+ * <li>fields bound with {@link ReloadValue}, {@link Value}, {@link ReloadProperties}, {@link ReloadMap} and
+ * {@link ReloadLimit}</li>
+ * <li>callbacks annotated with {@link OnPropertiesChanged} and {@link OnReloadComplete}</li>
+ * <li>the methods of {@link EventSubscriber}s, looked up by the event bus</li>
+ * <li>the default constructor of {@link PropertyConversion}s and of types bound with {@link ReloadProperties},
+ * the fields of the latter and of their nested types</li>
+ * </ul>
+ */
+public class ReloadReflectionMetadata {
+
+    private final Set<Class<?>> classes = new LinkedHashSet<>();
+    private final Set<Field> fields = new LinkedHashSet<>();
+    private final Set<Method> methods = new LinkedHashSet<>();
+    private final Set<Constructor<?>> constructors = new LinkedHashSet<>();
+
+    /**
+     * @return the reflective members declared by the given class, its super classes are not inspected, empty if
+     * its members reference a class missing from the class path
+     */
+    public static ReloadReflectionMetadata of(final Class<?> type) {
+        final ReloadReflectionMetadata metadata = new ReloadReflectionMetadata();
+        try {
+            metadata.collect(type);
+        } catch (final LinkageError e) {
+            // E.g. NoClassDefFoundError of an optional dependency, the class can not be bound anyway
+            return new ReloadReflectionMetadata();
+        }
+        return metadata;
+    }
+
+    public boolean isEmpty() {
+        return classes.isEmpty() && fields.isEmpty() && methods.isEmpty() && constructors.isEmpty();
+    }
+
+    public Set<Class<?>> getClasses() {
+        return classes;
+    }
+
+    public Set<Field> getFields() {
+        return fields;
+    }
+
+    public Set<Method> getMethods() {
+        return methods;
+    }
+
+    public Set<Constructor<?>> getConstructors() {
+        return constructors;
+    }
+
+    private void collect(final Class<?> type) {
+        if (EventSubscriber.class.isAssignableFrom(type)) {
+            classes.add(type);
+            methods.addAll(Arrays.asList(type.getDeclaredMethods()));
+        }
+        if (PropertyConversion.class.isAssignableFrom(type) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            addDefaultConstructor(type);
+        }
+
+        for (final Field field : type.getDeclaredFields()) {
+            if (field.isAnnotationPresent(ReloadValue.class) || field.isAnnotationPresent(Value.class)
+                    || field.isAnnotationPresent(ReloadMap.class) || field.isAnnotationPresent(ReloadLimit.class)) {
+                classes.add(type);
+                fields.add(field);
+            } else if (field.isAnnotationPresent(ReloadProperties.class)) {
+                classes.add(type);
+                fields.add(field);
+                collectBoundType(field.getType());
+            }
+        }
+        for (final Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(OnPropertiesChanged.class) || method.isAnnotationPresent(OnReloadComplete.class)) {
+                classes.add(type);
+                methods.add(method);
+            }
+        }
+    }
+
+    private void collectBoundType(final Class<?> type) {
+        if (!classes.add(type)) {
+            return;
+        }
+        addDefaultConstructor(type);
+        for (Class<?> current = type; null != current && Object.class != current; current = current.getSuperclass()) {
+            classes.add(current);
+            for (final Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                fields.add(field);
+                if (isNested(field.getType())) {
+                    collectBoundType(field.getType());
+                }
+            }
+        }
+    }
+
+    private void addDefaultConstructor(final Class<?> type) {
+        classes.add(type);
+        try {
+            constructors.add(type.getDeclaredConstructor());
+        } catch (final NoSuchMethodException e) {
+            // Reported when the type is instantiated
+        }
+    }
+
+    /**
+     * Same as the nested types of {@link com.bytegen.common.reload.core.ReloadPropertiesBinder}
+     */
+    private static boolean isNested(final Class<?> type) {
+        return !BeanUtils.isSimpleProperty(type)
+                && !Collection.class.isAssignableFrom(type)
+                && !Map.class.isAssignableFrom(type)
+                && !type.getName().startsWith("java.");
+    }
+}
@@ -0,0 +1,132 @@
+package com.bytegen.common.reload.reactive;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Subscription holding at most one pending value: a value offered before the subscriber requested it replaces the
+ * previous pending one, so a slow subscriber only receives the latest value and nothing is buffered.
+ * <p>
+ * Values are delivered on the given executor, never on the thread offering them, by a single drain at a time.
+ * </p>
+ */
+class ConflatingSubscription<T> implements Subscription {
+    private static final Logger log = LoggerFactory.getLogger(ConflatingSubscription.class);
+
+    private final Subscriber<? super T> subscriber;
+    private final Executor executor;
+    private final Consumer<ConflatingSubscription<T>> onCancel;
+
+    private final AtomicReference<T> latest = new AtomicReference<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Throwable error;
+
+    ConflatingSubscription(final Subscriber<? super T> subscriber, final Executor executor,
+                           final Consumer<ConflatingSubscription<T>> onCancel) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+        this.onCancel = onCancel;
+    }
+
+    @Override
+    public void request(final long n) {
+        if (n <= 0) {
+            this.error = new IllegalArgumentException("Rule 3.9: request must be positive, was " + n);
+            drain();
+            return;
+        }
+        for (; ; ) {
+            final long current = this.requested.get();
+            if (Long.MAX_VALUE == current) {
+                break;
+            }
+            final long updated = (current + n < 0) ? Long.MAX_VALUE : current + n;
+            if (this.requested.compareAndSet(current, updated)) {
+                break;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (!this.cancelled) {
+            this.cancelled = true;
+            this.latest.set(null);
+            this.onCancel.accept(this);
+        }
+    }
+
+    /**
+     * Replace the pending value, delivered once requested.
+     */
+    void offer(final T value) {
+        this.latest.set(value);
+        drain();
+    }
+
+    /**
+     * Complete the subscriber, dropping the pending value.
+     */
+    void complete() {
+        this.completed = true;
+        drain();
+    }
+
+    private void drain() {
+        if (0 == this.wip.getAndIncrement()) {
+            this.executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        for (; ; ) {
+            if (this.cancelled) {
+                return;
+            }
+            if (null != this.error || this.completed) {
+                this.cancelled = true;
+                this.onCancel.accept(this);
+                if (null != this.error) {
+                    this.subscriber.onError(this.error);
+                } else {
+                    this.subscriber.onComplete();
+                }
+                return;
+            }
+            if (this.requested.get() > 0) {
+                final T value = this.latest.getAndSet(null);
+                if (null != value) {
+                    if (Long.MAX_VALUE != this.requested.get()) {
+                        this.requested.decrementAndGet();
+                    }
+                    try {
+                        this.subscriber.onNext(value);
+                    } catch (final Throwable e) {
+                        // Rule 2.13, the subscriber is considered cancelled
+                        log.error("Subscriber [{}] failed on value, cancelling its subscription", this.subscriber, e);
+                        cancel();
+                        return;
+                    }
+                    continue;
+                }
+            }
+            missed = this.wip.addAndGet(-missed);
+            if (0 == missed) {
+                return;
+            }
+        }
+    }
+}
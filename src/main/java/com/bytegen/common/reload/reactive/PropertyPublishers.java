@@ -0,0 +1,252 @@
+package com.bytegen.common.reload.reactive;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.conversion.FieldConverter;
+import com.bytegen.common.reload.conversion.FieldConverters;
+import com.bytegen.common.reload.core.ReloadExecutors;
+import com.bytegen.common.reload.event.EventNotifier;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.resolver.PropertiesPropertyResolver;
+import com.google.common.eventbus.Subscribe;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Reactive Streams {@link Publisher}s of the values of a key or of the properties under a prefix.
+ * <p>
+ * Each subscriber first receives the current value, then every distinct value once changed. Demand is honored and
+ * values are conflated: a subscriber slower than the reloads only receives the latest value, nothing is buffered
+ * and the reload thread never waits for a subscriber. Values are delivered on a dedicated executor.
+ * </p>
+ * <p>
+ * Publishers are shared per key and type or per prefix, the value is computed once per reload whatever the number
+ * of subscribers. Closing completes every subscriber.
+ * </p>
+ */
+public class PropertyPublishers implements EventSubscriber, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PropertyPublishers.class);
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+
+    private final EventNotifier eventNotifier;
+    private final PropertiesPropertyResolver propertyResolver;
+    private final ExecutorService executor = ReloadExecutors.newExecutor("auto-reload-publisher");
+    private final ConcurrentMap<String, Source<?>> sources = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public PropertyPublishers(final EventNotifier eventNotifier, final PropertiesPropertyResolver propertyResolver) {
+        Assert.notNull(eventNotifier, "EventNotifier can not be null");
+        Assert.notNull(propertyResolver, "PropertyResolver can not be null");
+        this.eventNotifier = eventNotifier;
+        this.propertyResolver = propertyResolver;
+        eventNotifier.register(this);
+    }
+
+    /**
+     * @return the publisher of the resolved value of the given key, empty while the key is not defined
+     */
+    public Publisher<Optional<String>> key(final String key) {
+        return key(key, String.class);
+    }
+
+    /**
+     * @return the publisher of the value of the given key converted by the built-in converters, empty while the key
+     * is not defined. A value which cannot be converted is skipped.
+     * @throws IllegalArgumentException if the given type is not supported by the built-in converters
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Publisher<Optional<T>> key(final String key, final Class<T> type) {
+        Assert.hasText(key, "Key must not be empty");
+        final FieldConverter converter = FieldConverters.forType(ResolvableType.forClass(type),
+                FieldConverters.DEFAULT_SEPARATOR, FieldConverters.DEFAULT_KEY_VALUE_SEPARATOR);
+        Assert.notNull(converter, "Unsupported type [" + type.getName() + "]");
+        return (Publisher<Optional<T>>) this.sources.computeIfAbsent("key:" + type.getName() + "@" + key,
+                k -> new KeySource<>(key, converter));
+    }
+
+    /**
+     * @return the publisher of the resolved properties under the given prefix, keyed without the prefix and its dot
+     */
+    @SuppressWarnings("unchecked")
+    public Publisher<Map<String, String>> prefix(final String prefix) {
+        Assert.hasText(prefix, "Prefix must not be empty");
+        return (Publisher<Map<String, String>>) this.sources.computeIfAbsent("prefix:" + prefix,
+                k -> new PrefixSource(prefix));
+    }
+
+    @Override
+    public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        // Values are published once per reload
+    }
+
+    @Subscribe
+    @Override
+    public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+        final Set<String> changedPropertyNames = event.getChangedPropertyNames();
+        if (changedPropertyNames.isEmpty()) {
+            return;
+        }
+        for (final Source<?> source : this.sources.values()) {
+            if (source.dynamic || source.isAffectedBy(changedPropertyNames)) {
+                source.refresh();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.eventNotifier.unregister(this);
+        for (final Source<?> source : this.sources.values()) {
+            source.complete();
+        }
+        this.executor.shutdown();
+    }
+
+    private abstract class Source<T> implements Publisher<T> {
+        private final Set<ConflatingSubscription<T>> subscriptions = ConcurrentHashMap.newKeySet();
+        private T value;
+        /**
+         * Whether the value references other keys, re-computed on every reload
+         */
+        volatile boolean dynamic;
+
+        abstract boolean isAffectedBy(Set<String> changedPropertyNames);
+
+        /**
+         * @return the current value, {@code null} to keep the previous one
+         */
+        abstract T compute();
+
+        @Override
+        public synchronized void subscribe(final Subscriber<? super T> subscriber) {
+            Assert.notNull(subscriber, "Rule 1.9: subscriber must not be null");
+            final ConflatingSubscription<T> subscription = new ConflatingSubscription<>(subscriber, executor,
+                    this.subscriptions::remove);
+            subscriber.onSubscribe(subscription);
+            if (closed) {
+                subscriber.onComplete();
+                return;
+            }
+            this.subscriptions.add(subscription);
+            if (null == this.value) {
+                this.value = compute();
+            }
+            if (null != this.value) {
+                subscription.offer(this.value);
+            }
+        }
+
+        synchronized void refresh() {
+            if (this.subscriptions.isEmpty()) {
+                // Computed again on the next subscription
+                this.value = null;
+                return;
+            }
+            final T computed = compute();
+            if (null == computed || Objects.equals(computed, this.value)) {
+                return;
+            }
+            this.value = computed;
+            for (final ConflatingSubscription<T> subscription : this.subscriptions) {
+                subscription.offer(computed);
+            }
+        }
+
+        synchronized void complete() {
+            for (final ConflatingSubscription<T> subscription : this.subscriptions) {
+                subscription.complete();
+            }
+        }
+    }
+
+    private class KeySource<T> extends Source<Optional<T>> {
+        private final String key;
+        private final FieldConverter converter;
+
+        KeySource(final String key, final FieldConverter converter) {
+            this.key = key;
+            this.converter = converter;
+        }
+
+        @Override
+        boolean isAffectedBy(final Set<String> changedPropertyNames) {
+            return changedPropertyNames.contains(this.key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Optional<T> compute() {
+            final String raw = propertyResolver.getRawProperty(this.key);
+            this.dynamic = null != raw && raw.contains(PLACEHOLDER_PREFIX);
+            if (null == raw) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.ofNullable((T) this.converter.convert(propertyResolver.resolvePlaceholders(raw)));
+            } catch (final RuntimeException e) {
+                log.warn("Unable to publish value of [{}], keeping the previous value", this.key, e);
+                return null;
+            }
+        }
+    }
+
+    private class PrefixSource extends Source<Map<String, String>> {
+        private final String start;
+
+        PrefixSource(final String prefix) {
+            this.start = prefix + ".";
+        }
+
+        @Override
+        boolean isAffectedBy(final Set<String> changedPropertyNames) {
+            for (final String name : changedPropertyNames) {
+                if (name.startsWith(this.start)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        Map<String, String> compute() {
+            final Map<String, String> properties = new TreeMap<>();
+            boolean references = false;
+            for (final String name : propertyResolver.propertyNames()) {
+                if (!name.startsWith(this.start)) {
+                    continue;
+                }
+                final String raw = propertyResolver.getRawProperty(name);
+                if (null == raw) {
+                    continue;
+                }
+                references |= raw.contains(PLACEHOLDER_PREFIX);
+                try {
+                    properties.put(name.substring(this.start.length()), propertyResolver.resolvePlaceholders(raw));
+                } catch (final IllegalArgumentException e) {
+                    log.warn("Unable to resolve [{}], left out of [{}*]", name, this.start);
+                }
+            }
+            this.dynamic = references;
+            return Collections.unmodifiableMap(properties);
+        }
+    }
+}
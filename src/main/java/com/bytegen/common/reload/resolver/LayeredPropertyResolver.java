@@ -0,0 +1,307 @@
+package com.bytegen.common.reload.resolver;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * {@link PropertiesPropertyResolver} whose properties are merged from ordered {@link PropertyLayer}s.
+ * <p>
+ * Every key is indexed with the layers defining it, so a change in any layer only recomputes the effective value of
+ * the keys it touches, and the highest layer always wins whatever the order in which layers were changed.
+ * </p>
+ * <p>
+ * The merged properties and the content of every layer are kept in maps created by the given store factory, e.g.
+ * {@link OffHeapPropertyStore} for very large key spaces. Such stores may drop the index, so that no key is retained on
+ * the heap, the defining layers of a key are then looked up from the highest layer down.
+ * </p>
+ * <p>
+ * {@link #setProperty} writes into the {@link #RUNTIME_LAYER} layer and {@link #addProperties} into the
+ * {@link #DEFAULTS_LAYER} layer.
+ * </p>
+ */
+public class LayeredPropertyResolver extends PropertiesPropertyResolver {
+
+    public static final String DEFAULTS_LAYER = "defaults";
+    public static final String RUNTIME_LAYER = "runtime";
+
+    private final Map<String, PropertyLayer> layers = new HashMap<>();
+    private final NavigableSet<PropertyLayer> orderedLayers = new TreeSet<>();
+    private final Map<String, Map<String, String>> layerProperties = new HashMap<>();
+    private final Map<String, NavigableSet<PropertyLayer>> definingLayers;
+    private final Map<String, Long> layerVersions = new HashMap<>();
+    private final Map<String, Long> layerUpdateTimes = new HashMap<>();
+
+    private final Supplier<Map<String, String>> storeFactory;
+
+    public LayeredPropertyResolver() {
+        super();
+        this.storeFactory = HashMap::new;
+        this.definingLayers = new HashMap<>();
+    }
+
+    /**
+     * Create a resolver without index of the defining layers.
+     *
+     * @param storeFactory creates the map of the merged properties and of each layer
+     */
+    public LayeredPropertyResolver(final Supplier<Map<String, String>> storeFactory) {
+        this(storeFactory, false);
+    }
+
+    /**
+     * @param storeFactory        creates the map of the merged properties and of each layer
+     * @param indexDefiningLayers whether to index every key with the layers defining it
+     */
+    public LayeredPropertyResolver(final Supplier<Map<String, String>> storeFactory, final boolean indexDefiningLayers) {
+        super(storeFactory.get());
+        this.storeFactory = storeFactory;
+        this.definingLayers = indexDefiningLayers ? new HashMap<>() : null;
+    }
+
+    /**
+     * Replace the whole content of the given layer, registering the layer if unknown.
+     *
+     * @return the keys whose effective value changed
+     */
+    public synchronized Set<String> putLayer(final PropertyLayer layer, final Map<String, String> properties) {
+        Assert.notNull(layer, "Layer must not be null");
+        final PropertyLayer existing = this.layers.get(layer.getName());
+        final Set<String> changed = new HashSet<>();
+        if (null != existing && !existing.equals(layer)) {
+            // Precedence moved, re-insert the layer at its new place
+            changed.addAll(removeLayer(layer.getName()));
+        }
+        this.layers.put(layer.getName(), layer);
+        this.orderedLayers.add(layer);
+
+        final Map<String, String> current = this.layerProperties.getOrDefault(layer.getName(), Collections.emptyMap());
+        final Map<String, String> changes = new LinkedHashMap<>();
+        for (final String key : current.keySet()) {
+            if (null == properties || !properties.containsKey(key)) {
+                changes.put(key, null);
+            }
+        }
+        if (null != properties) {
+            for (final Map.Entry<String, String> entry : properties.entrySet()) {
+                if (null != entry.getValue() && !entry.getValue().equals(current.get(entry.getKey()))) {
+                    changes.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        changed.addAll(applyChanges(layer, changes));
+        if (!this.layerVersions.containsKey(layer.getName())) {
+            // Registered empty
+            touchLayer(layer.getName());
+        }
+        return changed;
+    }
+
+    /**
+     * Apply the given changes to the given registered layer, a {@code null} value removes the key from the layer.
+     *
+     * @return the keys whose effective value changed
+     * @throws IllegalArgumentException if the layer is unknown
+     */
+    public synchronized Set<String> updateLayer(final String layerName, final Map<String, String> changes) {
+        final PropertyLayer layer = this.layers.get(layerName);
+        Assert.notNull(layer, "Unknown layer [" + layerName + "]");
+        return applyChanges(layer, changes);
+    }
+
+    /**
+     * Remove the given layer and retract all its keys.
+     *
+     * @return the keys whose effective value changed
+     */
+    public synchronized Set<String> removeLayer(final String layerName) {
+        final PropertyLayer layer = this.layers.get(layerName);
+        if (null == layer) {
+            return Collections.emptySet();
+        }
+        final Map<String, String> changes = new LinkedHashMap<>();
+        for (final String key : this.layerProperties.getOrDefault(layerName, Collections.emptyMap()).keySet()) {
+            changes.put(key, null);
+        }
+        final Set<String> changed = applyChanges(layer, changes);
+        this.layers.remove(layerName);
+        this.orderedLayers.remove(layer);
+        this.layerProperties.remove(layerName);
+        this.layerVersions.remove(layerName);
+        this.layerUpdateTimes.remove(layerName);
+        return changed;
+    }
+
+    public synchronized PropertyLayer getLayer(final String layerName) {
+        return this.layers.get(layerName);
+    }
+
+    /**
+     * @return the registered layers, from lowest to highest precedence
+     */
+    public synchronized List<PropertyLayer> getLayers() {
+        final List<PropertyLayer> result = new ArrayList<>(this.layers.values());
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @return a copy of the raw content of the given layer, empty if unknown
+     */
+    public synchronized Map<String, String> getLayerProperties(final String layerName) {
+        return new HashMap<>(this.layerProperties.getOrDefault(layerName, Collections.emptyMap()));
+    }
+
+    /**
+     * @return the number of times the content of the given layer changed, {@code 0} if unknown
+     */
+    public synchronized long getLayerVersion(final String layerName) {
+        return this.layerVersions.getOrDefault(layerName, 0L);
+    }
+
+    /**
+     * @return the time in milliseconds the content of the given layer last changed, {@code 0} if unknown
+     */
+    public synchronized long getLayerUpdateTime(final String layerName) {
+        return this.layerUpdateTimes.getOrDefault(layerName, 0L);
+    }
+
+    /**
+     * @return the layers defining the given key, from lowest to highest precedence
+     */
+    public synchronized List<PropertyLayer> getDefiningLayers(final String key) {
+        if (null != this.definingLayers) {
+            final NavigableSet<PropertyLayer> defining = this.definingLayers.get(key);
+            return null == defining ? Collections.emptyList() : new ArrayList<>(defining);
+        }
+        final List<PropertyLayer> defining = new ArrayList<>();
+        for (final PropertyLayer layer : this.orderedLayers) {
+            final Map<String, String> content = this.layerProperties.get(layer.getName());
+            if (null != content && content.containsKey(key)) {
+                defining.add(layer);
+            }
+        }
+        return defining;
+    }
+
+    @Override
+    public synchronized void addProperties(final Properties props) {
+        if (null != props) {
+            putLayerIfAbsent(DEFAULTS_LAYER, PropertyLayer.DEFAULTS);
+            updateLayer(DEFAULTS_LAYER, toMap(props));
+        }
+    }
+
+    @Override
+    public synchronized Object setProperty(final String key, final String value) {
+        Assert.notNull(key, "Property key must not be null");
+        final String previous = getPropertyAsRawString(key);
+        putLayerIfAbsent(RUNTIME_LAYER, PropertyLayer.RUNTIME);
+        updateLayer(RUNTIME_LAYER, Collections.singletonMap(key, value));
+        return previous;
+    }
+
+    public static Map<String, String> toMap(final Properties properties) {
+        final Map<String, String> result = new HashMap<>();
+        if (null != properties) {
+            for (final String key : properties.stringPropertyNames()) {
+                result.put(key, properties.getProperty(key));
+            }
+        }
+        return result;
+    }
+
+    private void putLayerIfAbsent(final String layerName, final int precedence) {
+        if (!this.layers.containsKey(layerName)) {
+            final PropertyLayer layer = new PropertyLayer(layerName, precedence, 0);
+            this.layers.put(layerName, layer);
+            this.orderedLayers.add(layer);
+            touchLayer(layerName);
+        }
+    }
+
+    private void touchLayer(final String layerName) {
+        this.layerVersions.merge(layerName, 1L, Long::sum);
+        this.layerUpdateTimes.put(layerName, System.currentTimeMillis());
+    }
+
+    private Set<String> applyChanges(final PropertyLayer layer, final Map<String, String> changes) {
+        if (null == changes || changes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Map<String, String> content = this.layerProperties.computeIfAbsent(layer.getName(), k -> this.storeFactory.get());
+        final Set<String> changed = new HashSet<>();
+        boolean modified = false;
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            final String key = change.getKey();
+            if (null == change.getValue()) {
+                if (null != content.remove(key)) {
+                    modified = true;
+                    unindex(key, layer);
+                }
+            } else {
+                modified |= !change.getValue().equals(content.put(key, change.getValue()));
+                if (null != this.definingLayers) {
+                    this.definingLayers.computeIfAbsent(key, k -> new TreeSet<>()).add(layer);
+                }
+            }
+            if (recomputeEffectiveValue(key)) {
+                changed.add(key);
+            }
+        }
+        if (modified) {
+            touchLayer(layer.getName());
+        }
+        return changed;
+    }
+
+    private void unindex(final String key, final PropertyLayer layer) {
+        if (null != this.definingLayers) {
+            final NavigableSet<PropertyLayer> defining = this.definingLayers.get(key);
+            if (null != defining) {
+                defining.remove(layer);
+                if (defining.isEmpty()) {
+                    this.definingLayers.remove(key);
+                }
+            }
+        }
+    }
+
+    private boolean recomputeEffectiveValue(final String key) {
+        // Only the layers defining the key when indexed, otherwise every layer from the highest down
+        final NavigableSet<PropertyLayer> defining = (null == this.definingLayers) ? this.orderedLayers
+                : this.definingLayers.get(key);
+        String value = null;
+        if (null != defining) {
+            for (final PropertyLayer layer : defining.descendingSet()) {
+                final Map<String, String> content = this.layerProperties.get(layer.getName());
+                value = (null == content) ? null : content.get(key);
+                if (null != value) {
+                    break;
+                }
+            }
+        }
+        final String current = getRawProperty(key);
+        if (Objects.equals(current, value)) {
+            return false;
+        }
+        if (null == value) {
+            removeRawProperty(key);
+        } else {
+            setRawProperty(key, value);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,563 @@
+package com.bytegen.common.reload.resolver;
+
+import org.springframework.util.Assert;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Property map keeping its keys and values UTF-8 encoded in a direct memory arena, for configurations of millions
+ * of keys where {@link String} pairs would cost hundreds of MB of heap.
+ * <p>
+ * Keys are indexed by an open-addressing table of primitive arrays, updated in place on each change. Equal values
+ * are stored once and reference counted, a released value is dropped from the arena at the next compaction, which
+ * happens once half of the arena is garbage. Lookups compare encoded bytes and only decode the returned value.
+ * </p>
+ * <p>
+ * Reads may run concurrently with a writer. {@link #entrySet()} and {@link #keySet()} are snapshots.
+ * </p>
+ */
+public class OffHeapPropertyStore extends AbstractMap<String, String> {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+    /**
+     * Key record: [length][bytes], value record: [reference count][hash][length][bytes]
+     */
+    private static final int KEY_HEADER = 4;
+    private static final int VALUE_HEADER = 12;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer arena;
+    private int position;
+    private int garbage;
+
+    private int[] keyHashes;
+    private int[] keyRefs;
+    private int[] valueRefs;
+    private int size;
+
+    private int[] valueHashes;
+    private int[] valueIndex;
+    private int valueCount;
+
+    public OffHeapPropertyStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of keys the index is sized for, it grows beyond
+     */
+    public OffHeapPropertyStore(final int expectedSize) {
+        final int capacity = tableSize(expectedSize);
+        this.arena = ByteBuffer.allocateDirect(Math.max(MIN_COMPACTION_BYTES, capacity * 32));
+        this.keyHashes = new int[capacity];
+        this.keyRefs = newTable(capacity);
+        this.valueRefs = new int[capacity];
+        this.valueHashes = new int[capacity];
+        this.valueIndex = newTable(capacity);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        final byte[] bytes = encode((String) key);
+        lock.readLock().lock();
+        try {
+            return EMPTY != keyRefs[findKey(bytes, hash(bytes))];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final byte[] bytes = encode((String) key);
+        lock.readLock().lock();
+        try {
+            final int slot = findKey(bytes, hash(bytes));
+            return EMPTY == keyRefs[slot] ? null : readValue(valueRefs[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String put(final String key, final String value) {
+        Assert.notNull(key, "Property key must not be null");
+        Assert.notNull(value, "Property value must not be null");
+        final byte[] keyBytes = encode(key);
+        final byte[] valueBytes = encode(value);
+        final int keyHash = hash(keyBytes);
+        lock.writeLock().lock();
+        try {
+            int slot = findKey(keyBytes, keyHash);
+            if (EMPTY != keyRefs[slot]) {
+                final int previousRef = valueRefs[slot];
+                if (matches(previousRef + VALUE_HEADER - 4, valueBytes)) {
+                    return value;
+                }
+                final String previous = readValue(previousRef);
+                valueRefs[slot] = internValue(valueBytes);
+                releaseValue(previousRef);
+                compactIfNeeded();
+                return previous;
+            }
+
+            if (size + 1 > keyRefs.length * LOAD_FACTOR) {
+                resizeKeys(keyRefs.length * 2);
+                slot = findKey(keyBytes, keyHash);
+            }
+            final int valueRef = internValue(valueBytes);
+            final int keyRef = allocate(KEY_HEADER + keyBytes.length);
+            arena.putInt(keyRef, keyBytes.length);
+            write(keyRef + KEY_HEADER, keyBytes);
+            keyHashes[slot] = keyHash;
+            keyRefs[slot] = keyRef;
+            valueRefs[slot] = valueRef;
+            size++;
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String remove(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final byte[] bytes = encode((String) key);
+        lock.writeLock().lock();
+        try {
+            final int slot = findKey(bytes, hash(bytes));
+            if (EMPTY == keyRefs[slot]) {
+                return null;
+            }
+            final int valueRef = valueRefs[slot];
+            final String previous = readValue(valueRef);
+            garbage += KEY_HEADER + bytes.length;
+            deleteKey(slot);
+            size--;
+            releaseValue(valueRef);
+            compactIfNeeded();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(keyRefs, EMPTY);
+            Arrays.fill(valueIndex, EMPTY);
+            size = 0;
+            valueCount = 0;
+            position = 0;
+            garbage = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        lock.readLock().lock();
+        try {
+            final Set<String> keys = new HashSet<>(size * 4 / 3 + 1);
+            for (final int keyRef : keyRefs) {
+                if (EMPTY != keyRef) {
+                    keys.add(readKey(keyRef));
+                }
+            }
+            return Collections.unmodifiableSet(keys);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        final List<Entry<String, String>> entries;
+        lock.readLock().lock();
+        try {
+            entries = new ArrayList<>(size);
+            for (int slot = 0; slot < keyRefs.length; slot++) {
+                if (EMPTY != keyRefs[slot]) {
+                    entries.add(new SimpleImmutableEntry<>(readKey(keyRefs[slot]), readValue(valueRefs[slot])));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                final Iterator<Entry<String, String>> iterator = entries.iterator();
+                return new Iterator<Entry<String, String>>() {
+                    private Entry<String, String> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        current = iterator.next();
+                        return current;
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        OffHeapPropertyStore.this.remove(current.getKey());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /**
+     * @return the number of distinct values stored
+     */
+    public int getDistinctValueCount() {
+        lock.readLock().lock();
+        try {
+            return valueCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the bytes of the arena holding live records
+     */
+    public long getUsedBytes() {
+        lock.readLock().lock();
+        try {
+            return position - garbage;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the direct memory reserved by the arena
+     */
+    public long getReservedBytes() {
+        lock.readLock().lock();
+        try {
+            return arena.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int findKey(final byte[] bytes, final int hash) {
+        final int mask = keyRefs.length - 1;
+        int slot = hash & mask;
+        while (EMPTY != keyRefs[slot]) {
+            if (keyHashes[slot] == hash && matches(keyRefs[slot], bytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Backward shift deletion, keeping every probe sequence free of holes without tombstones
+     */
+    private void deleteKey(final int slot) {
+        final int mask = keyRefs.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (EMPTY == keyRefs[next]) {
+                break;
+            }
+            final int home = keyHashes[next] & mask;
+            if (hole <= next ? (hole < home && home <= next) : (hole < home || home <= next)) {
+                continue;
+            }
+            keyHashes[hole] = keyHashes[next];
+            keyRefs[hole] = keyRefs[next];
+            valueRefs[hole] = valueRefs[next];
+            hole = next;
+        }
+        keyRefs[hole] = EMPTY;
+    }
+
+    private void resizeKeys(final int capacity) {
+        final int[] hashes = this.keyHashes;
+        final int[] keys = this.keyRefs;
+        final int[] values = this.valueRefs;
+        this.keyHashes = new int[capacity];
+        this.keyRefs = newTable(capacity);
+        this.valueRefs = new int[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (EMPTY != keys[i]) {
+                int slot = hashes[i] & mask;
+                while (EMPTY != keyRefs[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keyHashes[slot] = hashes[i];
+                keyRefs[slot] = keys[i];
+                valueRefs[slot] = values[i];
+            }
+        }
+    }
+
+    /**
+     * @return the reference of the stored value equal to the given bytes, its reference count incremented
+     */
+    private int internValue(final byte[] bytes) {
+        final int hash = hash(bytes);
+        final int mask = valueIndex.length - 1;
+        int slot = hash & mask;
+        while (EMPTY != valueIndex[slot]) {
+            final int ref = valueIndex[slot];
+            if (valueHashes[slot] == hash && matches(ref + VALUE_HEADER - 4, bytes)) {
+                arena.putInt(ref, arena.getInt(ref) + 1);
+                return ref;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final int ref = allocate(VALUE_HEADER + bytes.length);
+        arena.putInt(ref, 1);
+        arena.putInt(ref + 4, hash);
+        arena.putInt(ref + 8, bytes.length);
+        write(ref + VALUE_HEADER, bytes);
+        if (valueCount + 1 > valueIndex.length * LOAD_FACTOR) {
+            resizeValues(valueIndex.length * 2);
+        }
+        insertValue(hash, ref);
+        valueCount++;
+        return ref;
+    }
+
+    private void releaseValue(final int ref) {
+        final int count = arena.getInt(ref) - 1;
+        if (count > 0) {
+            arena.putInt(ref, count);
+            return;
+        }
+        final int hash = arena.getInt(ref + 4);
+        final int mask = valueIndex.length - 1;
+        int hole = hash & mask;
+        while (valueIndex[hole] != ref) {
+            hole = (hole + 1) & mask;
+        }
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (EMPTY == valueIndex[next]) {
+                break;
+            }
+            final int home = valueHashes[next] & mask;
+            if (hole <= next ? (hole < home && home <= next) : (hole < home || home <= next)) {
+                continue;
+            }
+            valueHashes[hole] = valueHashes[next];
+            valueIndex[hole] = valueIndex[next];
+            hole = next;
+        }
+        valueIndex[hole] = EMPTY;
+        valueCount--;
+        garbage += VALUE_HEADER + arena.getInt(ref + 8);
+    }
+
+    private void resizeValues(final int capacity) {
+        final int[] hashes = this.valueHashes;
+        final int[] refs = this.valueIndex;
+        this.valueHashes = new int[capacity];
+        this.valueIndex = newTable(capacity);
+        for (int i = 0; i < refs.length; i++) {
+            if (EMPTY != refs[i]) {
+                insertValue(hashes[i], refs[i]);
+            }
+        }
+    }
+
+    private void insertValue(final int hash, final int ref) {
+        final int mask = valueIndex.length - 1;
+        int slot = hash & mask;
+        while (EMPTY != valueIndex[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        valueHashes[slot] = hash;
+        valueIndex[slot] = ref;
+    }
+
+    /**
+     * Copy the live records into a new arena once half of the current one is garbage. Each moved value leaves its
+     * new reference in place of its reference count, so that the keys are remapped without any side table.
+     */
+    private void compactIfNeeded() {
+        if (garbage < MIN_COMPACTION_BYTES || garbage < position / 2) {
+            return;
+        }
+        final ByteBuffer previous = this.arena;
+        final int live = position - garbage;
+        this.arena = ByteBuffer.allocateDirect(Math.max(MIN_COMPACTION_BYTES, live * 2));
+        this.position = 0;
+        this.garbage = 0;
+
+        for (int slot = 0; slot < valueIndex.length; slot++) {
+            final int ref = valueIndex[slot];
+            if (EMPTY != ref) {
+                final int length = VALUE_HEADER + previous.getInt(ref + 8);
+                final int moved = allocate(length);
+                copy(previous, ref, moved, length);
+                previous.putInt(ref, moved);
+                valueIndex[slot] = moved;
+            }
+        }
+        for (int slot = 0; slot < keyRefs.length; slot++) {
+            final int ref = keyRefs[slot];
+            if (EMPTY != ref) {
+                final int length = KEY_HEADER + previous.getInt(ref);
+                final int moved = allocate(length);
+                copy(previous, ref, moved, length);
+                keyRefs[slot] = moved;
+                valueRefs[slot] = previous.getInt(valueRefs[slot]);
+            }
+        }
+    }
+
+    private int allocate(final int length) {
+        if (length > arena.capacity() - position) {
+            final long required = (long) position + length;
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Property store exceeds 2 GB");
+            }
+            final int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, 2L * arena.capacity()));
+            final ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+            final ByteBuffer source = arena.duplicate();
+            // Through Buffer, the covariant position(int) and limit(int) of Java 9+ are missing on Java 8
+            ((Buffer) source).limit(position);
+            grown.put(source);
+            this.arena = grown;
+        }
+        final int ref = position;
+        position += length;
+        return ref;
+    }
+
+    private void copy(final ByteBuffer source, final int from, final int to, final int length) {
+        final ByteBuffer slice = source.duplicate();
+        ((Buffer) slice).position(from).limit(from + length);
+        final ByteBuffer target = arena.duplicate();
+        ((Buffer) target).position(to);
+        target.put(slice);
+    }
+
+    private void write(final int offset, final byte[] bytes) {
+        final ByteBuffer target = arena.duplicate();
+        ((Buffer) target).position(offset);
+        target.put(bytes);
+    }
+
+    /**
+     * @param offset the offset of a [length][bytes] sequence
+     */
+    private boolean matches(final int offset, final byte[] bytes) {
+        if (arena.getInt(offset) != bytes.length) {
+            return false;
+        }
+        final int start = offset + 4;
+        for (int i = 0; i < bytes.length; i++) {
+            if (arena.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readKey(final int ref) {
+        return decode(ref);
+    }
+
+    private String readValue(final int ref) {
+        return decode(ref + VALUE_HEADER - 4);
+    }
+
+    private String decode(final int offset) {
+        final byte[] bytes = new byte[arena.getInt(offset)];
+        final ByteBuffer source = arena.duplicate();
+        ((Buffer) source).position(offset + 4);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int hash(final byte[] bytes) {
+        int h = 1;
+        for (final byte b : bytes) {
+            h = 31 * h + b;
+        }
+        // Spread the low bits used by the tables
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static int tableSize(final int expectedSize) {
+        final int required = (int) Math.ceil(Math.max(1, expectedSize) / LOAD_FACTOR);
+        return Math.max(16, Integer.highestOneBit(required - 1) << 1);
+    }
+
+    private static int[] newTable(final int capacity) {
+        final int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
@@ -5,8 +5,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.PropertyPlaceholderHelper;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of a {@link MutablePropertyResolver} resolving properties with {@link PropertyPlaceholderHelper}.
@@ -15,6 +19,7 @@ import java.util.Set;
  *     project.property 		= PropertyValue
  *     project.property.substitue = ${project.property}
  * </pre>
+ * Properties are kept in a concurrent map by default, or in the given store, e.g. an {@link OffHeapPropertyStore}.
  */
 public class PropertiesPropertyResolver implements MutablePropertyResolver {
     private static final Logger log = LoggerFactory.getLogger(PropertiesPropertyResolver.class);
@@ -34,30 +39,40 @@ public class PropertiesPropertyResolver implements MutablePropertyResolver {
 
     private static final boolean ignoreUnresolvablePlaceholders = false;
 
-    private Properties properties;
+    private final Map<String, String> properties;
     private PropertyPlaceholderHelper strictHelper;
 
     public PropertiesPropertyResolver() {
-        this.properties = new Properties();
+        this(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @param store the map holding the properties, read concurrently with a single writer
+     */
+    public PropertiesPropertyResolver(final Map<String, String> store) {
+        Assert.notNull(store, "Property store must not be null");
+        this.properties = store;
         this.strictHelper = new PropertyPlaceholderHelper(PLACEHOLDER_PREFIX, PLACEHOLDER_SUFFIX,
                 VALUE_SEPARATOR, ignoreUnresolvablePlaceholders);
     }
 
     public void addProperties(Properties props) {
         if (null != props) {
-            this.properties.putAll(props);
+            for (final String key : props.stringPropertyNames()) {
+                this.properties.put(key, props.getProperty(key));
+            }
         }
     }
 
     @Override
     public Set<String> propertyNames() {
-        return this.properties.stringPropertyNames();
+        return Collections.unmodifiableSet(new HashSet<>(this.properties.keySet()));
     }
 
     @Override
     public Object setProperty(String key, String value) {
         Assert.notNull(key, "Property key must not be null");
-        return this.properties.setProperty(key, value);
+        return this.properties.put(key, value);
     }
 
     @Override
@@ -77,8 +92,24 @@ public class PropertiesPropertyResolver implements MutablePropertyResolver {
         return strictHelper.replacePlaceholders(text, this::getPropertyAsRawString);
     }
 
+    /**
+     * Return the unresolved property value associated with the given key without any logging,
+     * or {@code null} if the key not exists.
+     */
+    public final String getRawProperty(String key) {
+        return this.properties.get(key);
+    }
+
+    protected final void setRawProperty(String key, String value) {
+        this.properties.put(key, value);
+    }
+
+    protected final void removeRawProperty(String key) {
+        this.properties.remove(key);
+    }
+
     protected String getProperty(String key, boolean resolveNestedPlaceholders) {
-        String value = properties.getProperty(key);
+        String value = properties.get(key);
         if (value != null) {
             if (resolveNestedPlaceholders) {
                 value = resolvePlaceholders(value);
@@ -0,0 +1,96 @@
+package com.bytegen.common.reload.resolver;
+
+import org.springframework.util.Assert;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A named source of properties in a {@link LayeredPropertyResolver}.
+ * <p>
+ * Layers are ordered by precedence, then by position and name; for a given key the value of the highest layer
+ * defining it is the effective one. The standard precedences are, from lowest to highest:
+ * {@link #DEFAULTS} &lt; {@link #APPLICATION} &lt; {@link #HOST} &lt; {@link #RUNTIME}.
+ * </p>
+ */
+public final class PropertyLayer implements Comparable<PropertyLayer> {
+
+    /**
+     * Precedence of programmatic and packaged defaults
+     */
+    public static final int DEFAULTS = 0;
+    /**
+     * Precedence of the application resources, default of {@link com.bytegen.common.reload.ReloadResource}
+     */
+    public static final int APPLICATION = 100;
+    /**
+     * Precedence of host or environment specific override resources
+     */
+    public static final int HOST = 200;
+    /**
+     * Precedence of the values overridden at runtime, above any resource
+     */
+    public static final int RUNTIME = Integer.MAX_VALUE;
+
+    private static final Comparator<PropertyLayer> ORDER = Comparator
+            .comparingInt(PropertyLayer::getPrecedence)
+            .thenComparingInt(PropertyLayer::getPosition)
+            .thenComparing(PropertyLayer::getName);
+
+    private final String name;
+    private final int precedence;
+    private final int position;
+
+    /**
+     * @param name       the unique name of the layer, e.g. the description of its resource
+     * @param precedence the precedence of the layer, higher wins
+     * @param position   the position among layers of the same precedence, higher wins
+     */
+    public PropertyLayer(final String name, final int precedence, final int position) {
+        Assert.hasText(name, "Layer name must not be empty");
+        this.name = name;
+        this.precedence = precedence;
+        this.position = position;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getPrecedence() {
+        return this.precedence;
+    }
+
+    public int getPosition() {
+        return this.position;
+    }
+
+    @Override
+    public int compareTo(final PropertyLayer other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PropertyLayer that = (PropertyLayer) o;
+        return precedence == that.precedence &&
+                position == that.position &&
+                Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, precedence, position);
+    }
+
+    @Override
+    public String toString() {
+        return "{\"PropertyLayer\":{"
+                + "\"name\":\"" + name + "\""
+                + ", \"precedence\":" + precedence
+                + ", \"position\":" + position
+                + "}}";
+    }
+}
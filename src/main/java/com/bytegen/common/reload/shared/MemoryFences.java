@@ -0,0 +1,76 @@
+package com.bytegen.common.reload.shared;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Fences ordering the plain accesses of {@link SharedSnapshotFile} to its mapping, which the compiler and the
+ * processor may otherwise reorder around the sequence reads and writes.
+ * <p>
+ * This is the Java 8 implementation, backed by the fences of {@code sun.misc.Unsafe}. When Unsafe is not
+ * accessible it falls back to a volatile write and read, a full fence on the usual JVMs. The multi-release jar
+ * ships a Java 21 implementation under {@code META-INF/versions/21} using {@code VarHandle} fences.
+ * </p>
+ */
+final class MemoryFences {
+
+    private static final MethodHandle LOAD_FENCE;
+    private static final MethodHandle STORE_FENCE;
+
+    private static volatile int fence;
+
+    static {
+        MethodHandle loadFence;
+        MethodHandle storeFence;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodType fenceType = MethodType.methodType(void.class);
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            loadFence = lookup.findVirtual(unsafeClass, "loadFence", fenceType).bindTo(unsafe);
+            storeFence = lookup.findVirtual(unsafeClass, "storeFence", fenceType).bindTo(unsafe);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            try {
+                loadFence = lookup.findStatic(MemoryFences.class, "volatileFence", fenceType);
+                storeFence = loadFence;
+            } catch (final ReflectiveOperationException unexpected) {
+                throw new ExceptionInInitializerError(unexpected);
+            }
+        }
+        LOAD_FENCE = loadFence;
+        STORE_FENCE = storeFence;
+    }
+
+    private MemoryFences() {
+    }
+
+    /**
+     * Loads before the fence are not reordered with loads and stores after it.
+     */
+    static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads and stores before the fence are not reordered with stores after it.
+     */
+    static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void volatileFence() {
+        fence = fence + 1;
+    }
+}
@@ -0,0 +1,201 @@
+package com.bytegen.common.reload.shared;
+
+import com.bytegen.common.reload.core.PropertiesFileWatcher;
+import com.bytegen.common.reload.core.ReloadExecutors;
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.core.ResourceDirectory;
+import com.bytegen.common.reload.event.EventPublisher;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the reloadable properties between the processes of one host.
+ * <p>
+ * The process holding the lock file ({@code <snapshot>.lock}) is the leader: it watches the resources and publishes
+ * every change into the {@link SharedSnapshotFile}. The other processes do not watch nor parse the resources, they
+ * poll the version of the snapshot and apply new versions. When the leader dies the lock is released by the
+ * operating system and the next follower acquiring it takes over.
+ * </p>
+ */
+public class SharedSnapshotCoordinator {
+    private static Logger log = LoggerFactory.getLogger(SharedSnapshotCoordinator.class);
+
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 500L;
+
+    private final Path snapshotPath;
+    private final long pollIntervalMillis;
+    private final EventPublisher eventPublisher;
+    private final LayeredPropertyResolver propertyResolver;
+    private final Set<EncodedResource> locations;
+    private final Set<ResourceDirectory> directories;
+
+    private SharedSnapshotFile snapshotFile;
+    private FileChannel lockChannel;
+    private volatile FileLock lock;
+    private ExecutorService service;
+    private PropertiesFileWatcher watcher;
+    private Runnable resumeListener;
+    private long appliedVersion;
+
+    public SharedSnapshotCoordinator(final Path snapshotPath,
+                                     final long pollIntervalMillis,
+                                     final EventPublisher eventPublisher,
+                                     final LayeredPropertyResolver propertyResolver,
+                                     final Set<EncodedResource> locations) {
+        this(snapshotPath, pollIntervalMillis, eventPublisher, propertyResolver, locations, Collections.emptySet());
+    }
+
+    public SharedSnapshotCoordinator(final Path snapshotPath,
+                                     final long pollIntervalMillis,
+                                     final EventPublisher eventPublisher,
+                                     final LayeredPropertyResolver propertyResolver,
+                                     final Set<EncodedResource> locations,
+                                     final Set<ResourceDirectory> directories) {
+        Assert.notNull(snapshotPath, "Snapshot path can not be null");
+        Assert.isTrue(pollIntervalMillis > 0, "Poll interval must be positive");
+        Assert.notNull(eventPublisher, "Event publisher can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+        Assert.isTrue(!locations.isEmpty() || !directories.isEmpty(), "Resource locations is empty...");
+
+        this.snapshotPath = snapshotPath;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.eventPublisher = eventPublisher;
+        this.propertyResolver = propertyResolver;
+        this.locations = locations;
+        this.directories = directories;
+    }
+
+    public synchronized void start() throws IOException {
+        this.snapshotFile = new SharedSnapshotFile(this.snapshotPath);
+        this.lockChannel = FileChannel.open(Paths.get(this.snapshotPath + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.service = ReloadExecutors.newExecutor("auto-reload-shared-snapshot");
+
+        if (!tryLead()) {
+            log.info("Following shared snapshot [{}]", this.snapshotPath);
+            this.service.submit(this::follow);
+        }
+    }
+
+    public synchronized void stop() {
+        if (null != this.watcher) {
+            this.watcher.stop();
+        }
+        if (null != this.resumeListener) {
+            ((ReloadPropertyEventPublisher) this.eventPublisher).removeResumeListener(this.resumeListener);
+        }
+        if (null != this.service) {
+            this.service.shutdownNow();
+        }
+        try {
+            if (null != this.lock) {
+                this.lock.release();
+            }
+            if (null != this.lockChannel) {
+                this.lockChannel.close();
+            }
+            if (null != this.snapshotFile) {
+                this.snapshotFile.close();
+            }
+        } catch (final IOException e) {
+            log.error("Unable to stop shared snapshot coordinator", e);
+        }
+    }
+
+    /**
+     * @return the file watcher of this process while it leads, {@code null} otherwise
+     */
+    public synchronized PropertiesFileWatcher getWatcher() {
+        return this.watcher;
+    }
+
+    public boolean isLeader() {
+        return null != this.lock && this.lock.isValid();
+    }
+
+    private synchronized boolean tryLead() throws IOException {
+        try {
+            this.lock = this.lockChannel.tryLock();
+        } catch (final OverlappingFileLockException e) {
+            this.lock = null;
+        }
+        if (null == this.lock) {
+            return false;
+        }
+
+        log.info("Leading shared snapshot [{}], start watching for properties file changes", this.snapshotPath);
+        final SharedSnapshotPublisher publisher = new SharedSnapshotPublisher(this.eventPublisher, this.propertyResolver, this.snapshotFile);
+        if (this.eventPublisher instanceof ReloadPropertyEventPublisher) {
+            // Changes queued while frozen reach the followers once applied
+            this.resumeListener = publisher::publishSnapshot;
+            ((ReloadPropertyEventPublisher) this.eventPublisher).addResumeListener(this.resumeListener);
+        }
+        // Watch before catching up with the changes made while no process was leading, a change made meanwhile is
+        // either read by the catch up or published by the watcher afterwards
+        this.watcher = new PropertiesFileWatcher(this.locations, this.directories, publisher);
+        this.watcher.startWatching();
+        for (final EncodedResource resource : this.locations) {
+            final String layerName = PropertiesFileWatcher.getLayerName(resource);
+            if (null != this.propertyResolver.getLayer(layerName)) {
+                this.watcher.reload(layerName);
+            }
+        }
+        publisher.publishSnapshot();
+        return true;
+    }
+
+    private void follow() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                applySnapshot();
+                TimeUnit.MILLISECONDS.sleep(this.pollIntervalMillis);
+                if (tryLead()) {
+                    return;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final Exception e) {
+                log.error("Exception thrown when following shared snapshot " + this.snapshotPath, e);
+            }
+        }
+    }
+
+    private void applySnapshot() throws IOException {
+        final long version = this.snapshotFile.getVersion();
+        if (version == this.appliedVersion) {
+            return;
+        }
+
+        final SharedSnapshotFile.Snapshot snapshot = this.snapshotFile.read();
+        if (null != snapshot) {
+            log.info("Applying shared snapshot version [{}] from [{}]", snapshot.getVersion(), this.snapshotPath);
+            final Map<PropertyLayer, Properties> layers = SharedSnapshotPublisher.decode(snapshot.getPayload());
+            this.eventPublisher.onPropertyChanged(layers);
+            // Layers retracted by the leader, e.g. deleted files of a directory location
+            for (final PropertyLayer layer : this.propertyResolver.getLayers()) {
+                if (!layers.containsKey(layer) && !LayeredPropertyResolver.RUNTIME_LAYER.equals(layer.getName())) {
+                    this.eventPublisher.onLayerRemoved(layer.getName());
+                }
+            }
+            this.appliedVersion = snapshot.getVersion();
+        }
+    }
+}
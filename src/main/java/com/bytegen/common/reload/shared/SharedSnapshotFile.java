@@ -0,0 +1,193 @@
+package com.bytegen.common.reload.shared;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned snapshot stored in a memory-mapped file, written by one process and read by many.
+ * <p>
+ * The header works as a seqlock: the writer makes the sequence odd before touching the payload and even again once
+ * done, readers copy the payload and only accept it if the sequence was even and unchanged around the copy. A CRC32
+ * of the payload is stored as well, so that a torn read is never accepted. The published version is half the
+ * sequence, checking it for new snapshots costs a single read of the mapping.
+ * </p>
+ * <p>
+ * Accesses to the mapping are plain, {@link MemoryFences} keep the payload accesses between the two sequence
+ * accesses on both sides. The sequence is 8-byte aligned so that it is read and written at once.
+ * </p>
+ * <pre>
+ * | magic (4) | format (4) | sequence (8) | length (4) | reserved (4) | crc32 (8) | ... | payload (from 64) |
+ * </pre>
+ */
+public class SharedSnapshotFile implements Closeable {
+
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x524c4453; // "RLDS"
+    private static final int FORMAT = 2;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int READ_ATTEMPTS = 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+
+    public SharedSnapshotFile(final Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(Math.max(this.channel.size(), HEADER_SIZE + INITIAL_CAPACITY));
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * @return the version of the last completely written snapshot, {@code 0} if none was written
+     */
+    public long getVersion() {
+        final MappedByteBuffer mapped = this.buffer;
+        if (mapped.getInt(MAGIC_OFFSET) != MAGIC) {
+            return 0L;
+        }
+        return mapped.getLong(SEQUENCE_OFFSET) >>> 1;
+    }
+
+    /**
+     * Publish the given payload as a new version, only one process may write at a time.
+     *
+     * @return the published version
+     */
+    public synchronized long write(final byte[] payload) throws IOException {
+        if (this.buffer.capacity() < HEADER_SIZE + payload.length) {
+            map(HEADER_SIZE + Math.max(payload.length * 2L, INITIAL_CAPACITY));
+        }
+        final MappedByteBuffer mapped = this.buffer;
+
+        long sequence = (mapped.getInt(MAGIC_OFFSET) == MAGIC) ? mapped.getLong(SEQUENCE_OFFSET) : 0L;
+        if ((sequence & 1L) != 0L) {
+            // A previous writer died while writing
+            sequence++;
+        }
+        mapped.putLong(SEQUENCE_OFFSET, sequence + 1);
+        // Readers must see the odd sequence before any byte of the new payload
+        MemoryFences.storeFence();
+
+        final CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        mapped.putInt(MAGIC_OFFSET, MAGIC);
+        mapped.putInt(FORMAT_OFFSET, FORMAT);
+        mapped.putInt(LENGTH_OFFSET, payload.length);
+        mapped.putLong(CHECKSUM_OFFSET, checksum.getValue());
+        // Through ByteBuffer and Buffer, the covariant duplicate() and position(int) of newer JDKs are missing on Java 8
+        final ByteBuffer target = ((ByteBuffer) mapped).duplicate();
+        ((Buffer) target).position(HEADER_SIZE);
+        target.put(payload);
+
+        // And the whole payload before the even sequence
+        MemoryFences.storeFence();
+        mapped.putLong(SEQUENCE_OFFSET, sequence + 2);
+        return (sequence + 2) >>> 1;
+    }
+
+    /**
+     * @return the last completely written snapshot, or {@code null} if none is available or a consistent copy could
+     * not be taken because of concurrent writes
+     */
+    public Snapshot read() throws IOException {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            final Snapshot snapshot = tryRead();
+            if (null != snapshot) {
+                return snapshot;
+            }
+            Thread.yield();
+        }
+        return null;
+    }
+
+    private Snapshot tryRead() throws IOException {
+        MappedByteBuffer mapped = this.buffer;
+        if (mapped.getInt(MAGIC_OFFSET) != MAGIC || mapped.getInt(FORMAT_OFFSET) != FORMAT) {
+            return null;
+        }
+
+        final long sequence = mapped.getLong(SEQUENCE_OFFSET);
+        if ((sequence & 1L) != 0L) {
+            return null;
+        }
+        // The header and payload must not be read before the sequence
+        MemoryFences.loadFence();
+        final int length = mapped.getInt(LENGTH_OFFSET);
+        final long expectedChecksum = mapped.getLong(CHECKSUM_OFFSET);
+        if (length < 0) {
+            return null;
+        }
+        if (mapped.capacity() < HEADER_SIZE + length) {
+            // The writer has grown the file
+            if (this.channel.size() < HEADER_SIZE + length) {
+                return null;
+            }
+            map(this.channel.size());
+            mapped = this.buffer;
+        }
+
+        final byte[] payload = new byte[length];
+        final ByteBuffer source = ((ByteBuffer) mapped).duplicate();
+        ((Buffer) source).position(HEADER_SIZE);
+        source.get(payload);
+
+        // Nor after the sequence is read again
+        MemoryFences.loadFence();
+        if (mapped.getLong(SEQUENCE_OFFSET) != sequence) {
+            return null;
+        }
+        final CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        if (checksum.getValue() != expectedChecksum) {
+            return null;
+        }
+        return new Snapshot(sequence >>> 1, payload);
+    }
+
+    private synchronized void map(final long size) throws IOException {
+        if (null == this.buffer || this.buffer.capacity() < size) {
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    public static class Snapshot {
+        private final long version;
+        private final byte[] payload;
+
+        Snapshot(final long version, final byte[] payload) {
+            this.version = version;
+            this.payload = payload;
+        }
+
+        public long getVersion() {
+            return this.version;
+        }
+
+        public byte[] getPayload() {
+            return this.payload;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bytegen.common.reload.shared;
+
+import com.bytegen.common.reload.event.EventPublisher;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * {@link EventPublisher} of the process owning the shared snapshot: applies the changes locally, then publishes
+ * every layer of the resolver into the {@link SharedSnapshotFile} for the other processes of the host.
+ */
+public class SharedSnapshotPublisher implements EventPublisher {
+    private static Logger log = LoggerFactory.getLogger(SharedSnapshotPublisher.class);
+
+    private final EventPublisher delegate;
+    private final LayeredPropertyResolver propertyResolver;
+    private final SharedSnapshotFile snapshotFile;
+
+    public SharedSnapshotPublisher(EventPublisher delegate,
+                                   LayeredPropertyResolver propertyResolver,
+                                   SharedSnapshotFile snapshotFile) {
+        Assert.notNull(delegate, "Event publisher can not be null");
+        Assert.notNull(propertyResolver, "Property resolver must not be null");
+        Assert.notNull(snapshotFile, "Snapshot file can not be null");
+
+        this.delegate = delegate;
+        this.propertyResolver = propertyResolver;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @Override
+    public void onPropertyChanged(final String layerName, final Properties properties) {
+        this.delegate.onPropertyChanged(layerName, properties);
+        publishSnapshot();
+    }
+
+    @Override
+    public void onPropertyChanged(final Map<PropertyLayer, Properties> layers) {
+        this.delegate.onPropertyChanged(layers);
+        publishSnapshot();
+    }
+
+    @Override
+    public void onPropertyUpdated(final String layerName, final Map<String, String> changes) {
+        this.delegate.onPropertyUpdated(layerName, changes);
+        publishSnapshot();
+    }
+
+    @Override
+    public void onLayerRemoved(final String layerName) {
+        this.delegate.onLayerRemoved(layerName);
+        publishSnapshot();
+    }
+
+    /**
+     * Write the current layers of the resolver as a new snapshot version.
+     */
+    public synchronized void publishSnapshot() {
+        final Map<PropertyLayer, Map<String, String>> snapshot = new LinkedHashMap<>();
+        for (final PropertyLayer layer : this.propertyResolver.getLayers()) {
+            // Runtime overrides only apply to the process setting them
+            if (!LayeredPropertyResolver.RUNTIME_LAYER.equals(layer.getName())) {
+                snapshot.put(layer, this.propertyResolver.getLayerProperties(layer.getName()));
+            }
+        }
+
+        try {
+            final long version = this.snapshotFile.write(encode(snapshot));
+            log.info("Published shared snapshot version [{}] with [{}] layers to [{}]",
+                    version, snapshot.size(), this.snapshotFile.getPath());
+        } catch (final IOException e) {
+            log.error("Unable to publish shared snapshot to " + this.snapshotFile.getPath(), e);
+        }
+    }
+
+    static byte[] encode(final Map<PropertyLayer, Map<String, String>> layers) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(layers.size());
+        for (final Map.Entry<PropertyLayer, Map<String, String>> layer : layers.entrySet()) {
+            writeString(out, layer.getKey().getName());
+            out.writeInt(layer.getKey().getPrecedence());
+            out.writeInt(layer.getKey().getPosition());
+            out.writeInt(layer.getValue().size());
+            for (final Map.Entry<String, String> entry : layer.getValue().entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Map<PropertyLayer, Properties> decode(final byte[] payload) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final Map<PropertyLayer, Properties> layers = new LinkedHashMap<>();
+        final int layerCount = in.readInt();
+        for (int i = 0; i < layerCount; i++) {
+            final PropertyLayer layer = new PropertyLayer(readString(in), in.readInt(), in.readInt());
+            final Properties properties = new Properties();
+            final int size = in.readInt();
+            for (int j = 0; j < size; j++) {
+                properties.setProperty(readString(in), readString(in));
+            }
+            layers.put(layer, properties);
+        }
+        return layers;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,280 @@
+package com.bytegen.common.reload.zookeeper;
+
+import com.bytegen.common.reload.event.EventPublisher;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a ZooKeeper subtree as one property layer, without going through a local file.
+ * <p>
+ * Every znode below the root holding data is a property, its path relative to the root with {@code /} replaced by
+ * {@code .} being the key, e.g. {@code /config/app/db/url} is {@code db.url} for the root {@code /config/app}.
+ * A persistent recursive watch (ZooKeeper 3.6+) on the root pushes only the changed znodes to the layer.
+ * </p>
+ * <p>
+ * The subtree is read again once reconnected and on a new session after expiry, and only its difference with the
+ * published content is applied.
+ * </p>
+ */
+public class ZooKeeperPropertiesWatcher implements Watcher, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ZooKeeperPropertiesWatcher.class);
+
+    public static final int DEFAULT_SESSION_TIMEOUT_MILLIS = 30000;
+
+    private static final String PATH_SEPARATOR = "/";
+    private static final String KEY_SEPARATOR = ".";
+
+    private final String connectString;
+    private final String rootPath;
+    private final int sessionTimeoutMillis;
+    private final EventPublisher publisher;
+    private final PropertyLayer layer;
+
+    /**
+     * Content published to the layer, only accessed under the watcher lock
+     */
+    private final Map<String, String> published = new HashMap<>();
+    private final CountDownLatch connected = new CountDownLatch(1);
+
+    private volatile ZooKeeper zooKeeper;
+    private volatile boolean closed;
+    private boolean watching;
+    private boolean resyncRequired;
+
+    public ZooKeeperPropertiesWatcher(final String connectString, final String rootPath, final int sessionTimeoutMillis,
+                                      final EventPublisher publisher, final PropertyLayer layer) {
+        Assert.hasText(connectString, "ZooKeeper connect string must not be empty");
+        Assert.isTrue(null != rootPath && rootPath.startsWith(PATH_SEPARATOR), "ZooKeeper root must be an absolute path");
+        Assert.notNull(publisher, "Event publisher must not be null");
+        Assert.notNull(layer, "Property layer must not be null");
+
+        this.connectString = connectString;
+        this.rootPath = (rootPath.length() > 1 && rootPath.endsWith(PATH_SEPARATOR))
+                ? rootPath.substring(0, rootPath.length() - 1) : rootPath;
+        this.sessionTimeoutMillis = sessionTimeoutMillis;
+        this.publisher = publisher;
+        this.layer = layer;
+    }
+
+    /**
+     * Connect, watch the root and publish its initial content as the layer.
+     *
+     * @param connectTimeoutMillis the maximum time to wait for the first connection
+     */
+    public void start(final long connectTimeoutMillis) throws IOException, InterruptedException, KeeperException {
+        this.zooKeeper = new ZooKeeper(this.connectString, this.sessionTimeoutMillis, this);
+        if (!this.connected.await(connectTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            close();
+            throw new IOException("Unable to connect to ZooKeeper [" + this.connectString + "] in " + connectTimeoutMillis + "ms");
+        }
+
+        synchronized (this) {
+            watch();
+            final Map<String, String> content = readTree();
+            final Properties properties = new Properties();
+            properties.putAll(content);
+            this.publisher.onPropertyChanged(Collections.singletonMap(this.layer, properties));
+            this.published.clear();
+            this.published.putAll(content);
+        }
+        log.info("Watching ZooKeeper [{}{}] as property layer [{}]", this.connectString, this.rootPath, this.layer.getName());
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        final ZooKeeper current = this.zooKeeper;
+        if (null != current) {
+            try {
+                current.close();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Invoked on the ZooKeeper event thread, for session state changes as well as watched znodes.
+     */
+    @Override
+    public synchronized void process(final WatchedEvent event) {
+        if (this.closed) {
+            return;
+        }
+        try {
+            if (Event.EventType.None == event.getType()) {
+                onStateChanged(event.getState());
+            } else if (null != event.getPath()) {
+                onNodeChanged(event.getType(), event.getPath());
+            }
+        } catch (final KeeperException e) {
+            // Connection loss is followed by a Disconnected event, the next connection resyncs the subtree
+            this.resyncRequired = true;
+            log.error(String.format("Unable to process ZooKeeper event [%s] of [%s]", event.getType(), event.getPath()), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void onStateChanged(final Event.KeeperState state) throws KeeperException, InterruptedException {
+        switch (state) {
+            case SyncConnected:
+                if (this.watching && this.resyncRequired) {
+                    resync();
+                } else if (!this.watching && this.connected.getCount() == 0) {
+                    // New session after expiry
+                    watch();
+                    resync();
+                }
+                this.connected.countDown();
+                break;
+            case Disconnected:
+                // Watches are restored with the session, but changes made meanwhile may be missed
+                this.resyncRequired = true;
+                break;
+            case Expired:
+                log.warn("ZooKeeper session expired, reconnecting to [{}]", this.connectString);
+                this.watching = false;
+                reconnect();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onNodeChanged(final Event.EventType type, final String path) throws KeeperException, InterruptedException {
+        final String key = toKey(path);
+        if (null == key) {
+            return;
+        }
+
+        final String value;
+        if (Event.EventType.NodeDeleted == type) {
+            value = null;
+        } else if (Event.EventType.NodeCreated == type || Event.EventType.NodeDataChanged == type) {
+            value = readNode(path);
+        } else {
+            return;
+        }
+        applyChanges(Collections.singletonMap(key, value));
+    }
+
+    private void reconnect() {
+        final ZooKeeper expired = this.zooKeeper;
+        try {
+            expired.close();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.zooKeeper = new ZooKeeper(this.connectString, this.sessionTimeoutMillis, this);
+        } catch (final IOException e) {
+            log.error("Unable to reconnect to ZooKeeper [" + this.connectString + "]", e);
+        }
+    }
+
+    private void watch() throws KeeperException, InterruptedException {
+        this.zooKeeper.addWatch(this.rootPath, this, AddWatchMode.PERSISTENT_RECURSIVE);
+        this.watching = true;
+    }
+
+    private void resync() throws KeeperException, InterruptedException {
+        final Map<String, String> content = readTree();
+        final Map<String, String> changes = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> entry : content.entrySet()) {
+            if (!entry.getValue().equals(this.published.get(entry.getKey()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (final String key : this.published.keySet()) {
+            if (!content.containsKey(key)) {
+                changes.put(key, null);
+            }
+        }
+        this.resyncRequired = false;
+        log.info("Resynchronized ZooKeeper [{}], {} properties changed", this.rootPath, changes.size());
+        applyChanges(changes);
+    }
+
+    private void applyChanges(final Map<String, String> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        this.publisher.onPropertyUpdated(this.layer.getName(), changes);
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            if (null == change.getValue()) {
+                this.published.remove(change.getKey());
+            } else {
+                this.published.put(change.getKey(), change.getValue());
+            }
+        }
+    }
+
+    private Map<String, String> readTree() throws KeeperException, InterruptedException {
+        final Map<String, String> content = new HashMap<>();
+        readTree(this.rootPath, content);
+        return content;
+    }
+
+    private void readTree(final String path, final Map<String, String> content) throws KeeperException, InterruptedException {
+        final String key = toKey(path);
+        if (null != key) {
+            final String value = readNode(path);
+            if (null != value) {
+                content.put(key, value);
+            }
+        }
+
+        final List<String> children;
+        try {
+            children = this.zooKeeper.getChildren(path, false);
+        } catch (final KeeperException.NoNodeException e) {
+            return;
+        }
+        for (final String child : children) {
+            readTree(PATH_SEPARATOR.equals(path) ? path + child : path + PATH_SEPARATOR + child, content);
+        }
+    }
+
+    /**
+     * @return the data of the given znode, {@code null} if absent or empty
+     */
+    private String readNode(final String path) throws KeeperException, InterruptedException {
+        try {
+            final byte[] data = this.zooKeeper.getData(path, false, null);
+            return (null == data || data.length == 0) ? null : new String(data, StandardCharsets.UTF_8);
+        } catch (final KeeperException.NoNodeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the property key of the given znode, {@code null} for the root or a path outside of it
+     */
+    String toKey(final String path) {
+        final String prefix = PATH_SEPARATOR.equals(this.rootPath) ? this.rootPath : this.rootPath + PATH_SEPARATOR;
+        if (!path.startsWith(prefix) || path.length() == prefix.length()) {
+            return null;
+        }
+        return path.substring(prefix.length()).replace(PATH_SEPARATOR, KEY_SEPARATOR);
+    }
+}
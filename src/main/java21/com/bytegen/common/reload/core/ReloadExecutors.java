@@ -0,0 +1,58 @@
+package com.bytegen.common.reload.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Factory of the executors running watchers, polling sources and asynchronous dispatch.
+ * <p>
+ * This is the Java 21 implementation, every task runs on its own virtual thread so that blocking watchers,
+ * polling I/O and slow listeners do not hold platform threads. Virtual threads can be disabled with the
+ * {@value #VIRTUAL_THREADS} system property, falling back to the Java 8 behaviour.
+ * </p>
+ */
+public final class ReloadExecutors {
+
+    /**
+     * System property disabling virtual threads on Java 21+, e.g. {@code -Dauto-reload.virtual-threads=false}
+     */
+    public static final String VIRTUAL_THREADS = "auto-reload.virtual-threads";
+
+    private static final boolean VIRTUAL = !"false".equalsIgnoreCase(System.getProperty(VIRTUAL_THREADS));
+
+    private ReloadExecutors() {
+    }
+
+    /**
+     * @param name the name prefix of the threads
+     * @return an executor starting a new virtual thread per task, or caching named daemon threads if disabled
+     */
+    public static ExecutorService newExecutor(final String name) {
+        if (!VIRTUAL) {
+            // Named daemon threads, as on Java 8
+            return Executors.newCachedThreadPool(Thread.ofPlatform().name(name + "-", 0).daemon().factory());
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+
+    /**
+     * @param name the name prefix of the thread
+     * @return a scheduler running delayed tasks on a single virtual thread, cancelled tasks being removed at once
+     */
+    public static ScheduledExecutorService newScheduledExecutor(final String name) {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, VIRTUAL
+                ? Thread.ofVirtual().name(name + "-", 0).factory()
+                : Thread.ofPlatform().name(name + "-", 0).daemon().factory());
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * @return whether tasks submitted to {@link #newExecutor(String)} run on virtual threads
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+}
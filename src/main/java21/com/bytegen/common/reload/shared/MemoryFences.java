@@ -0,0 +1,30 @@
+package com.bytegen.common.reload.shared;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fences ordering the plain accesses of {@link SharedSnapshotFile} to its mapping, which the compiler and the
+ * processor may otherwise reorder around the sequence reads and writes.
+ * <p>
+ * This is the Java 21 implementation, backed by the {@link VarHandle} fences.
+ * </p>
+ */
+final class MemoryFences {
+
+    private MemoryFences() {
+    }
+
+    /**
+     * Loads before the fence are not reordered with loads and stores after it.
+     */
+    static void loadFence() {
+        VarHandle.acquireFence();
+    }
+
+    /**
+     * Loads and stores before the fence are not reordered with stores after it.
+     */
+    static void storeFence() {
+        VarHandle.releaseFence();
+    }
+}
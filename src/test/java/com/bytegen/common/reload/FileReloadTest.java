@@ -1,6 +1,7 @@
 package com.bytegen.common.reload;
 
 import com.bytegen.common.reload.bean.ReloadingPropertyBean;
+import com.bytegen.common.reload.core.ReloadSourcePropertySupport;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +18,7 @@ import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
@@ -30,6 +32,8 @@ public class FileReloadTest {
 
     @Resource
     ReloadingPropertyBean reloadingPropertyBean;
+    @Resource
+    ReloadSourcePropertySupport reloadSourcePropertySupport;
 
     private static final String DIR = "target/test-classes/";
     private static final String PROPERTIES = "application.properties";
@@ -56,8 +60,9 @@ public class FileReloadTest {
 
         final OutputStream newOutputStream = Files.newOutputStream(new File(DIR + PROPERTIES).toPath(), new OpenOption[]{});
         this.loadedProperties.store(newOutputStream, null);
+        newOutputStream.close();
 
-        Thread.sleep(3000); // this is a hack
+        awaitApplied();
         assertThat(this.reloadingPropertyBean.getStringProperty(), is("Injected String Value"));
         assertThat(this.reloadingPropertyBean.getCompositeStringProperty(), is("Hello, World!"));
     }
@@ -74,7 +79,7 @@ public class FileReloadTest {
         newOutputStream.flush();
         newOutputStream.close();
 
-        Thread.sleep(3000); // this is a hack
+        awaitApplied();
         assertThat(this.reloadingPropertyBean.getStringProperty(), is("Altered Injected String Value"));
     }
 
@@ -91,7 +96,7 @@ public class FileReloadTest {
         newOutputStream.flush();
         newOutputStream.close();
 
-        Thread.sleep(3000); // this is a hack
+        awaitApplied();
         assertThat(this.reloadingPropertyBean.getCompositeStringProperty(), is("Goodbye, World!"));
     }
 
@@ -108,7 +113,7 @@ public class FileReloadTest {
         newOutputStream.flush();
         newOutputStream.close();
 
-        Thread.sleep(3000);
+        awaitApplied();
         assertThat(this.reloadingPropertyBean.getCompositeStringProperty(), is("Hello, Universe!"));
     }
 
@@ -124,7 +129,11 @@ public class FileReloadTest {
         newOutputStream.flush();
         newOutputStream.close();
 
-        Thread.sleep(3000);
+        awaitApplied();
         assertThat(this.reloadingPropertyBean.getListProperty(), is(Arrays.asList("Altered Value1", "Altered Value2", "Altered Value3")));
     }
+
+    private void awaitApplied() throws Exception {
+        this.reloadSourcePropertySupport.awaitApplied(DIR + PROPERTIES, 10, TimeUnit.SECONDS).get();
+    }
 }
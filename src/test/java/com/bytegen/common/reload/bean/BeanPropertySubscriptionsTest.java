@@ -0,0 +1,46 @@
+package com.bytegen.common.reload.bean;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+public class BeanPropertySubscriptionsTest {
+
+    private String value;
+
+    @Test
+    public void subscribe() throws Exception {
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        Field field = BeanPropertySubscriptionsTest.class.getDeclaredField("value");
+        BeanPropertySubscriptionsTest bean = new BeanPropertySubscriptionsTest();
+
+        subscriptions.subscribe("${key}", bean, field);
+        subscriptions.subscribe("${key}", bean, field);
+
+        Assert.assertThat(subscriptions.getSubscribers("${key}").size(), CoreMatchers.is(1));
+        Assert.assertSame(bean, subscriptions.getSubscribers("${key}").get(0).getBean());
+        Assert.assertTrue(subscriptions.getSubscribers("${other}").isEmpty());
+    }
+
+    @Test
+    public void expungeCollectedBeans() throws Exception {
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        Field field = BeanPropertySubscriptionsTest.class.getDeclaredField("value");
+        BeanPropertySubscriptionsTest bean = new BeanPropertySubscriptionsTest();
+
+        subscriptions.subscribe("${key}", bean, field);
+        for (int i = 0; i < 100; i++) {
+            subscriptions.subscribe("${key}", new BeanPropertySubscriptionsTest(), field);
+        }
+
+        for (int i = 0; i < 50 && subscriptions.getSubscribers("${key}").size() > 1; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        Assert.assertThat(subscriptions.getSubscribers("${key}").size(), CoreMatchers.is(1));
+        Assert.assertSame(bean, subscriptions.getSubscribers("${key}").get(0).getBean());
+    }
+}
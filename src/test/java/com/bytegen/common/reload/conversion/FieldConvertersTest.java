@@ -0,0 +1,93 @@
+package com.bytegen.common.reload.conversion;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+public class FieldConvertersTest {
+
+    private int count;
+    private Long size;
+    private Duration timeout;
+    private TimeUnit unit;
+    private Pattern pattern;
+    private InetSocketAddress address;
+    private List<Integer> ports;
+    @Separator(";")
+    private Set<String> names;
+    @Separator(value = ";", keyValue = ":")
+    private Map<String, Duration> timeouts;
+    private List<Object[]> unsupported;
+
+    @Test
+    public void convertScalars() throws Exception {
+        Assert.assertThat(convert("count", " 42 "), CoreMatchers.is((Object) 42));
+        Assert.assertThat(convert("count", "0x10"), CoreMatchers.is((Object) 16));
+        Assert.assertThat(convert("count", " "), CoreMatchers.nullValue());
+        Assert.assertThat(convert("size", "-7"), CoreMatchers.is((Object) (-7L)));
+        Assert.assertThat(convert("unit", "seconds"), CoreMatchers.is((Object) TimeUnit.SECONDS));
+        Assert.assertThat(((Pattern) convert("pattern", "a+b")).matcher("aab").matches(), CoreMatchers.is(true));
+
+        InetSocketAddress address = (InetSocketAddress) convert("address", "[::1]:8080");
+        Assert.assertThat(address.getHostString(), CoreMatchers.is("::1"));
+        Assert.assertThat(address.getPort(), CoreMatchers.is(8080));
+        Assert.assertThat(((InetSocketAddress) convert("address", "db.local:5432")).getHostString(), CoreMatchers.is("db.local"));
+    }
+
+    @Test
+    public void parseDurationsAndSizes() {
+        Assert.assertThat(FieldConverters.parseDuration("500ms"), CoreMatchers.is(Duration.ofMillis(500)));
+        Assert.assertThat(FieldConverters.parseDuration("10s"), CoreMatchers.is(Duration.ofSeconds(10)));
+        Assert.assertThat(FieldConverters.parseDuration("2h"), CoreMatchers.is(Duration.ofHours(2)));
+        Assert.assertThat(FieldConverters.parseDuration("250"), CoreMatchers.is(Duration.ofMillis(250)));
+        Assert.assertThat(FieldConverters.parseDuration("PT1M"), CoreMatchers.is(Duration.ofMinutes(1)));
+        Assert.assertThat(FieldConverters.parseDataSize("64KB"), CoreMatchers.is(64L * 1024));
+        Assert.assertThat(FieldConverters.parseDataSize("10 MB"), CoreMatchers.is(10L * 1024 * 1024));
+        Assert.assertThat(FieldConverters.parseDataSize("512"), CoreMatchers.is(512L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownUnit() {
+        FieldConverters.parseDuration("10 parsecs");
+    }
+
+    @Test
+    public void convertCollections() throws Exception {
+        Assert.assertThat(convert("ports", "80, 443"), CoreMatchers.is((Object) Arrays.asList(80, 443)));
+        Assert.assertThat(convert("names", "a;b;a"), CoreMatchers.is((Object) new LinkedHashSet<>(Arrays.asList("a", "b"))));
+        Assert.assertThat(((List<?>) convert("ports", "")).isEmpty(), CoreMatchers.is(true));
+
+        Map<String, Duration> timeouts = new LinkedHashMap<>();
+        timeouts.put("read", Duration.ofSeconds(1));
+        timeouts.put("write", Duration.ofMillis(200));
+        Assert.assertThat(convert("timeouts", "read:1s; write:200ms"), CoreMatchers.is((Object) timeouts));
+
+        Assert.assertThat(FieldConverters.forField(FieldConvertersTest.class.getDeclaredField("unsupported")), CoreMatchers.nullValue());
+    }
+
+    @Test
+    public void selectOncePerField() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache(0, false);
+        Field field = FieldConvertersTest.class.getDeclaredField("timeout");
+
+        Assert.assertSame(cache.getFieldConverter(field), cache.getFieldConverter(field));
+        Assert.assertThat(cache.convert(DefaultPropertyConversion.class, field, "3s"), CoreMatchers.is((Object) Duration.ofSeconds(3)));
+        Assert.assertThat(cache.getFieldConverter(FieldConvertersTest.class.getDeclaredField("unsupported")), CoreMatchers.nullValue());
+    }
+
+    private Object convert(final String fieldName, final String value) throws Exception {
+        return FieldConverters.forField(FieldConvertersTest.class.getDeclaredField(fieldName)).convert(value);
+    }
+}
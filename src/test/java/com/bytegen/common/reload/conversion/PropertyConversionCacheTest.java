@@ -0,0 +1,100 @@
+package com.bytegen.common.reload.conversion;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PropertyConversionCacheTest {
+
+    private static final AtomicInteger conversions = new AtomicInteger();
+
+    public static class CountingConversion implements PropertyConversion {
+        @Override
+        public Object convertPropertyForField(final Field field, final Object propertyValue) {
+            conversions.incrementAndGet();
+            return Arrays.asList(propertyValue.toString().split(";"));
+        }
+    }
+
+    private List<String> listProperty;
+    private int intProperty;
+    private List<String> commaProperty;
+    @Separator(";")
+    private List<String> semicolonProperty;
+
+    @Test
+    public void convertOnce() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache(16, true);
+        Field field = PropertyConversionCacheTest.class.getDeclaredField("listProperty");
+
+        conversions.set(0);
+        Object first = cache.convert(CountingConversion.class, field, "a;b");
+        Object second = cache.convert(CountingConversion.class, field, "a;b");
+
+        Assert.assertSame(first, second);
+        Assert.assertThat(conversions.get(), CoreMatchers.is(1));
+        Assert.assertThat(first, CoreMatchers.is((Object) Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void convertMutableForEachField() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache();
+        Field field = PropertyConversionCacheTest.class.getDeclaredField("listProperty");
+
+        conversions.set(0);
+        Object first = cache.convert(CountingConversion.class, field, "a;b");
+        Object second = cache.convert(CountingConversion.class, field, "a;b");
+
+        Assert.assertNotSame(first, second);
+        Assert.assertThat(conversions.get(), CoreMatchers.is(2));
+    }
+
+    @Test
+    public void convertDefault() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache();
+        Field field = PropertyConversionCacheTest.class.getDeclaredField("intProperty");
+
+        Assert.assertThat(cache.convert(DefaultPropertyConversion.class, field, "1"), CoreMatchers.is((Object) 1));
+        Assert.assertThat(cache.size(), CoreMatchers.is(1L));
+    }
+
+    @Test
+    public void convertBySeparator() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache(16, true);
+        Field comma = PropertyConversionCacheTest.class.getDeclaredField("commaProperty");
+        Field semicolon = PropertyConversionCacheTest.class.getDeclaredField("semicolonProperty");
+
+        Assert.assertThat(cache.convert(DefaultPropertyConversion.class, comma, "a;b,c"),
+                CoreMatchers.is((Object) Arrays.asList("a;b", "c")));
+        Assert.assertThat(cache.convert(DefaultPropertyConversion.class, semicolon, "a;b,c"),
+                CoreMatchers.is((Object) Arrays.asList("a", "b,c")));
+        Assert.assertThat(cache.size(), CoreMatchers.is(2L));
+    }
+
+    @Test
+    public void convertDisabled() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache(0, false);
+        Field field = PropertyConversionCacheTest.class.getDeclaredField("listProperty");
+
+        conversions.set(0);
+        cache.convert(CountingConversion.class, field, "a;b");
+        cache.convert(CountingConversion.class, field, "a;b");
+
+        Assert.assertThat(conversions.get(), CoreMatchers.is(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void convertImmutable() throws Exception {
+        PropertyConversionCache cache = new PropertyConversionCache(16, true);
+        Field field = PropertyConversionCacheTest.class.getDeclaredField("listProperty");
+
+        @SuppressWarnings("unchecked")
+        List<String> result = (List<String>) cache.convert(CountingConversion.class, field, "a;b");
+        result.set(0, "c");
+    }
+}
@@ -0,0 +1,256 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.RefreshOnChange;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class HotSwapRefresherTest {
+
+    public static class Client implements AutoCloseable {
+        private final String url;
+        private volatile boolean warmedUp;
+        private volatile boolean closed;
+
+        public Client(final String url) {
+            if (url.isEmpty()) {
+                throw new IllegalArgumentException("Url must not be empty");
+            }
+            this.url = url;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void warmUp() {
+            warmedUp = true;
+        }
+
+        public void call(final CountDownLatch entered, final CountDownLatch release) throws InterruptedException {
+            entered.countDown();
+            release.await();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public static final class FinalClient {
+    }
+
+    @Configuration
+    public static class Config {
+        @Bean
+        public static ReloadResourceFactoryProcessor reloadResourceFactoryProcessor() {
+            return new ReloadResourceFactoryProcessor();
+        }
+
+        @Bean
+        public static ReloadSourcePropertySupport reloadSourcePropertySupport() {
+            return new ReloadSourcePropertySupport();
+        }
+
+        @Bean
+        public static BeanNameAutoProxyCreator autoProxyCreator() {
+            // Ordered, so it proxies the beans before ReloadSourcePropertySupport wraps them
+            BeanNameAutoProxyCreator creator = new BeanNameAutoProxyCreator();
+            creator.setBeanNames("client");
+            creator.setInterceptorNames("callCounter");
+            creator.setProxyTargetClass(true);
+            return creator;
+        }
+
+        @Bean
+        public CallCounter callCounter() {
+            return new CallCounter();
+        }
+
+        @Bean
+        @RefreshOnChange(value = "client.*", warmUp = "warmUp")
+        public Client client(@Value("${client.url}") final String url) {
+            return new Client(url);
+        }
+    }
+
+    @Configuration
+    public static class FinalConfig {
+        @Bean
+        @RefreshOnChange("client.*")
+        public FinalClient finalClient() {
+            return new FinalClient();
+        }
+    }
+
+    public static class CallCounter implements MethodInterceptor {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Object invoke(final MethodInvocation invocation) throws Throwable {
+            calls.incrementAndGet();
+            return invocation.proceed();
+        }
+    }
+
+    private AnnotationConfigApplicationContext context;
+    private PropertyOverrides overrides;
+    private HotSwapRefresher refresher;
+
+    @Before
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        // Shadowed by the reloadable properties
+        context.getEnvironment().getPropertySources().addLast(new MapPropertySource("test",
+                Collections.singletonMap("client.url", "http://a")));
+        context.register(Config.class);
+        context.refresh();
+        ReloadSourcePropertySupport support = context.getBean(ReloadSourcePropertySupport.class);
+        overrides = support.getPropertyOverrides();
+        refresher = support.getHotSwapRefresher();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void rebuildOnChange() throws Exception {
+        Client client = context.getBean(Client.class);
+        Client initial = getCurrentTarget();
+        Assert.assertThat(client.getUrl(), CoreMatchers.is("http://a"));
+
+        overrides.set(Collections.singletonMap("client.url", "http://b"));
+        await(() -> initial.closed);
+
+        Client current = getCurrentTarget();
+        Assert.assertSame(client, context.getBean(Client.class));
+        Assert.assertThat(client.getUrl(), CoreMatchers.is("http://b"));
+        Assert.assertThat(current.warmedUp, CoreMatchers.is(true));
+        Assert.assertThat(context.getBeanDefinition("client").isSingleton(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void adviseNewInstances() throws Exception {
+        Client client = context.getBean(Client.class);
+        CallCounter counter = context.getBean(CallCounter.class);
+        Assert.assertTrue(AopUtils.isAopProxy(refresher.getTargetSource("client").getCurrentTarget()));
+        int calls = counter.calls.get();
+        client.getUrl();
+        Assert.assertThat(counter.calls.get(), CoreMatchers.is(calls + 1));
+
+        overrides.set(Collections.singletonMap("client.url", "http://b"));
+        Object current = refresher.refresh("client").get(5, TimeUnit.SECONDS);
+        calls = counter.calls.get();
+
+        Assert.assertTrue(AopUtils.isAopProxy(current));
+        Assert.assertThat(client.getUrl(), CoreMatchers.is("http://b"));
+        Assert.assertThat(counter.calls.get(), CoreMatchers.is(calls + 1));
+    }
+
+    @Test
+    public void drainInFlightCalls() throws Exception {
+        Client client = context.getBean(Client.class);
+        Client initial = getCurrentTarget();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            try {
+                client.call(entered, release);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        caller.start();
+        entered.await(5, TimeUnit.SECONDS);
+
+        overrides.set(Collections.singletonMap("client.url", "http://b"));
+        refresher.refresh("client").get(5, TimeUnit.SECONDS);
+        Assert.assertThat(client.getUrl(), CoreMatchers.is("http://b"));
+        Assert.assertThat(initial.closed, CoreMatchers.is(false));
+
+        release.countDown();
+        caller.join(5000);
+        await(() -> initial.closed);
+    }
+
+    @Test
+    public void keepInstanceOnFailure() throws Exception {
+        Client client = context.getBean(Client.class);
+
+        overrides.set(Collections.singletonMap("client.url", ""));
+        try {
+            refresher.refresh("client").get(5, TimeUnit.SECONDS);
+            Assert.fail("Rebuild should fail");
+        } catch (final ExecutionException e) {
+            // Expected
+        }
+
+        Assert.assertThat(client.getUrl(), CoreMatchers.is("http://a"));
+        Assert.assertThat(refresher.getTargetSource("client").getVersion(), CoreMatchers.is(0L));
+    }
+
+    @Test
+    public void destroyCurrentWithContext() throws Exception {
+        overrides.set(Collections.singletonMap("client.url", "http://b"));
+        refresher.refresh("client").get(5, TimeUnit.SECONDS);
+        Client current = getCurrentTarget();
+
+        context.close();
+
+        Assert.assertThat(current.closed, CoreMatchers.is(true));
+    }
+
+    @Test
+    public void rejectFinalClassWithoutInterface() {
+        AnnotationConfigApplicationContext finalContext = new AnnotationConfigApplicationContext();
+        finalContext.register(Config.class, FinalConfig.class);
+        try {
+            finalContext.refresh();
+            Assert.fail("Final class without interface should be rejected");
+        } catch (final BeanCreationException e) {
+            Assert.assertThat(e.getMostSpecificCause(), CoreMatchers.instanceOf(BeanInitializationException.class));
+            Assert.assertThat(e.getMostSpecificCause().getMessage(), CoreMatchers.containsString("is final and implements no interface"));
+        } finally {
+            finalContext.close();
+        }
+    }
+
+    /**
+     * @return the current instance behind its AOP proxy
+     */
+    private Client getCurrentTarget() {
+        return (Client) AopProxyUtils.getSingletonTarget(refresher.getTargetSource("client").getCurrentTarget());
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertThat(condition.getAsBoolean(), CoreMatchers.is(true));
+    }
+}
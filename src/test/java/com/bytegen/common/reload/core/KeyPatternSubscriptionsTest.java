@@ -0,0 +1,86 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.OnPropertiesChanged;
+import com.bytegen.common.reload.bean.KeyPatternTrie;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangeListener;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class KeyPatternSubscriptionsTest {
+
+    public static class PoolBean {
+        private final List<Set<String>> notifications = new ArrayList<>();
+
+        @OnPropertiesChanged({"db.pool.*", "routes.**"})
+        public void onChanged(final Set<String> changedKeys) {
+            notifications.add(changedKeys);
+        }
+    }
+
+    @Test
+    public void matchPatterns() {
+        KeyPatternTrie<String> trie = new KeyPatternTrie<>();
+        trie.put("db.pool.*", "pool");
+        trie.put("db.*.size", "size");
+        trie.put("routes.**", "routes");
+        trie.put("**", "all");
+        trie.put("db.url", "url");
+
+        Assert.assertThat(trie.match("db.pool.size"), CoreMatchers.is(set("all", "pool", "size")));
+        Assert.assertThat(trie.match("db.pool.size.max"), CoreMatchers.is(set("all")));
+        Assert.assertThat(trie.match("routes.a.path"), CoreMatchers.is(set("all", "routes")));
+        Assert.assertThat(trie.match("routes"), CoreMatchers.is(set("all")));
+        Assert.assertThat(trie.match("db.url"), CoreMatchers.is(set("all", "url")));
+
+        trie.removeIf("all"::equals);
+        Assert.assertThat(trie.match("db.url"), CoreMatchers.is(set("url")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInnerAnySegments() {
+        new KeyPatternTrie<String>().put("routes.**.path", "routes");
+    }
+
+    @Test
+    public void notifyOncePerReload() {
+        KeyPatternSubscriptions subscriptions = new KeyPatternSubscriptions(GuavaEventNotifier.getInstance());
+        try {
+            PoolBean bean = new PoolBean();
+            subscriptions.subscribe(bean);
+            List<Set<String>> all = new ArrayList<>();
+            PropertyChangeListener listener = all::add;
+            subscriptions.subscribe("**", listener);
+
+            subscriptions.onPropertiesChangedEvent(new PropertiesChangedEvent(
+                    new HashSet<>(Arrays.asList("db.pool.size", "db.pool.idle", "routes.a.path", "db.url")),
+                    Collections.emptyList()));
+
+            Assert.assertThat(bean.notifications.size(), CoreMatchers.is(1));
+            Assert.assertThat(bean.notifications.get(0), CoreMatchers.is(set("db.pool.size", "db.pool.idle", "routes.a.path")));
+            Assert.assertThat(all.size(), CoreMatchers.is(1));
+            Assert.assertThat(all.get(0).size(), CoreMatchers.is(4));
+
+            subscriptions.unsubscribe(listener);
+            subscriptions.onPropertiesChangedEvent(new PropertiesChangedEvent(
+                    Collections.singleton("other"), Collections.emptyList()));
+            Assert.assertThat(all.size(), CoreMatchers.is(1));
+            Assert.assertThat(bean.notifications.size(), CoreMatchers.is(1));
+        } finally {
+            GuavaEventNotifier.getInstance().unregister(subscriptions);
+        }
+    }
+
+    private static Set<String> set(final String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
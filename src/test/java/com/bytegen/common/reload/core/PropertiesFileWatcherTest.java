@@ -0,0 +1,155 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class PropertiesFileWatcherTest {
+
+    private static final long AWAIT_SECONDS = 15;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LayeredPropertyResolver resolver;
+    private PropertiesFileWatcher watcher;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("conf.d").toPath();
+        write("20-b.properties", "key=b\nb=1");
+        write("10-a.properties", "key=a\na=1");
+        write("ignored.txt", "key=ignored");
+
+        resolver = new LayeredPropertyResolver();
+        ResourceDirectory resourceDirectory = ResourceDirectory.of(new DefaultResourceLoader(),
+                directory.toUri().toString() + "*.properties", null, PropertyLayer.APPLICATION, 1);
+        Set<EncodedResource> locations = new LinkedHashSet<>();
+        for (Path file : resourceDirectory.listFiles()) {
+            EncodedResource resource = resourceDirectory.getResource(file);
+            locations.add(resource);
+            resolver.putLayer(resourceDirectory.getLayer(file),
+                    LayeredPropertyResolver.toMap(PropertiesLoaderUtils.loadProperties(resource)));
+        }
+
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), new ConcurrentHashMap<>());
+        watcher = new PropertiesFileWatcher(locations, Collections.singleton(resourceDirectory), publisher);
+        watcher.startWatching();
+    }
+
+    @After
+    public void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    public void mergeByFileName() {
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("b"));
+        Assert.assertThat(resolver.getProperty("a"), CoreMatchers.is("1"));
+    }
+
+    @Test
+    public void discoverAndRetractFiles() throws Exception {
+        write("30-c.properties", "key=c");
+        awaitProperty("key", "c");
+
+        Files.delete(directory.resolve("30-c.properties"));
+        Files.delete(directory.resolve("20-b.properties"));
+        awaitProperty("key", "a");
+        awaitProperty("b", null);
+    }
+
+    @Test
+    public void reloadReplacedFile() throws Exception {
+        Path temp = folder.newFile("10-a.tmp").toPath();
+        Files.write(temp, "key=a\na=2".getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, directory.resolve("10-a.properties"), StandardCopyOption.REPLACE_EXISTING);
+        awaitProperty("a", "2");
+    }
+
+    @Test
+    public void restart() throws Exception {
+        watcher.stop();
+        Assert.assertThat(watcher.isRunning(), CoreMatchers.is(false));
+
+        // Changed while stopped, picked up on restart
+        write("10-a.properties", "key=a\na=3");
+        Thread.sleep(300);
+        Assert.assertThat(resolver.getRawProperty("a"), CoreMatchers.is("1"));
+
+        watcher.start();
+        Assert.assertThat(watcher.isRunning(), CoreMatchers.is(true));
+        awaitProperty("a", "3");
+
+        write("10-a.properties", "key=a\na=4");
+        awaitProperty("a", "4");
+    }
+
+    @Test
+    public void watchTree() throws Exception {
+        Path root = folder.newFolder("tree").toPath();
+        Files.createDirectories(root.resolve("tenant-a"));
+        Files.write(root.resolve("tenant-a/app.properties"), "a.limit=1".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("tenant-a/notes.txt"), "a.limit=0".getBytes(StandardCharsets.UTF_8));
+
+        ResourceDirectory tree = ResourceDirectory.of(new DefaultResourceLoader(),
+                root.toUri().toString() + "**/*.properties", null, PropertyLayer.HOST, 2);
+        Assert.assertTrue(tree.isRecursive());
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), new ConcurrentHashMap<>());
+        PropertiesFileWatcher treeWatcher = new PropertiesFileWatcher(Collections.emptySet(), Collections.singleton(tree), publisher);
+        treeWatcher.startWatching();
+        try {
+            awaitProperty("a.limit", "1");
+
+            Path nested = Files.createDirectories(root.resolve("tenant-b/nested")).resolve("app.properties");
+            Files.write(nested, "b.limit=2".getBytes(StandardCharsets.UTF_8));
+            awaitProperty("b.limit", "2");
+
+            // Waits for the content of the file at the time of the call, whatever the timing of its events
+            Files.write(nested, "b.limit=3".getBytes(StandardCharsets.UTF_8));
+            treeWatcher.awaitApplied(nested.toString(), AWAIT_SECONDS, TimeUnit.SECONDS).get();
+            Assert.assertThat(resolver.getRawProperty("b.limit"), CoreMatchers.is("3"));
+
+            Files.delete(root.resolve("tenant-a/app.properties"));
+            awaitProperty("a.limit", null);
+        } finally {
+            treeWatcher.stop();
+        }
+    }
+
+    private void write(final String name, final String content) throws Exception {
+        Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void awaitProperty(final String key, final String value) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!Objects.equals(value, resolver.getRawProperty(key)) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertThat(resolver.getRawProperty(key), CoreMatchers.is(value));
+    }
+}
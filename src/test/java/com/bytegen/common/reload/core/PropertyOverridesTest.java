@@ -0,0 +1,104 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class PropertyOverridesTest {
+
+    private LayeredPropertyResolver resolver;
+    private Map<String, String> resolvedBeanProperty;
+    private PropertyOverrides overrides;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("timeout", "100");
+        properties.put("kill-switch", "false");
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), properties);
+
+        resolvedBeanProperty = new ConcurrentHashMap<>();
+        resolvedBeanProperty.put("${timeout}", "100");
+        resolvedBeanProperty.put("${kill-switch}", "false");
+        overrides = new PropertyOverrides(new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), resolvedBeanProperty));
+    }
+
+    @After
+    public void tearDown() {
+        overrides.close();
+    }
+
+    @Test
+    public void setAndClear() {
+        Map<String, String> batch = new HashMap<>();
+        batch.put("timeout", "5");
+        batch.put("kill-switch", "true");
+        overrides.set(batch);
+
+        // Applied before returning
+        Assert.assertThat(resolvedBeanProperty.get("${timeout}"), CoreMatchers.is("5"));
+        Assert.assertThat(resolvedBeanProperty.get("${kill-switch}"), CoreMatchers.is("true"));
+        Assert.assertThat(overrides.getOverrides(), CoreMatchers.is(batch));
+
+        // Resources changed below an override do not win
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), Collections.singletonMap("timeout", "200"));
+        Assert.assertThat(resolver.getProperty("timeout"), CoreMatchers.is("5"));
+
+        overrides.clear(Collections.singleton("timeout"));
+        Assert.assertThat(resolvedBeanProperty.get("${timeout}"), CoreMatchers.is("200"));
+        Assert.assertThat(resolver.getProperty("kill-switch"), CoreMatchers.is("true"));
+
+        overrides.clearAll();
+        Assert.assertThat(overrides.getOverrides().isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void expire() throws Exception {
+        overrides.set(Collections.singletonMap("timeout", "5"), 100, TimeUnit.MILLISECONDS);
+        overrides.set(Collections.singletonMap("kill-switch", "true"), 100, TimeUnit.MILLISECONDS);
+        // Set again without TTL, kept
+        overrides.set(Collections.singletonMap("kill-switch", "true"));
+        Assert.assertThat(resolver.getProperty("timeout"), CoreMatchers.is("5"));
+
+        for (int i = 0; i < 50 && !"100".equals(resolver.getProperty("timeout")); i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertThat(resolvedBeanProperty.get("${timeout}"), CoreMatchers.is("100"));
+        Thread.sleep(200);
+        Assert.assertThat(resolver.getProperty("kill-switch"), CoreMatchers.is("true"));
+    }
+
+    @Test
+    public void closeScheduler() throws Exception {
+        overrides.set(Collections.singletonMap("timeout", "5"), 1, TimeUnit.HOURS);
+        Assert.assertThat(isSchedulerRunning(), CoreMatchers.is(!ReloadExecutors.isVirtual()));
+
+        overrides.close();
+        for (int i = 0; i < 50 && isSchedulerRunning(); i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertThat(isSchedulerRunning(), CoreMatchers.is(false));
+    }
+
+    private boolean isSchedulerRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("auto-reload-overrides-") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
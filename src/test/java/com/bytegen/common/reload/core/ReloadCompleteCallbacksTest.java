@@ -0,0 +1,87 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.OnReloadComplete;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanInitializationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class ReloadCompleteCallbacksTest {
+
+    public static class Callbacks {
+        protected final List<String> invocations = new ArrayList<>();
+        private Set<String> changedKeys;
+
+        @OnReloadComplete
+        public void withKeys(final Set<String> changedKeys) {
+            this.changedKeys = changedKeys;
+            invocations.add("withKeys");
+        }
+
+        @OnReloadComplete
+        public void failing() {
+            invocations.add("failing");
+            throw new IllegalStateException("Callback failure");
+        }
+
+        @OnReloadComplete
+        public void withoutKeys() {
+            invocations.add("withoutKeys");
+        }
+    }
+
+    public static class OverridingCallbacks extends Callbacks {
+        @Override
+        @OnReloadComplete
+        public void withoutKeys() {
+            invocations.add("overridden");
+        }
+    }
+
+    public static class InvalidCallbacks {
+        @OnReloadComplete
+        public void invalid(final String key) {
+        }
+    }
+
+    @Test
+    public void invoke() {
+        ReloadCompleteCallbacks callbacks = new ReloadCompleteCallbacks();
+        Callbacks bean = new Callbacks();
+
+        callbacks.invoke(bean, Collections.singleton("limit"));
+
+        Assert.assertThat(bean.invocations.size(), CoreMatchers.is(3));
+        Assert.assertThat(bean.invocations.contains("withoutKeys"), CoreMatchers.is(true));
+        Assert.assertThat(bean.changedKeys, CoreMatchers.is(Collections.singleton("limit")));
+    }
+
+    @Test
+    public void invokeOverriddenOnce() {
+        ReloadCompleteCallbacks callbacks = new ReloadCompleteCallbacks();
+        OverridingCallbacks bean = new OverridingCallbacks();
+
+        callbacks.invoke(bean, Collections.singleton("limit"));
+
+        Assert.assertThat(bean.invocations.size(), CoreMatchers.is(3));
+        Assert.assertThat(bean.invocations.contains("overridden"), CoreMatchers.is(true));
+        Assert.assertThat(bean.invocations.contains("withoutKeys"), CoreMatchers.is(false));
+    }
+
+    @Test
+    public void introspectOnce() {
+        ReloadCompleteCallbacks callbacks = new ReloadCompleteCallbacks();
+
+        Assert.assertSame(callbacks.getCallbacks(Callbacks.class), callbacks.getCallbacks(Callbacks.class));
+    }
+
+    @Test(expected = BeanInitializationException.class)
+    public void rejectInvalidSignature() {
+        new ReloadCompleteCallbacks().getCallbacks(InvalidCallbacks.class);
+    }
+}
@@ -0,0 +1,231 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadLimit;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.limit.AdjustableSemaphore;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import com.google.common.util.concurrent.RateLimiter;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class ReloadLimitBinderTest {
+
+    public static class Limits {
+        @ReloadLimit(value = "${pool.core}", max = "${pool.max}")
+        private final ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+        @ReloadLimit("${permits}")
+        private final AdjustableSemaphore semaphore = new AdjustableSemaphore(1);
+
+        @ReloadLimit("${rate}")
+        private final RateLimiter rateLimiter = RateLimiter.create(1);
+    }
+
+    public static class InvalidLimits {
+        @ReloadLimit("${permits}")
+        private Integer permits = 1;
+    }
+
+    public interface Throttled {
+        boolean tryCall();
+    }
+
+    public static class ThrottledService implements Throttled {
+        @ReloadLimit("${service.permits:1}")
+        private final AdjustableSemaphore semaphore = new AdjustableSemaphore(1);
+
+        @Override
+        public boolean tryCall() {
+            return semaphore.tryAcquire();
+        }
+    }
+
+    @Configuration
+    public static class ProxyConfig {
+        @Bean
+        public static ReloadResourceFactoryProcessor reloadResourceFactoryProcessor() {
+            return new ReloadResourceFactoryProcessor();
+        }
+
+        @Bean
+        public static ReloadSourcePropertySupport reloadSourcePropertySupport() {
+            return new ReloadSourcePropertySupport();
+        }
+
+        @Bean
+        public static BeanNameAutoProxyCreator autoProxyCreator() {
+            BeanNameAutoProxyCreator creator = new BeanNameAutoProxyCreator();
+            creator.setBeanNames("throttledService");
+            creator.setInterceptorNames("callInterceptor");
+            return creator;
+        }
+
+        @Bean
+        public MethodInterceptor callInterceptor() {
+            return MethodInvocation::proceed;
+        }
+
+        @Bean
+        public ThrottledService throttledService() {
+            return new ThrottledService();
+        }
+    }
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private LayeredPropertyResolver resolver;
+    private ReloadLimitBinder binder;
+    private Map<String, String> properties;
+    private Limits limits;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        binder = new ReloadLimitBinder(GuavaEventNotifier.getInstance(), resolver);
+
+        properties = new HashMap<>();
+        properties.put("pool.core", "2");
+        properties.put("pool.max", "4");
+        properties.put("permits", "5");
+        properties.put("rate", "10");
+        resolver.putLayer(LAYER, properties);
+        limits = new Limits();
+    }
+
+    @After
+    public void tearDown() {
+        GuavaEventNotifier.getInstance().unregister(binder);
+        limits.pool.shutdownNow();
+    }
+
+    @Test
+    public void bind() {
+        binder.subscribe(limits);
+
+        Assert.assertThat(limits.pool.getCorePoolSize(), CoreMatchers.is(2));
+        Assert.assertThat(limits.pool.getMaximumPoolSize(), CoreMatchers.is(4));
+        Assert.assertThat(limits.semaphore.getPermits(), CoreMatchers.is(5));
+        Assert.assertThat(limits.semaphore.availablePermits(), CoreMatchers.is(5));
+        Assert.assertThat(limits.rateLimiter.getRate(), CoreMatchers.is(10.0));
+    }
+
+    @Test
+    public void growAndShrinkPool() {
+        binder.subscribe(limits);
+
+        properties.put("pool.core", "8");
+        properties.put("pool.max", "16");
+        reload();
+        Assert.assertThat(limits.pool.getCorePoolSize(), CoreMatchers.is(8));
+        Assert.assertThat(limits.pool.getMaximumPoolSize(), CoreMatchers.is(16));
+
+        properties.put("pool.core", "1");
+        properties.put("pool.max", "2");
+        reload();
+        Assert.assertThat(limits.pool.getCorePoolSize(), CoreMatchers.is(1));
+        Assert.assertThat(limits.pool.getMaximumPoolSize(), CoreMatchers.is(2));
+    }
+
+    @Test
+    public void shrinkSemaphoreWhileHeld() throws Exception {
+        binder.subscribe(limits);
+        limits.semaphore.acquire(4);
+
+        properties.put("permits", "2");
+        reload();
+
+        Assert.assertThat(limits.semaphore.getPermits(), CoreMatchers.is(2));
+        Assert.assertThat(limits.semaphore.tryAcquire(), CoreMatchers.is(false));
+        limits.semaphore.release(4);
+        Assert.assertThat(limits.semaphore.availablePermits(), CoreMatchers.is(2));
+    }
+
+    @Test
+    public void updateRate() {
+        binder.subscribe(limits);
+
+        properties.put("rate", "2.5");
+        reload();
+
+        Assert.assertThat(limits.rateLimiter.getRate(), CoreMatchers.is(2.5));
+    }
+
+    @Test
+    public void keepLimitOnInvalidValue() {
+        binder.subscribe(limits);
+
+        properties.put("pool.core", "8");
+        properties.put("pool.max", "4");
+        properties.put("permits", "many");
+        properties.put("rate", "0");
+        reload();
+
+        Assert.assertThat(limits.pool.getCorePoolSize(), CoreMatchers.is(2));
+        Assert.assertThat(limits.pool.getMaximumPoolSize(), CoreMatchers.is(4));
+        Assert.assertThat(limits.semaphore.getPermits(), CoreMatchers.is(5));
+        Assert.assertThat(limits.rateLimiter.getRate(), CoreMatchers.is(10.0));
+    }
+
+    @Test(expected = BeanInitializationException.class)
+    public void rejectUnsupportedField() {
+        binder.subscribe(new InvalidLimits());
+    }
+
+    @Test
+    public void bindClassProxiedBean() {
+        bindProxiedBean(true);
+    }
+
+    @Test
+    public void bindInterfaceProxiedBean() {
+        bindProxiedBean(false);
+    }
+
+    private void bindProxiedBean(final boolean proxyTargetClass) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(ProxyConfig.class);
+        context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.getBeanDefinition("autoProxyCreator")
+                .getPropertyValues().add("proxyTargetClass", proxyTargetClass));
+        context.refresh();
+        try {
+            Throttled service = context.getBean(Throttled.class);
+            Assert.assertTrue(AopUtils.isAopProxy(service));
+            Assert.assertThat(AopUtils.isCglibProxy(service), CoreMatchers.is(proxyTargetClass));
+
+            context.getBean(ReloadSourcePropertySupport.class).getPropertyOverrides()
+                    .set(Collections.singletonMap("service.permits", "2"));
+
+            Assert.assertTrue(service.tryCall());
+            Assert.assertTrue(service.tryCall());
+            Assert.assertFalse(service.tryCall());
+        } finally {
+            context.close();
+        }
+    }
+
+    private void reload() {
+        Set<String> changed = resolver.putLayer(LAYER, properties);
+        binder.onPropertiesChangedEvent(new PropertiesChangedEvent(changed, Collections.emptyList()));
+    }
+}
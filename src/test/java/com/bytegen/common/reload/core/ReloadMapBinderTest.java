@@ -0,0 +1,166 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadMap;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanInitializationException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ReloadMapBinderTest {
+
+    public static class Limits {
+        @ReloadMap(prefix = "tenant", suffix = ".rps")
+        private Map<String, Integer> rps;
+    }
+
+    public static class InvalidLimits {
+        @ReloadMap(prefix = "tenant")
+        private List<Integer> rps;
+    }
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private LayeredPropertyResolver resolver;
+    private ReloadMapBinder binder;
+    private Map<String, String> properties;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        binder = new ReloadMapBinder(GuavaEventNotifier.getInstance(), resolver);
+
+        properties = new HashMap<>();
+        properties.put("default.rps", "10");
+        properties.put("tenant.acme.rps", "100");
+        properties.put("tenant.beta.rps", "${default.rps}");
+        properties.put("tenant.acme.burst", "5");
+        resolver.putLayer(LAYER, properties);
+    }
+
+    @After
+    public void tearDown() {
+        GuavaEventNotifier.getInstance().unregister(binder);
+    }
+
+    @Test
+    public void bind() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+
+        Assert.assertThat(limits.rps.size(), CoreMatchers.is(2));
+        Assert.assertThat(limits.rps.get("acme"), CoreMatchers.is(100));
+        Assert.assertThat(limits.rps.get("beta"), CoreMatchers.is(10));
+    }
+
+    @Test
+    public void updateInPlace() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+        Map<String, Integer> previous = limits.rps;
+
+        properties.put("tenant.acme.rps", "200");
+        properties.put("tenant.gamma.rps", "300");
+        properties.remove("tenant.beta.rps");
+        reload();
+
+        Assert.assertSame(previous, limits.rps);
+        Assert.assertThat(limits.rps.get("acme"), CoreMatchers.is(200));
+        Assert.assertThat(limits.rps.get("gamma"), CoreMatchers.is(300));
+        Assert.assertThat(limits.rps.containsKey("beta"), CoreMatchers.is(false));
+    }
+
+    @Test
+    public void updatePlaceholder() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+
+        properties.put("default.rps", "20");
+        reload();
+
+        Assert.assertThat(limits.rps.get("beta"), CoreMatchers.is(20));
+    }
+
+    @Test
+    public void keepEntryOnInvalidValue() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+
+        properties.put("tenant.acme.rps", "many");
+        reload();
+
+        Assert.assertThat(limits.rps.get("acme"), CoreMatchers.is(100));
+    }
+
+    @Test
+    public void removeBlankEntry() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+
+        properties.put("tenant.acme.rps", " ");
+        reload();
+        Assert.assertThat(limits.rps.containsKey("acme"), CoreMatchers.is(false));
+
+        // Blank through a placeholder
+        properties.put("default.rps", "");
+        reload();
+        Assert.assertThat(limits.rps.containsKey("beta"), CoreMatchers.is(false));
+        Assert.assertThat(limits.rps.isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void shareBetweenBeans() {
+        Limits first = new Limits();
+        Limits second = new Limits();
+        binder.subscribe(first);
+        binder.subscribe(second);
+
+        Assert.assertSame(first.rps, second.rps);
+    }
+
+    @Test
+    public void rebindAfterCollected() throws Exception {
+        binder.subscribe(new Limits());
+        for (int i = 0; i < 50 && !binder.getSubscriptions().propertyNames().isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertThat(binder.getSubscriptions().propertyNames().isEmpty(), CoreMatchers.is(true));
+
+        properties.put("tenant.acme.rps", "200");
+        reload();
+
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+        Assert.assertThat(limits.rps.get("acme"), CoreMatchers.is(200));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnly() {
+        Limits limits = new Limits();
+        binder.subscribe(limits);
+
+        limits.rps.put("acme", 1);
+    }
+
+    @Test(expected = BeanInitializationException.class)
+    public void rejectNonMap() {
+        binder.subscribe(new InvalidLimits());
+    }
+
+    private void reload() {
+        Set<String> changed = resolver.putLayer(LAYER, properties);
+        binder.onPropertiesChangedEvent(new PropertiesChangedEvent(changed, Collections.emptyList()));
+    }
+}
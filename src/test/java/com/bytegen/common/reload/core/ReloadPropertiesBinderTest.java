@@ -0,0 +1,127 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.ReloadProperties;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ReloadPropertiesBinderTest {
+
+    public static class Pool {
+        private int maxSize;
+        private long idleTimeout = 60;
+    }
+
+    public static class Cache {
+        private List<String> names;
+    }
+
+    public static class Db {
+        private final String url = null;
+        private Pool pool;
+        private Cache cache;
+    }
+
+    public static class Holder {
+        @ReloadProperties(prefix = "db")
+        private volatile Db db;
+    }
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private LayeredPropertyResolver resolver;
+    private ReloadPropertiesBinder binder;
+    private Map<String, String> properties;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        binder = new ReloadPropertiesBinder(GuavaEventNotifier.getInstance(), resolver, new PropertyConversionCache());
+
+        properties = new HashMap<>();
+        properties.put("host", "a");
+        properties.put("db.url", "jdbc:${host}");
+        properties.put("db.pool.maxSize", "5");
+        properties.put("db.cache.names", "x,y");
+        resolver.putLayer(LAYER, properties);
+    }
+
+    @Test
+    public void bind() {
+        Holder holder = new Holder();
+        binder.subscribe(holder);
+
+        Assert.assertThat(holder.db.url, CoreMatchers.is("jdbc:a"));
+        Assert.assertThat(holder.db.pool.maxSize, CoreMatchers.is(5));
+        Assert.assertThat(holder.db.pool.idleTimeout, CoreMatchers.is(60L));
+        Assert.assertThat(holder.db.cache.names, CoreMatchers.is(Arrays.asList("x", "y")));
+    }
+
+    @Test
+    public void rebindChangedBranchOnly() {
+        Holder holder = new Holder();
+        binder.subscribe(holder);
+        Db previous = holder.db;
+
+        reload("db.pool.maxSize", "6");
+
+        Assert.assertNotSame(previous, holder.db);
+        Assert.assertNotSame(previous.pool, holder.db.pool);
+        Assert.assertSame(previous.cache, holder.db.cache);
+        Assert.assertThat(holder.db.pool.maxSize, CoreMatchers.is(6));
+    }
+
+    @Test
+    public void rebindPlaceholder() {
+        Holder holder = new Holder();
+        binder.subscribe(holder);
+        Db previous = holder.db;
+
+        reload("host", "b");
+
+        Assert.assertThat(holder.db.url, CoreMatchers.is("jdbc:b"));
+        Assert.assertSame(previous.pool, holder.db.pool);
+    }
+
+    @Test
+    public void keepUnrelated() {
+        Holder holder = new Holder();
+        binder.subscribe(holder);
+        Db previous = holder.db;
+
+        reload("other", "1");
+
+        Assert.assertSame(previous, holder.db);
+    }
+
+    @Test
+    public void shareBetweenBeans() {
+        Holder first = new Holder();
+        Holder second = new Holder();
+        binder.subscribe(first);
+        binder.subscribe(second);
+
+        reload("db.pool.maxSize", "7");
+
+        Assert.assertSame(first.db, second.db);
+    }
+
+    private void reload(final String key, final String value) {
+        properties.put(key, value);
+        Set<String> changed = resolver.putLayer(LAYER, properties);
+        binder.onPropertiesChangedEvent(new PropertiesChangedEvent(changed, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,249 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.event.EventPublisher;
+import com.bytegen.common.reload.event.EventSubscriber;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReloadPropertyEventPublisherTest {
+
+    private final List<PropertiesChangedEvent> events = new ArrayList<>();
+    private final EventSubscriber eventSubscriber = new EventSubscriber() {
+        @Override
+        public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+        }
+
+        @Override
+        public void onPropertiesChangedEvent(final PropertiesChangedEvent event) {
+            if (event.getChangedPropertyNames().contains("frozen.timeout")) {
+                events.add(event);
+            }
+        }
+    };
+
+    private LayeredPropertyResolver resolver;
+    private Map<String, String> resolvedBeanProperty;
+    private ReloadPropertyEventPublisher publisher;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("frozen.timeout", "100");
+        properties.put("frozen.retries", "1");
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), properties);
+
+        resolvedBeanProperty = new ConcurrentHashMap<>();
+        resolvedBeanProperty.put("${frozen.timeout}", "100");
+        publisher = new ReloadPropertyEventPublisher(resolver, GuavaEventNotifier.getInstance(), resolvedBeanProperty);
+        GuavaEventNotifier.getInstance().register(eventSubscriber);
+    }
+
+    @After
+    public void tearDown() {
+        GuavaEventNotifier.getInstance().unregister(eventSubscriber);
+        publisher.close();
+    }
+
+    @Test
+    public void freezeAndResume() {
+        AtomicInteger resumed = new AtomicInteger();
+        publisher.addResumeListener(resumed::incrementAndGet);
+        publisher.freeze();
+        Assert.assertThat(publisher.isFrozen(), CoreMatchers.is(true));
+
+        publisher.onPropertyChanged("app", properties("frozen.timeout", "200"));
+        publisher.onPropertyChanged("app", properties("frozen.timeout", "300"));
+        publisher.onPropertyUpdated("app", Collections.singletonMap("frozen.retries", "2"));
+
+        // Queued, coalesced into the latest content of the layer
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.is("100"));
+        Assert.assertThat(publisher.getPendingChangeCount(), CoreMatchers.is(1));
+        Assert.assertThat(events.isEmpty(), CoreMatchers.is(true));
+
+        publisher.resume();
+        Assert.assertThat(publisher.isFrozen(), CoreMatchers.is(false));
+        Assert.assertThat(publisher.getPendingChangeCount(), CoreMatchers.is(0));
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.is("300"));
+        Assert.assertThat(resolver.getProperty("frozen.retries"), CoreMatchers.is("2"));
+        Assert.assertThat(resolvedBeanProperty.get("${frozen.timeout}"), CoreMatchers.is("300"));
+        Assert.assertThat(events.size(), CoreMatchers.is(1));
+        Assert.assertThat(resumed.get(), CoreMatchers.is(1));
+
+        // Not frozen anymore
+        publisher.resume();
+        Assert.assertThat(resumed.get(), CoreMatchers.is(1));
+    }
+
+    @Test
+    public void coalescePerLayer() {
+        PropertyLayer other = new PropertyLayer("other", PropertyLayer.APPLICATION, 1);
+        publisher.freeze();
+        for (int i = 0; i < 100; i++) {
+            // Interleaved layers, batches and updates
+            publisher.onPropertyChanged("app", properties("frozen.timeout", String.valueOf(i)));
+            publisher.onPropertyChanged(Collections.singletonMap(other, properties("frozen.other", String.valueOf(i))));
+            publisher.onPropertyUpdated("app", Collections.singletonMap("frozen.updated", String.valueOf(i)));
+            publisher.onPropertyUpdated("other", Collections.singletonMap("frozen.retries", null));
+        }
+        publisher.onLayerRemoved("missing");
+        Assert.assertThat(publisher.getPendingChangeCount(), CoreMatchers.is(3));
+
+        publisher.resume();
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.is("99"));
+        Assert.assertThat(resolver.getProperty("frozen.updated"), CoreMatchers.is("99"));
+        Assert.assertThat(resolver.getLayerProperties("other"), CoreMatchers.is(Collections.singletonMap("frozen.other", "99")));
+        Assert.assertThat(events.size(), CoreMatchers.is(1));
+    }
+
+    @Test
+    public void coalesceRemoval() {
+        publisher.freeze();
+        publisher.onPropertyUpdated("app", Collections.singletonMap("frozen.retries", "2"));
+        publisher.onLayerRemoved("app");
+        // Unknown once removed, ignored as when applied at once
+        publisher.onPropertyChanged("app", properties("frozen.timeout", "200"));
+        publisher.onPropertyUpdated("app", Collections.singletonMap("frozen.retries", "3"));
+        publisher.resume();
+
+        Assert.assertThat(resolver.getLayer("app"), CoreMatchers.nullValue());
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.nullValue());
+
+        PropertyLayer app = new PropertyLayer("app", PropertyLayer.APPLICATION, 0);
+        publisher.freeze();
+        publisher.onLayerRemoved("app");
+        publisher.onPropertyChanged(Collections.singletonMap(app, properties("frozen.timeout", "300")));
+        publisher.resume();
+
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.is("300"));
+    }
+
+    @Test
+    public void overridesBypassFreeze() {
+        PropertyOverrides overrides = new PropertyOverrides(publisher);
+        try {
+            publisher.freeze();
+            overrides.set(Collections.singletonMap("frozen.timeout", "5"));
+            Assert.assertThat(resolvedBeanProperty.get("${frozen.timeout}"), CoreMatchers.is("5"));
+            Assert.assertThat(publisher.getPendingChangeCount(), CoreMatchers.is(0));
+        } finally {
+            overrides.close();
+            publisher.resume();
+        }
+    }
+
+    @Test
+    public void awaitLayer() throws Exception {
+        Map<String, String> content = new HashMap<>();
+        content.put("frozen.timeout", "200");
+        content.put("frozen.retries", "1");
+
+        long version = publisher.getVersion();
+        CompletableFuture<Long> applied = publisher.awaitLayer("app", content, 5, TimeUnit.SECONDS);
+        Assert.assertThat(applied.isDone(), CoreMatchers.is(false));
+
+        publisher.onPropertyChanged("app", properties("frozen.timeout", "200"));
+        Assert.assertThat(applied.get(), CoreMatchers.is(version + 1));
+        Assert.assertThat(publisher.getVersion(), CoreMatchers.is(version + 1));
+
+        // Already applied
+        Assert.assertThat(publisher.awaitLayer("app", content, 5, TimeUnit.SECONDS).get(), CoreMatchers.is(version + 1));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void awaitLayerTimeout() throws Throwable {
+        publisher.freeze();
+        try {
+            CompletableFuture<Long> applied = publisher.awaitLayer("app",
+                    Collections.singletonMap("frozen.timeout", "200"), 50, TimeUnit.MILLISECONDS);
+            publisher.onPropertyChanged("app", properties("frozen.timeout", "200"));
+            applied.get();
+        } catch (final ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            publisher.resume();
+        }
+    }
+
+    @Test
+    public void publishWithoutLayer() {
+        // As sources written before layers existed
+        publisher.onPropertyChanged(properties("frozen.timeout", "300"));
+
+        Assert.assertThat(resolver.getLayer(EventPublisher.DEFAULT_LAYER.getName()), CoreMatchers.is(EventPublisher.DEFAULT_LAYER));
+        Assert.assertThat(resolver.getProperty("frozen.timeout"), CoreMatchers.is("300"));
+        Assert.assertThat(resolvedBeanProperty.get("${frozen.timeout}"), CoreMatchers.is("300"));
+        Assert.assertThat(events.size(), CoreMatchers.is(1));
+    }
+
+    @Test
+    public void closeFailsPendingWaits() throws Exception {
+        // Publishers of other tests may have left their own scheduler running
+        Set<Thread> others = schedulerThreads();
+        CompletableFuture<Long> applied = publisher.awaitLayer("app",
+                Collections.singletonMap("frozen.timeout", "200"), 1, TimeUnit.HOURS);
+        Set<Thread> started = schedulerThreads();
+        started.removeAll(others);
+        Assert.assertThat(started.isEmpty(), CoreMatchers.is(ReloadExecutors.isVirtual()));
+
+        publisher.close();
+
+        Assert.assertThat(cause(applied), CoreMatchers.instanceOf(IllegalStateException.class));
+        Assert.assertThat(cause(publisher.awaitLayer("app", Collections.singletonMap("frozen.timeout", "200"),
+                1, TimeUnit.HOURS)), CoreMatchers.instanceOf(IllegalStateException.class));
+        for (Thread thread : started) {
+            thread.join(1000);
+            Assert.assertThat(thread.isAlive(), CoreMatchers.is(false));
+        }
+    }
+
+    private static Throwable cause(final CompletableFuture<Long> future) throws Exception {
+        Assert.assertThat(future.isDone(), CoreMatchers.is(true));
+        try {
+            future.get();
+            return null;
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static Set<Thread> schedulerThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("auto-reload-await-")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    private static Properties properties(final String key, final String value) {
+        Properties properties = new Properties();
+        properties.setProperty(key, value);
+        properties.setProperty("frozen.retries", "1");
+        return properties;
+    }
+}
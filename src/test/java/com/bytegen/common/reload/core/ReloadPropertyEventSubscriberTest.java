@@ -0,0 +1,148 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.OnReloadComplete;
+import com.bytegen.common.reload.ReloadValue;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ReloadPropertyEventSubscriberTest {
+
+    public static class TenantBean {
+        @ReloadValue("${limit}")
+        private volatile int limit;
+        private int completions;
+
+        @OnReloadComplete
+        public void onReloadComplete() {
+            completions++;
+        }
+    }
+
+    public static class HostsBean {
+        @ReloadValue("${hosts}")
+        private volatile List<String> hosts;
+    }
+
+    public static class RouteBean {
+        @ReloadValue("${host}")
+        private String host;
+        @ReloadValue("${port}")
+        private int port;
+        private final List<String> completions = new ArrayList<>();
+
+        @OnReloadComplete
+        public void onReloadComplete(final Set<String> changedKeys) {
+            completions.add(host + ":" + port + " " + new TreeSet<>(changedKeys));
+        }
+    }
+
+    @Test
+    public void completeOncePerReload() throws Exception {
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        ReloadPropertyEventSubscriber subscriber = new ReloadPropertyEventSubscriber(GuavaEventNotifier.getInstance(),
+                subscriptions, new PropertyConversionCache(), 0, 0);
+        try {
+            RouteBean bean = new RouteBean();
+            for (String name : Arrays.asList("host", "port")) {
+                Field field = RouteBean.class.getDeclaredField(name);
+                field.setAccessible(true);
+                subscriptions.subscribe("${" + name + "}", bean, field);
+            }
+
+            subscriber.onPropertiesChangedEvent(new PropertiesChangedEvent(new HashSet<>(Arrays.asList("host", "port")),
+                    Arrays.asList(new PropertyChangedEvent("${host}", "a", "b"), new PropertyChangedEvent("${port}", "1", "2"))));
+
+            Assert.assertThat(bean.completions, CoreMatchers.is(Collections.singletonList("b:2 [${host}, ${port}]")));
+        } finally {
+            subscriber.unregisterPropertyReloader();
+        }
+    }
+
+    @Test
+    public void fanOutInParallel() throws Exception {
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        ReloadPropertyEventSubscriber subscriber = new ReloadPropertyEventSubscriber(GuavaEventNotifier.getInstance(),
+                subscriptions, new PropertyConversionCache(), 100, 4);
+        try {
+            Field field = TenantBean.class.getDeclaredField("limit");
+            field.setAccessible(true);
+            List<TenantBean> beans = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                TenantBean bean = new TenantBean();
+                beans.add(bean);
+                subscriptions.subscribe("${limit}", bean, field);
+            }
+
+            subscriber.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("limit"),
+                    Collections.singletonList(new PropertyChangedEvent("${limit}", "0", "42"))));
+
+            for (TenantBean bean : beans) {
+                Assert.assertThat(bean.limit, CoreMatchers.is(42));
+                Assert.assertThat(bean.completions, CoreMatchers.is(1));
+            }
+            if (!ReloadExecutors.isVirtual()) {
+                boolean fannedOut = false;
+                for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                    fannedOut |= thread.getName().startsWith(ReloadPropertyEventSubscriber.FAN_OUT_THREAD_NAME + "-");
+                }
+                Assert.assertThat(fannedOut, CoreMatchers.is(true));
+            }
+        } finally {
+            subscriber.unregisterPropertyReloader();
+        }
+    }
+
+    @Test
+    public void fanOutMutableValues() throws Exception {
+        Assert.assertThat(fanOutHosts(false).size(), CoreMatchers.is(500));
+        // Shared once the results are immutable
+        Assert.assertThat(fanOutHosts(true).size(), CoreMatchers.is(1));
+    }
+
+    /**
+     * @return the distinct list instances set on the beans
+     */
+    private Set<List<String>> fanOutHosts(final boolean immutableResults) throws Exception {
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        ReloadPropertyEventSubscriber subscriber = new ReloadPropertyEventSubscriber(GuavaEventNotifier.getInstance(),
+                subscriptions, new PropertyConversionCache(16, immutableResults), 100, 4);
+        try {
+            Field field = HostsBean.class.getDeclaredField("hosts");
+            field.setAccessible(true);
+            List<HostsBean> beans = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                HostsBean bean = new HostsBean();
+                beans.add(bean);
+                subscriptions.subscribe("${hosts}", bean, field);
+            }
+
+            subscriber.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("hosts"),
+                    Collections.singletonList(new PropertyChangedEvent("${hosts}", "a", "a,b"))));
+
+            Set<List<String>> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (HostsBean bean : beans) {
+                Assert.assertThat(bean.hosts, CoreMatchers.is(Arrays.asList("a", "b")));
+                instances.add(bean.hosts);
+            }
+            return instances;
+        } finally {
+            subscriber.unregisterPropertyReloader();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.crypto.AesGcmPropertyDecryptor;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReloadablePropertySourceTest {
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private LayeredPropertyResolver resolver;
+    private Map<String, String> properties;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        properties = new HashMap<>();
+        properties.put("host", "localhost");
+        properties.put("url", "http://${host}");
+        resolver.putLayer(LAYER, properties);
+    }
+
+    @Test
+    public void followReloads() {
+        ReloadablePropertySource source = new ReloadablePropertySource(resolver);
+        Assert.assertThat(source.getProperty("host"), CoreMatchers.is("localhost"));
+
+        properties.put("host", "remote");
+        properties.remove("url");
+        resolver.putLayer(LAYER, properties);
+
+        Assert.assertThat(source.getProperty("host"), CoreMatchers.is("remote"));
+        Assert.assertThat(source.containsProperty("url"), CoreMatchers.is(false));
+        Assert.assertThat(source.getProperty("url"), CoreMatchers.nullValue());
+        Assert.assertThat(Arrays.asList(source.getPropertyNames()), CoreMatchers.is(Arrays.asList("host")));
+    }
+
+    @Test
+    public void resolveThroughEnvironment() {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ReloadablePropertySource(resolver));
+
+        // Nested placeholders are left to the environment
+        Assert.assertThat(environment.getProperty("url"), CoreMatchers.is("http://localhost"));
+
+        properties.put("host", "remote");
+        resolver.putLayer(LAYER, properties);
+        Assert.assertThat(environment.getProperty("url"), CoreMatchers.is("http://remote"));
+    }
+
+    @Test
+    public void decrypt() throws Exception {
+        AesGcmPropertyDecryptor aes = new AesGcmPropertyDecryptor(new byte[16]);
+        properties.put("password", "ENC(" + aes.encrypt("secret".toCharArray()) + ")");
+        resolver.putLayer(LAYER, properties);
+        EncryptedValueResolver encryptedValueResolver = new EncryptedValueResolver(GuavaEventNotifier.getInstance(),
+                aes, resolver);
+        try {
+            ReloadablePropertySource source = new ReloadablePropertySource(resolver, encryptedValueResolver);
+
+            Assert.assertThat(source.getProperty("password"), CoreMatchers.is("secret"));
+            Assert.assertThat(source.getProperty("host"), CoreMatchers.is("localhost"));
+        } finally {
+            GuavaEventNotifier.getInstance().unregister(encryptedValueResolver);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class ResourceDirectoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void isPattern() {
+        Assert.assertTrue(ResourceDirectory.isPattern("file:/etc/app/conf.d/*.properties"));
+        Assert.assertTrue(ResourceDirectory.isPattern("file:/etc/app/conf.d/**/app.properties"));
+        Assert.assertTrue(ResourceDirectory.isPattern("file:/opt/app[1]/conf/*.properties"));
+        Assert.assertFalse(ResourceDirectory.isPattern("file:/opt/app[1]/conf/app.properties"));
+        Assert.assertFalse(ResourceDirectory.isPattern("file:/opt/{app}/conf.d/"));
+    }
+
+    @Test
+    public void literalDirectory() throws Exception {
+        Path conf = Files.createDirectories(folder.getRoot().toPath().resolve("app[1]/conf"));
+        write(conf.resolve("10-a.properties"));
+        write(conf.resolve("notes.txt"));
+
+        ResourceDirectory directory = of("file:" + conf + "/*.properties");
+
+        Assert.assertThat(directory.getDirectory(), CoreMatchers.is(conf));
+        Assert.assertFalse(directory.isRecursive());
+        Assert.assertThat(directory.listFiles(), CoreMatchers.is(Arrays.asList(conf.resolve("10-a.properties"))));
+    }
+
+    @Test
+    public void recursiveFromAnyDirectory() throws Exception {
+        Path root = folder.getRoot().toPath();
+        write(Files.createDirectories(root.resolve("tenant-a")).resolve("app.properties"));
+        write(Files.createDirectories(root.resolve("tenant-b/nested")).resolve("app.properties"));
+        write(root.resolve("tenant-b/other.properties"));
+
+        ResourceDirectory directory = of("file:" + root + "/**/app.properties");
+
+        Assert.assertThat(directory.getDirectory(), CoreMatchers.is(root));
+        Assert.assertTrue(directory.isRecursive());
+        Assert.assertThat(directory.listFiles(), CoreMatchers.is(Arrays.asList(
+                root.resolve("tenant-a/app.properties"), root.resolve("tenant-b/nested/app.properties"))));
+    }
+
+    @Test
+    public void existingFileNamedLikePattern() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("app[1].properties");
+        write(file);
+
+        Assert.assertThat(of("file:" + file), CoreMatchers.nullValue());
+    }
+
+    private ResourceDirectory of(final String location) throws Exception {
+        return ResourceDirectory.of(new DefaultResourceLoader(), location, null, PropertyLayer.APPLICATION, 1);
+    }
+
+    private void write(final Path file) throws Exception {
+        Files.write(file, "key=value".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,190 @@
+package com.bytegen.common.reload.core;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.crypto.AesGcmPropertyDecryptor;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class ValueFieldRebinderTest {
+
+    public static class Endpoint {
+        @Value("${host}")
+        private String host;
+        @Value("${port}")
+        private int port;
+        @Value("http://${host}:${port}/${context:api}")
+        private String url;
+        @Value("${static.name}")
+        private String name;
+    }
+
+    public static class Credentials {
+        @Value("${password}")
+        private String password;
+    }
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private LayeredPropertyResolver resolver;
+    private StandardEnvironment environment;
+    private ValueFieldRebinder rebinder;
+    private Map<String, String> properties;
+
+    @Before
+    public void setUp() {
+        resolver = new LayeredPropertyResolver();
+        properties = new HashMap<>();
+        properties.put("host", "localhost");
+        properties.put("port", "8080");
+        resolver.putLayer(LAYER, properties);
+
+        environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ReloadablePropertySource(resolver));
+        environment.getPropertySources().addLast(new MapPropertySource("static",
+                Collections.singletonMap("static.name", "endpoint")));
+        rebinder = new ValueFieldRebinder(GuavaEventNotifier.getInstance(), environment, resolver,
+                new PropertyConversionCache());
+    }
+
+    @After
+    public void tearDown() {
+        GuavaEventNotifier.getInstance().unregister(rebinder);
+    }
+
+    @Test
+    public void rebind() {
+        Endpoint endpoint = subscribe(new Endpoint());
+
+        properties.put("host", "remote");
+        properties.put("port", "9090");
+        reload();
+
+        Assert.assertThat(endpoint.host, CoreMatchers.is("remote"));
+        Assert.assertThat(endpoint.port, CoreMatchers.is(9090));
+        Assert.assertThat(endpoint.url, CoreMatchers.is("http://remote:9090/api"));
+    }
+
+    @Test
+    public void rebindDefault() {
+        Endpoint endpoint = subscribe(new Endpoint());
+
+        properties.put("context", "v2");
+        reload();
+        Assert.assertThat(endpoint.url, CoreMatchers.is("http://localhost:8080/v2"));
+
+        properties.remove("context");
+        reload();
+        Assert.assertThat(endpoint.url, CoreMatchers.is("http://localhost:8080/api"));
+    }
+
+    @Test
+    public void trackReloadableOnly() {
+        subscribe(new Endpoint());
+
+        Assert.assertThat(rebinder.getSubscriptions().propertyNames(),
+                CoreMatchers.not(CoreMatchers.hasItem("${static.name}")));
+        Assert.assertThat(rebinder.getSubscriptions().propertyNames(), CoreMatchers.hasItem("${host}"));
+    }
+
+    @Test
+    public void keepValueOnUnresolvable() {
+        Endpoint endpoint = subscribe(new Endpoint());
+
+        properties.remove("host");
+        reload();
+
+        Assert.assertThat(endpoint.host, CoreMatchers.is("localhost"));
+        Assert.assertThat(endpoint.url, CoreMatchers.is("http://localhost:8080/api"));
+    }
+
+    @Test
+    public void keepValueOnInvalidConversion() {
+        Endpoint endpoint = subscribe(new Endpoint());
+
+        properties.put("port", "http");
+        reload();
+
+        Assert.assertThat(endpoint.port, CoreMatchers.is(8080));
+    }
+
+    @Test
+    public void subscribeAfterUndispatchedChange() {
+        Endpoint first = subscribe(new Endpoint());
+
+        // Reload applied without its event, e.g. while frozen, when the second bean is created
+        properties.put("host", "remote");
+        resolver.putLayer(LAYER, properties);
+        Endpoint second = subscribe(new Endpoint());
+
+        Assert.assertThat(first.host, CoreMatchers.is("remote"));
+        Assert.assertThat(second.host, CoreMatchers.is("remote"));
+
+        // The value tracked is the current one, reverting it rebinds every field
+        properties.put("host", "localhost");
+        reload();
+
+        Assert.assertThat(first.host, CoreMatchers.is("localhost"));
+        Assert.assertThat(second.host, CoreMatchers.is("localhost"));
+    }
+
+    @Test
+    public void rebindEncrypted() throws Exception {
+        AesGcmPropertyDecryptor aes = new AesGcmPropertyDecryptor(new byte[16]);
+        properties.put("password", "ENC(" + aes.encrypt("first".toCharArray()) + ")");
+        resolver.putLayer(LAYER, properties);
+        EncryptedValueResolver encryptedValueResolver = new EncryptedValueResolver(GuavaEventNotifier.getInstance(),
+                aes, resolver);
+        environment.getPropertySources().replace(ReloadablePropertySource.NAME,
+                new ReloadablePropertySource(resolver, encryptedValueResolver));
+        PropertyConversionCache conversionCache = new PropertyConversionCache(16, true, encryptedValueResolver);
+        GuavaEventNotifier.getInstance().unregister(rebinder);
+        rebinder = new ValueFieldRebinder(GuavaEventNotifier.getInstance(), environment, resolver, conversionCache);
+        try {
+            Credentials credentials = new Credentials();
+            credentials.password = environment.getProperty("password");
+            rebinder.subscribe(credentials);
+            Assert.assertThat(credentials.password, CoreMatchers.is("first"));
+
+            properties.put("password", "ENC(" + aes.encrypt("second".toCharArray()) + ")");
+            reload();
+
+            Assert.assertThat(credentials.password, CoreMatchers.is("second"));
+            // The plain text is neither memoized nor tracked
+            Assert.assertThat(conversionCache.size(), CoreMatchers.is(0L));
+            Assert.assertThat(rebinder.getSubscriptions().propertyNames(), CoreMatchers.hasItem("${password}"));
+        } finally {
+            GuavaEventNotifier.getInstance().unregister(encryptedValueResolver);
+        }
+    }
+
+    private Endpoint subscribe(final Endpoint endpoint) {
+        // As injected by Spring
+        endpoint.host = resolver.getProperty("host");
+        endpoint.port = Integer.parseInt(resolver.getProperty("port"));
+        endpoint.url = "http://" + endpoint.host + ":" + endpoint.port + "/api";
+        endpoint.name = "endpoint";
+        rebinder.subscribe(endpoint);
+        return endpoint;
+    }
+
+    private void reload() {
+        Set<String> changed = resolver.putLayer(LAYER, properties);
+        rebinder.onPropertiesChangedEvent(new PropertiesChangedEvent(changed, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,110 @@
+package com.bytegen.common.reload.crypto;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EncryptedValueResolverTest {
+
+    private static final PropertyLayer LAYER = new PropertyLayer("test", PropertyLayer.APPLICATION, 0);
+
+    private final AesGcmPropertyDecryptor aes = new AesGcmPropertyDecryptor(new byte[16]);
+    private final AtomicInteger decryptions = new AtomicInteger();
+    private final AtomicInteger scans = new AtomicInteger();
+
+    private LayeredPropertyResolver propertyResolver;
+    private EncryptedValueResolver resolver;
+
+    @Before
+    public void setUp() {
+        propertyResolver = new LayeredPropertyResolver() {
+            @Override
+            public Set<String> propertyNames() {
+                scans.incrementAndGet();
+                return super.propertyNames();
+            }
+        };
+        resolver = new EncryptedValueResolver(GuavaEventNotifier.getInstance(), cipherText -> {
+            decryptions.incrementAndGet();
+            return aes.decrypt(cipherText);
+        }, propertyResolver);
+    }
+
+    @Test
+    public void decryptOnce() throws Exception {
+        String value = "ENC(" + aes.encrypt("secret".toCharArray()) + ")";
+
+        Assert.assertThat(resolver.decrypt(value), CoreMatchers.is("secret"));
+        Assert.assertThat(resolver.decrypt("user:" + value), CoreMatchers.is("user:secret"));
+        Assert.assertThat(decryptions.get(), CoreMatchers.is(1));
+        Assert.assertThat(resolver.decrypt("plain"), CoreMatchers.is("plain"));
+    }
+
+    @Test
+    public void wipeReplaced() throws Exception {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("password", "ENC(" + aes.encrypt("first".toCharArray()) + ")");
+        properties.put("token", "ENC(" + aes.encrypt("token".toCharArray()) + ")");
+        propertyResolver.putLayer(LAYER, properties);
+        resolver.decrypt(properties.get("password"));
+        resolver.decrypt(properties.get("token"));
+
+        properties.put("password", "ENC(" + aes.encrypt("second".toCharArray()) + ")");
+        propertyResolver.putLayer(LAYER, properties);
+        resolver.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("password"), Collections.emptyList()));
+
+        Assert.assertThat(resolver.size(), CoreMatchers.is(1));
+        Assert.assertThat(resolver.decrypt(properties.get("password")), CoreMatchers.is("second"));
+        Assert.assertThat(resolver.decrypt(properties.get("token")), CoreMatchers.is("token"));
+        Assert.assertThat(decryptions.get(), CoreMatchers.is(3));
+    }
+
+    @Test
+    public void wipeOnlyReleased() throws Exception {
+        String shared = "ENC(" + aes.encrypt("shared".toCharArray()) + ")";
+        Map<String, String> properties = new HashMap<>();
+        properties.put("password", shared);
+        properties.put("backup.password", shared);
+        properties.put("plain", "value");
+        propertyResolver.putLayer(LAYER, properties);
+        resolver.decrypt(shared);
+        resolver.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("plain"), Collections.emptyList()));
+        Assert.assertThat(scans.get(), CoreMatchers.is(1));
+
+        properties.put("password", "plain");
+        propertyResolver.putLayer(LAYER, properties);
+        resolver.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("password"), Collections.emptyList()));
+        Assert.assertThat(resolver.size(), CoreMatchers.is(1));
+
+        properties.remove("backup.password");
+        propertyResolver.putLayer(LAYER, properties);
+        resolver.onPropertiesChangedEvent(new PropertiesChangedEvent(Collections.singleton("backup.password"), Collections.emptyList()));
+        Assert.assertThat(resolver.size(), CoreMatchers.is(0));
+        Assert.assertThat(scans.get(), CoreMatchers.is(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decryptInvalid() {
+        resolver.decrypt("ENC(bm90IGVuY3J5cHRlZA==)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decryptTampered() throws Exception {
+        byte[] data = Base64.getDecoder().decode(aes.encrypt("secret".toCharArray()));
+        data[data.length - 1] ^= 1;
+
+        resolver.decrypt("ENC(" + Base64.getEncoder().encodeToString(data) + ")");
+    }
+}
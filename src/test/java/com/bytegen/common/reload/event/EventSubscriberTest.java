@@ -0,0 +1,66 @@
+package com.bytegen.common.reload.event;
+
+import com.bytegen.common.reload.bean.PropertiesChangedEvent;
+import com.bytegen.common.reload.bean.PropertyChangedEvent;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+public class EventSubscriberTest {
+
+    public static class LegacySubscriber implements EventSubscriber {
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public void onPropertyChangedEvent(final PropertyChangedEvent event) {
+            changes.add(event.getPropertyName());
+        }
+    }
+
+    public static class LegacyNotifier implements EventNotifier {
+        private final List<PropertyChangedEvent> posted = new ArrayList<>();
+
+        @Override
+        public void post(final PropertyChangedEvent propertyChangedEvent) {
+            posted.add(propertyChangedEvent);
+        }
+
+        @Override
+        public void unregister(final EventSubscriber eventSubscriber) {
+        }
+
+        @Override
+        public void register(final EventSubscriber eventSubscriber) {
+        }
+    }
+
+    private static final PropertiesChangedEvent BATCH = new PropertiesChangedEvent(new HashSet<>(Arrays.asList("a", "b")),
+            Arrays.asList(new PropertyChangedEvent("${a}", "0", "1"), new PropertyChangedEvent("${b}", "0", "1")));
+
+    @Test
+    public void legacySubscriberReceivesEachChange() {
+        LegacySubscriber subscriber = new LegacySubscriber();
+        GuavaEventNotifier.getInstance().register(subscriber);
+        try {
+            GuavaEventNotifier.getInstance().post(BATCH);
+        } finally {
+            GuavaEventNotifier.getInstance().unregister(subscriber);
+        }
+
+        Assert.assertThat(subscriber.changes, CoreMatchers.is(Arrays.asList("${a}", "${b}")));
+    }
+
+    @Test
+    public void legacyNotifierPostsEachChange() {
+        LegacyNotifier notifier = new LegacyNotifier();
+
+        notifier.post(BATCH);
+
+        Assert.assertThat(notifier.posted, CoreMatchers.is(BATCH.getEvents()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.bytegen.common.reload.inspect;
+
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.core.PropertiesFileWatcher;
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.crypto.EncryptedValueResolver;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReloadInspectorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String keyed;
+
+    @Test
+    public void inspectMasked() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("user", "admin");
+        properties.put("db.password", "secret");
+        properties.put("token.encrypted", "ENC(abc)");
+        properties.put("greeting", "hello ${user}");
+        properties.put("db.url", "jdbc:db://${user}:${db.password}@host");
+        properties.put("header", "Bearer ${token.encrypted}");
+        properties.put("upstream", "${db.url}/users");
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), properties);
+
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        subscriptions.subscribe("user", this, ReloadInspectorTest.class.getDeclaredField("keyed"));
+        ReloadInspector inspector = new ReloadInspector(resolver,
+                Collections.singletonMap("reloadValue", subscriptions), () -> null);
+
+        Map<String, Map<String, Object>> inspected = inspector.getProperties();
+        Assert.assertThat(inspected.get("db.password").get("raw"), CoreMatchers.is((Object) EncryptedValueResolver.MASK));
+        Assert.assertThat(inspected.get("token.encrypted").get("resolved"), CoreMatchers.is((Object) EncryptedValueResolver.MASK));
+        Assert.assertThat(inspected.get("greeting").get("raw"), CoreMatchers.is((Object) "hello ${user}"));
+        Assert.assertThat(inspected.get("greeting").get("resolved"), CoreMatchers.is((Object) "hello admin"));
+        Assert.assertThat(inspected.get("greeting").get("layer"), CoreMatchers.is((Object) "app"));
+        // Secrets reached through placeholders, directly or not
+        Assert.assertThat(inspected.get("db.url").get("raw"), CoreMatchers.is((Object) "jdbc:db://${user}:${db.password}@host"));
+        Assert.assertThat(inspected.get("db.url").get("resolved"), CoreMatchers.is((Object) EncryptedValueResolver.MASK));
+        Assert.assertThat(inspected.get("header").get("resolved"), CoreMatchers.is((Object) EncryptedValueResolver.MASK));
+        Assert.assertThat(inspected.get("upstream").get("resolved"), CoreMatchers.is((Object) EncryptedValueResolver.MASK));
+
+        List<Map<String, Object>> sources = inspector.getSources();
+        Assert.assertThat(sources.size(), CoreMatchers.is(1));
+        Assert.assertThat(sources.get(0).get("keys"), CoreMatchers.is((Object) 7));
+        Assert.assertThat(sources.get(0).get("version"), CoreMatchers.is((Object) 1L));
+
+        Assert.assertThat(inspector.getSubscribers().get("reloadValue").get("user"), CoreMatchers.is(1));
+        Assert.assertThat(inspector.reload("app"), CoreMatchers.is(false));
+    }
+
+    @Test
+    public void reloadResource() throws Exception {
+        Path file = folder.newFile("app.properties").toPath();
+        Files.write(file, "key=1".getBytes(StandardCharsets.ISO_8859_1));
+        EncodedResource resource = new EncodedResource(new FileSystemResource(file.toFile()));
+
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        String layerName = PropertiesFileWatcher.getLayerName(resource);
+        resolver.putLayer(new PropertyLayer(layerName, PropertyLayer.APPLICATION, 0), Collections.singletonMap("key", "0"));
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), new ConcurrentHashMap<>());
+        PropertiesFileWatcher watcher = new PropertiesFileWatcher(Collections.singleton(resource), publisher);
+        watcher.startWatching();
+        try {
+            ReloadInspector inspector = new ReloadInspector(resolver, Collections.emptyMap(), () -> watcher);
+
+            Assert.assertThat(inspector.reload(layerName), CoreMatchers.is(true));
+            Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("1"));
+            Assert.assertThat(inspector.getSources().get(0).get("file"), CoreMatchers.is((Object) file.toString()));
+            Assert.assertThat(inspector.reload(folder.getRoot().toPath().resolve("other.properties").toString()),
+                    CoreMatchers.is(false));
+            Assert.assertThat(inspector.reload("app\0.properties"), CoreMatchers.is(false));
+        } finally {
+            watcher.stop();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bytegen.common.reload.nativeimage;
+
+import com.bytegen.common.reload.ReloadValue;
+import com.bytegen.common.reload.bean.BeanPropertySubscriptions;
+import com.bytegen.common.reload.conversion.PropertyConversionCache;
+import com.bytegen.common.reload.core.PropertiesFileWatcher;
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.core.ReloadPropertyEventSubscriber;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sample application reloading a file, also run as a native image by the {@code native} profile: its bean is only
+ * reachable reflectively through the metadata registered by {@link AutoReloadFeature}.
+ */
+public class NativeReloadSampleTest {
+
+    public static class SampleBean {
+        @ReloadValue("${sample.limit}")
+        private volatile int limit;
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reloadFile() throws Exception {
+        Path file = folder.newFile("sample.properties").toPath();
+        Files.write(file, "sample.limit=1".getBytes(StandardCharsets.ISO_8859_1));
+        EncodedResource resource = new EncodedResource(new FileSystemResource(file.toFile()));
+
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(new PropertyLayer(PropertiesFileWatcher.getLayerName(resource), PropertyLayer.APPLICATION, 0),
+                LayeredPropertyResolver.toMap(PropertiesLoaderUtils.loadProperties(resource)));
+        Map<String, String> resolvedBeanProperty = new ConcurrentHashMap<>();
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), resolvedBeanProperty);
+        BeanPropertySubscriptions subscriptions = new BeanPropertySubscriptions();
+        ReloadPropertyEventSubscriber subscriber = new ReloadPropertyEventSubscriber(GuavaEventNotifier.getInstance(),
+                subscriptions, new PropertyConversionCache(), 0, 0);
+
+        // Bound as ReloadSourcePropertySupport does, through the members of the reflection metadata
+        SampleBean bean = new SampleBean();
+        for (Field field : ReloadReflectionMetadata.of(SampleBean.class).getFields()) {
+            String expression = field.getAnnotation(ReloadValue.class).value();
+            String value = resolver.resolvePlaceholders(expression);
+            field.setAccessible(true);
+            field.set(bean, Integer.valueOf(value));
+            resolvedBeanProperty.put(expression, value);
+            subscriptions.subscribe(expression, bean, field);
+        }
+        Assert.assertThat(bean.limit, CoreMatchers.is(1));
+
+        PropertiesFileWatcher watcher = new PropertiesFileWatcher(Collections.singleton(resource), publisher);
+        watcher.startWatching();
+        try {
+            Files.write(file, "sample.limit=2".getBytes(StandardCharsets.ISO_8859_1));
+            watcher.awaitApplied(file.toString(), 15, TimeUnit.SECONDS).get();
+
+            Assert.assertThat(bean.limit, CoreMatchers.is(2));
+        } finally {
+            watcher.stop();
+            subscriber.unregisterPropertyReloader();
+        }
+    }
+}
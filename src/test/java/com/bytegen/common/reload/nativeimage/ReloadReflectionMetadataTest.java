@@ -0,0 +1,105 @@
+package com.bytegen.common.reload.nativeimage;
+
+import com.bytegen.common.reload.OnPropertiesChanged;
+import com.bytegen.common.reload.ReloadProperties;
+import com.bytegen.common.reload.ReloadValue;
+import com.bytegen.common.reload.conversion.DataSizeConversion;
+import com.bytegen.common.reload.core.ReloadPropertyEventSubscriber;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+public class ReloadReflectionMetadataTest {
+
+    public static class Pool {
+        private int size;
+        private Timeouts timeouts;
+        private static int ignored;
+    }
+
+    public static class Timeouts {
+        private long connect;
+    }
+
+    public static class Service {
+        @ReloadValue("${service.timeout}")
+        private int timeout;
+        @ReloadProperties(prefix = "pool")
+        private Pool pool;
+        private String notBound;
+
+        @OnPropertiesChanged("service.*")
+        public void onChanged(final Set<String> changedPropertyNames) {
+        }
+    }
+
+    public static class Missing {
+    }
+
+    public static class Linked {
+        @ReloadValue("${linked}")
+        private Missing missing;
+    }
+
+    @Test
+    public void boundMembers() throws Exception {
+        ReloadReflectionMetadata metadata = ReloadReflectionMetadata.of(Service.class);
+
+        Assert.assertTrue(metadata.getFields().contains(Service.class.getDeclaredField("timeout")));
+        Assert.assertTrue(metadata.getFields().contains(Service.class.getDeclaredField("pool")));
+        Assert.assertFalse(metadata.getFields().contains(Service.class.getDeclaredField("notBound")));
+        Assert.assertTrue(metadata.getMethods().contains(Service.class.getMethod("onChanged", Set.class)));
+
+        // Bound types are instantiated and populated reflectively, nested types included
+        Assert.assertTrue(metadata.getConstructors().contains(Pool.class.getDeclaredConstructor()));
+        Assert.assertTrue(metadata.getConstructors().contains(Timeouts.class.getDeclaredConstructor()));
+        Assert.assertTrue(metadata.getFields().contains(Pool.class.getDeclaredField("size")));
+        Assert.assertTrue(metadata.getFields().contains(Timeouts.class.getDeclaredField("connect")));
+        Assert.assertFalse(metadata.getFields().contains(Pool.class.getDeclaredField("ignored")));
+    }
+
+    @Test
+    public void libraryMembers() throws Exception {
+        ReloadReflectionMetadata subscriber = ReloadReflectionMetadata.of(ReloadPropertyEventSubscriber.class);
+        Assert.assertTrue(subscriber.getMethods().containsAll(
+                Arrays.asList(ReloadPropertyEventSubscriber.class.getDeclaredMethods())));
+
+        ReloadReflectionMetadata conversion = ReloadReflectionMetadata.of(DataSizeConversion.class);
+        Assert.assertTrue(conversion.getConstructors().contains(DataSizeConversion.class.getDeclaredConstructor()));
+
+        Assert.assertThat(ReloadReflectionMetadata.of(List.class).isEmpty(), CoreMatchers.is(true));
+    }
+
+    @Test
+    public void skipMissingClass() throws Exception {
+        // Linked defined again by a class loader unable to load Missing, as with an absent optional dependency
+        String linked = Linked.class.getName();
+        String missing = Missing.class.getName();
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+                if (missing.equals(name)) {
+                    throw new ClassNotFoundException(name);
+                }
+                if (!linked.equals(name)) {
+                    return super.loadClass(name, resolve);
+                }
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    byte[] bytes = StreamUtils.copyToByteArray(in);
+                    return defineClass(name, bytes, 0, bytes.length);
+                } catch (final IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        };
+
+        Assert.assertThat(ReloadReflectionMetadata.of(loader.loadClass(linked)).isEmpty(), CoreMatchers.is(true));
+    }
+}
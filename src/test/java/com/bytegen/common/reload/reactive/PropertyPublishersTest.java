@@ -0,0 +1,138 @@
+package com.bytegen.common.reload.reactive;
+
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class PropertyPublishersTest {
+
+    private static class RecordingSubscriber<T> implements Subscriber<T> {
+        private final List<T> values = new CopyOnWriteArrayList<>();
+        private volatile Subscription subscription;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void awaitValues(final int count) throws InterruptedException {
+            for (int i = 0; i < 50 && values.size() < count; i++) {
+                Thread.sleep(20);
+            }
+            Assert.assertThat(values.size(), CoreMatchers.is(count));
+        }
+    }
+
+    private ReloadPropertyEventPublisher publisher;
+    private PropertyPublishers publishers;
+
+    @Before
+    public void setUp() {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("reactive.timeout", "100");
+        properties.put("reactive.pool.size", "4");
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), properties);
+        publisher = new ReloadPropertyEventPublisher(resolver, GuavaEventNotifier.getInstance(), new ConcurrentHashMap<>());
+        publishers = new PropertyPublishers(GuavaEventNotifier.getInstance(), resolver);
+    }
+
+    @After
+    public void tearDown() {
+        publishers.close();
+    }
+
+    @Test
+    public void conflateUntilRequested() throws Exception {
+        RecordingSubscriber<Optional<Integer>> subscriber = new RecordingSubscriber<>();
+        publishers.key("reactive.timeout", Integer.class).subscribe(subscriber);
+
+        // Nothing delivered without demand
+        Thread.sleep(50);
+        Assert.assertThat(subscriber.values.isEmpty(), CoreMatchers.is(true));
+        subscriber.subscription.request(1);
+        subscriber.awaitValues(1);
+        Assert.assertThat(subscriber.values.get(0), CoreMatchers.is(Optional.of(100)));
+
+        // A burst of reloads leaves only the latest value pending
+        for (int i = 1; i <= 100; i++) {
+            update("reactive.timeout", String.valueOf(100 + i));
+        }
+        subscriber.subscription.request(10);
+        subscriber.awaitValues(2);
+        Thread.sleep(50);
+        Assert.assertThat(subscriber.values.size(), CoreMatchers.is(2));
+        Assert.assertThat(subscriber.values.get(1), CoreMatchers.is(Optional.of(200)));
+
+        // Removed key
+        publisher.onPropertyUpdated("app", Collections.singletonMap("reactive.timeout", null));
+        subscriber.awaitValues(3);
+        Assert.assertThat(subscriber.values.get(2), CoreMatchers.is(Optional.<Integer>empty()));
+    }
+
+    @Test
+    public void prefix() throws Exception {
+        RecordingSubscriber<Map<String, String>> subscriber = new RecordingSubscriber<>();
+        publishers.prefix("reactive.pool").subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.awaitValues(1);
+        Assert.assertThat(subscriber.values.get(0), CoreMatchers.is(Collections.singletonMap("size", "4")));
+
+        // Unrelated keys are not published
+        update("reactive.timeout", "5");
+        update("reactive.pool.size", "8");
+        subscriber.awaitValues(2);
+        Assert.assertThat(subscriber.values.get(1), CoreMatchers.is(Collections.singletonMap("size", "8")));
+
+        subscriber.subscription.cancel();
+        update("reactive.pool.size", "16");
+        Thread.sleep(50);
+        Assert.assertThat(subscriber.values.size(), CoreMatchers.is(2));
+    }
+
+    @Test
+    public void completeOnClose() throws Exception {
+        RecordingSubscriber<Optional<String>> subscriber = new RecordingSubscriber<>();
+        publishers.key("reactive.timeout").subscribe(subscriber);
+        publishers.close();
+        for (int i = 0; i < 50 && !subscriber.completed; i++) {
+            Thread.sleep(20);
+        }
+        Assert.assertThat(subscriber.completed, CoreMatchers.is(true));
+    }
+
+    private void update(final String key, final String value) {
+        publisher.onPropertyUpdated("app", Collections.singletonMap(key, value));
+    }
+}
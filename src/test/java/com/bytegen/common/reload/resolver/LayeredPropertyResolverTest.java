@@ -0,0 +1,98 @@
+package com.bytegen.common.reload.resolver;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+public class LayeredPropertyResolverTest {
+
+    private static final PropertyLayer DEFAULTS = new PropertyLayer("defaults.properties", PropertyLayer.DEFAULTS, 0);
+    private static final PropertyLayer APPLICATION = new PropertyLayer("app.properties", PropertyLayer.APPLICATION, 0);
+    private static final PropertyLayer HOST = new PropertyLayer("host.properties", PropertyLayer.HOST, 0);
+
+    @Test
+    public void highestLayerWins() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(HOST, ImmutableMap.of("key", "host"));
+        resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app", "other", "app"));
+        resolver.putLayer(DEFAULTS, ImmutableMap.of("key", "default"));
+
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("host"));
+        Assert.assertThat(resolver.getProperty("other"), CoreMatchers.is("app"));
+        Assert.assertThat(resolver.getDefiningLayers("key").size(), CoreMatchers.is(3));
+    }
+
+    @Test
+    public void lowerLayerChangeIsShadowed() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app"));
+        resolver.putLayer(HOST, ImmutableMap.of("key", "host"));
+
+        Set<String> changed = resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app2"));
+
+        Assert.assertTrue(changed.isEmpty());
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("host"));
+    }
+
+    @Test
+    public void removedKeyFallsBack() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app"));
+        resolver.putLayer(HOST, ImmutableMap.of("key", "host", "host.only", "value"));
+
+        Set<String> changed = resolver.putLayer(HOST, Collections.<String, String>emptyMap());
+
+        Assert.assertThat(changed, CoreMatchers.is((Set<String>) ImmutableSet.of("key", "host.only")));
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("app"));
+        Assert.assertNull(resolver.getProperty("host.only"));
+    }
+
+    @Test
+    public void removeLayer() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app"));
+
+        Set<String> changed = resolver.removeLayer(APPLICATION.getName());
+
+        Assert.assertThat(changed, CoreMatchers.is((Set<String>) ImmutableSet.of("key")));
+        Assert.assertNull(resolver.getLayer(APPLICATION.getName()));
+        Assert.assertNull(resolver.getProperty("key"));
+    }
+
+    @Test
+    public void setPropertyOverridesLayers() throws Exception {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(HOST, ImmutableMap.of("key", "host"));
+
+        resolver.setProperty("key", "runtime");
+        resolver.putLayer(HOST, ImmutableMap.of("key", "host2"));
+
+        Assert.assertThat(resolver.resolvePlaceholders("${key}"), CoreMatchers.is("runtime"));
+    }
+
+    @Test
+    public void definingLayers() throws Exception {
+        for (LayeredPropertyResolver resolver : Arrays.asList(new LayeredPropertyResolver(),
+                new LayeredPropertyResolver(OffHeapPropertyStore::new))) {
+            resolver.putLayer(HOST, ImmutableMap.of("key", "host"));
+            resolver.putLayer(DEFAULTS, ImmutableMap.of("key", "default", "other", "default"));
+            resolver.putLayer(APPLICATION, ImmutableMap.of("key", "app"));
+
+            Assert.assertThat(resolver.getDefiningLayers("key"), CoreMatchers.is(Arrays.asList(DEFAULTS, APPLICATION, HOST)));
+
+            resolver.updateLayer(HOST.getName(), Collections.singletonMap("key", null));
+            resolver.removeLayer(DEFAULTS.getName());
+
+            Assert.assertThat(resolver.getDefiningLayers("key"), CoreMatchers.is(Arrays.asList(APPLICATION)));
+            Assert.assertTrue(resolver.getDefiningLayers("other").isEmpty());
+            Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("app"));
+            Assert.assertNull(resolver.getProperty("other"));
+        }
+    }
+}
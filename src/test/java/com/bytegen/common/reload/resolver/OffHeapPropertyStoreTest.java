@@ -0,0 +1,124 @@
+package com.bytegen.common.reload.resolver;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class OffHeapPropertyStoreTest {
+
+    @Test
+    public void putGetRemove() {
+        OffHeapPropertyStore store = new OffHeapPropertyStore(4);
+
+        Assert.assertNull(store.put("db.url", "jdbc:h2:mem"));
+        Assert.assertNull(store.put("名称", "值"));
+        Assert.assertThat(store.get("db.url"), CoreMatchers.is("jdbc:h2:mem"));
+        Assert.assertThat(store.get("名称"), CoreMatchers.is("值"));
+        Assert.assertThat(store.put("db.url", "jdbc:mysql"), CoreMatchers.is("jdbc:h2:mem"));
+        Assert.assertThat(store.remove("db.url"), CoreMatchers.is("jdbc:mysql"));
+        Assert.assertNull(store.get("db.url"));
+        Assert.assertThat(store.containsKey("名称"), CoreMatchers.is(true));
+        Assert.assertThat(store.keySet(), CoreMatchers.is(Collections.singleton("名称")));
+    }
+
+    @Test
+    public void deduplicateValues() {
+        OffHeapPropertyStore store = new OffHeapPropertyStore();
+        for (int i = 0; i < 1000; i++) {
+            store.put("flag." + i, i % 2 == 0 ? "true" : "false");
+        }
+        Assert.assertThat(store.size(), CoreMatchers.is(1000));
+        Assert.assertThat(store.getDistinctValueCount(), CoreMatchers.is(2));
+
+        for (int i = 0; i < 1000; i += 2) {
+            store.remove("flag." + i);
+        }
+        Assert.assertThat(store.getDistinctValueCount(), CoreMatchers.is(1));
+    }
+
+    @Test
+    public void sameAsHashMap() {
+        OffHeapPropertyStore store = new OffHeapPropertyStore(16);
+        Map<String, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Enough churn to grow the tables and compact the arena several times
+        for (int i = 0; i < 200000; i++) {
+            String key = "key." + random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                Assert.assertThat(store.remove(key), CoreMatchers.is(expected.remove(key)));
+            } else {
+                String value = "value." + random.nextInt(i % 7 == 0 ? 100000 : 50);
+                Assert.assertThat(store.put(key, value), CoreMatchers.is(expected.put(key, value)));
+            }
+        }
+        Assert.assertThat(store.size(), CoreMatchers.is(expected.size()));
+        Assert.assertThat(new HashMap<>(store), CoreMatchers.is(expected));
+        // Released records are reclaimed, several MB were written in total
+        Assert.assertTrue(store.getReservedBytes() < 1024 * 1024);
+        Assert.assertTrue(store.getUsedBytes() <= store.getReservedBytes());
+    }
+
+    @Test
+    public void layeredResolver() {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver(OffHeapPropertyStore::new);
+        resolver.putLayer(new PropertyLayer("app", PropertyLayer.APPLICATION, 0), Collections.singletonMap("key", "app"));
+        resolver.putLayer(new PropertyLayer("host", PropertyLayer.HOST, 0), Collections.singletonMap("key", "host"));
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("host"));
+        Assert.assertThat(resolver.getDefiningLayers("key").size(), CoreMatchers.is(2));
+
+        resolver.removeLayer("host");
+        Assert.assertThat(resolver.getProperty("key"), CoreMatchers.is("app"));
+        Assert.assertThat(resolver.propertyNames(), CoreMatchers.is(Collections.singleton("key")));
+    }
+
+    /**
+     * Built with JDK 9+, buffer calls must not link to the covariant overrides missing on a Java 8 runtime.
+     */
+    @Test
+    public void linkJava8BufferMethods() throws Exception {
+        final List<String> covariant = new ArrayList<>();
+        final File packageDirectory = new File(new File(OffHeapPropertyStore.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI()), OffHeapPropertyStore.class.getPackage().getName().replace('.', '/'));
+        final String simpleName = OffHeapPropertyStore.class.getSimpleName();
+        final File[] classFiles = packageDirectory.listFiles((dir, name) ->
+                name.equals(simpleName + ".class") || name.startsWith(simpleName + "$"));
+        for (final File classFile : classFiles) {
+            try (InputStream in = new FileInputStream(classFile)) {
+                new ClassReader(in).accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+                    @Override
+                    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                        return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+                            @Override
+                            public void visitMethodInsn(int opcode, String owner, String method, String descriptor, boolean itf) {
+                                if (owner.startsWith("java/nio/") && owner.endsWith("Buffer") && !"java/nio/Buffer".equals(owner)
+                                        && Arrays.asList("position", "limit", "flip", "clear", "mark", "reset", "rewind").contains(method)
+                                        && descriptor.endsWith(")L" + owner + ";")) {
+                                    covariant.add(classFile.getName() + ": " + owner + "." + method + descriptor);
+                                }
+                            }
+                        };
+                    }
+                }, ClassReader.SKIP_DEBUG);
+            }
+        }
+
+        Assert.assertThat(classFiles.length > 0, CoreMatchers.is(true));
+        Assert.assertThat(covariant, CoreMatchers.is(Collections.<String>emptyList()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.bytegen.common.reload.shared;
+
+import com.bytegen.common.reload.core.PropertiesFileWatcher;
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+public class SharedSnapshotCoordinatorTest {
+
+    private Path directory;
+    private Path properties;
+    private Set<EncodedResource> locations;
+    private SharedSnapshotCoordinator first;
+    private SharedSnapshotCoordinator second;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("shared-snapshot");
+        properties = directory.resolve("app.properties");
+        write("key=1");
+        locations = Collections.singleton(new EncodedResource(new FileSystemResource(properties.toFile())));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SharedSnapshotCoordinator coordinator : new SharedSnapshotCoordinator[]{first, second}) {
+            if (null != coordinator) {
+                coordinator.stop();
+            }
+        }
+        for (Path path : Files.list(directory).toArray(Path[]::new)) {
+            Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void followAndTakeOver() throws Exception {
+        LayeredPropertyResolver leaderResolver = newResolver();
+        first = newCoordinator(leaderResolver);
+        first.start();
+        Assert.assertThat(first.isLeader(), CoreMatchers.is(true));
+
+        LayeredPropertyResolver followerResolver = newResolver();
+        second = newCoordinator(followerResolver);
+        second.start();
+        Assert.assertThat(second.isLeader(), CoreMatchers.is(false));
+        await(() -> "1".equals(followerResolver.getProperty("key")));
+
+        // Changes seen by the leader reach the follower through the snapshot
+        write("key=2");
+        await(() -> "2".equals(followerResolver.getProperty("key")));
+
+        // The lock is released when the leader stops, the follower takes over and watches the file itself
+        first.stop();
+        first = null;
+        await(second::isLeader);
+        write("key=3");
+        await(() -> "3".equals(followerResolver.getProperty("key")));
+    }
+
+    private LayeredPropertyResolver newResolver() {
+        LayeredPropertyResolver resolver = new LayeredPropertyResolver();
+        resolver.putLayer(new PropertyLayer(PropertiesFileWatcher.getLayerName(locations.iterator().next()),
+                PropertyLayer.APPLICATION, 0), new HashMap<>());
+        return resolver;
+    }
+
+    private SharedSnapshotCoordinator newCoordinator(final LayeredPropertyResolver resolver) {
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver, GuavaEventNotifier.getInstance(),
+                new ConcurrentHashMap<>());
+        return new SharedSnapshotCoordinator(directory.resolve("snapshot.bin"), 20, publisher, resolver, locations);
+    }
+
+    private void write(final String content) throws Exception {
+        Path temp = directory.resolve("app.properties.tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.ISO_8859_1));
+        Files.move(temp, properties, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 15000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assert.assertThat(condition.getAsBoolean(), CoreMatchers.is(true));
+    }
+}
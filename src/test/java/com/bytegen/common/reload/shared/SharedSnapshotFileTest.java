@@ -0,0 +1,150 @@
+package com.bytegen.common.reload.shared;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SharedSnapshotFileTest {
+
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        path = Files.createTempFile("shared-snapshot", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path);
+             SharedSnapshotFile reader = new SharedSnapshotFile(path)) {
+            Assert.assertThat(reader.getVersion(), CoreMatchers.is(0L));
+            Assert.assertNull(reader.read());
+
+            Assert.assertThat(writer.write("a=1".getBytes(StandardCharsets.UTF_8)), CoreMatchers.is(1L));
+            Assert.assertThat(writer.write("a=2".getBytes(StandardCharsets.UTF_8)), CoreMatchers.is(2L));
+
+            SharedSnapshotFile.Snapshot snapshot = reader.read();
+            Assert.assertThat(reader.getVersion(), CoreMatchers.is(2L));
+            Assert.assertThat(snapshot.getVersion(), CoreMatchers.is(2L));
+            Assert.assertThat(new String(snapshot.getPayload(), StandardCharsets.UTF_8), CoreMatchers.is("a=2"));
+        }
+    }
+
+    @Test
+    public void readGrownFile() throws Exception {
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path);
+             SharedSnapshotFile reader = new SharedSnapshotFile(path)) {
+            byte[] payload = new byte[1024 * 1024];
+            Arrays.fill(payload, (byte) 7);
+            writer.write(payload);
+
+            Assert.assertArrayEquals(payload, reader.read().getPayload());
+        }
+    }
+
+    @Test
+    public void recoverFromDeadWriter() throws Exception {
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path)) {
+            writer.write("a=1".getBytes(StandardCharsets.UTF_8));
+        }
+        // A writer dying in the middle of a write leaves an odd sequence
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(8);
+            file.writeLong(3L);
+        }
+
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path)) {
+            Assert.assertNull(writer.read());
+
+            long version = writer.write("a=2".getBytes(StandardCharsets.UTF_8));
+
+            SharedSnapshotFile.Snapshot snapshot = writer.read();
+            Assert.assertThat(snapshot.getVersion(), CoreMatchers.is(version));
+            Assert.assertThat(new String(snapshot.getPayload(), StandardCharsets.UTF_8), CoreMatchers.is("a=2"));
+        }
+    }
+
+    @Test
+    public void neverAcceptTornReads() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final AtomicLong accepted = new AtomicLong();
+
+        try (SharedSnapshotFile writer = new SharedSnapshotFile(path)) {
+            // Each payload is filled with one value and its length derives from it, so any mix of two writes shows
+            Thread writerThread = new Thread(() -> {
+                try {
+                    for (int i = 1; running.get(); i++) {
+                        byte[] payload = new byte[1 + (i % 64) * 1024];
+                        Arrays.fill(payload, (byte) i);
+                        writer.write(payload);
+                    }
+                } catch (final Exception e) {
+                    failure.compareAndSet(null, e.toString());
+                }
+            });
+            Thread[] readerThreads = new Thread[2];
+            for (int r = 0; r < readerThreads.length; r++) {
+                // A separate mapping of the file, as in another process
+                final SharedSnapshotFile reader = new SharedSnapshotFile(path);
+                readerThreads[r] = new Thread(() -> {
+                    long lastVersion = 0;
+                    try {
+                        while (running.get()) {
+                            SharedSnapshotFile.Snapshot snapshot = reader.read();
+                            if (null == snapshot) {
+                                continue;
+                            }
+                            byte[] payload = snapshot.getPayload();
+                            byte value = payload[0];
+                            for (byte b : payload) {
+                                if (b != value) {
+                                    failure.compareAndSet(null, "Torn payload at version " + snapshot.getVersion());
+                                }
+                            }
+                            if (snapshot.getVersion() < lastVersion) {
+                                failure.compareAndSet(null, "Version went back to " + snapshot.getVersion());
+                            }
+                            lastVersion = snapshot.getVersion();
+                            accepted.incrementAndGet();
+                        }
+                        reader.close();
+                    } catch (final Exception e) {
+                        failure.compareAndSet(null, e.toString());
+                    }
+                });
+            }
+
+            writerThread.start();
+            for (Thread readerThread : readerThreads) {
+                readerThread.start();
+            }
+            TimeUnit.SECONDS.sleep(1);
+            running.set(false);
+            writerThread.join(5000);
+            for (Thread readerThread : readerThreads) {
+                readerThread.join(5000);
+            }
+        }
+
+        Assert.assertNull(failure.get());
+        Assert.assertThat(accepted.get() > 0, CoreMatchers.is(true));
+    }
+}
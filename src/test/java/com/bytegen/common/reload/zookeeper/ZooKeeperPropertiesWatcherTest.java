@@ -0,0 +1,105 @@
+package com.bytegen.common.reload.zookeeper;
+
+import com.bytegen.common.reload.core.ReloadPropertyEventPublisher;
+import com.bytegen.common.reload.event.GuavaEventNotifier;
+import com.bytegen.common.reload.resolver.LayeredPropertyResolver;
+import com.bytegen.common.reload.resolver.PropertyLayer;
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ZooKeeperPropertiesWatcherTest {
+
+    private static final PropertyLayer LAYER = new PropertyLayer("zookeeper:/config/app", PropertyLayer.HOST, 0);
+
+    private TestingServer server;
+    private ZooKeeper client;
+    private LayeredPropertyResolver resolver;
+    private ZooKeeperPropertiesWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TestingServer(true);
+        CountDownLatch connected = new CountDownLatch(1);
+        client = new ZooKeeper(server.getConnectString(), 10000, event -> connected.countDown());
+        Assert.assertTrue(connected.await(10, TimeUnit.SECONDS));
+        create("/config", "");
+        create("/config/app", "");
+        create("/config/app/db", "");
+        create("/config/app/db/url", "jdbc:a");
+
+        resolver = new LayeredPropertyResolver();
+        ReloadPropertyEventPublisher publisher = new ReloadPropertyEventPublisher(resolver,
+                GuavaEventNotifier.getInstance(), new ConcurrentHashMap<>());
+        watcher = new ZooKeeperPropertiesWatcher(server.getConnectString(), "/config/app", 10000, publisher, LAYER);
+        watcher.start(10000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        watcher.close();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void initialContent() {
+        Assert.assertThat(resolver.getProperty("db.url"), CoreMatchers.is("jdbc:a"));
+        Assert.assertThat(resolver.getProperty("db"), CoreMatchers.nullValue());
+    }
+
+    @Test
+    public void watchChanges() throws Exception {
+        client.setData("/config/app/db/url", "jdbc:b".getBytes(StandardCharsets.UTF_8), -1);
+        create("/config/app/db/user", "admin");
+        awaitProperty("db.url", "jdbc:b");
+        awaitProperty("db.user", "admin");
+
+        client.delete("/config/app/db/user", -1);
+        awaitProperty("db.user", null);
+    }
+
+    @Test
+    public void resyncOnReconnect() throws Exception {
+        server.restart();
+        for (int i = 0; ; i++) {
+            try {
+                client.setData("/config/app/db/url", "jdbc:c".getBytes(StandardCharsets.UTF_8), -1);
+                break;
+            } catch (KeeperException.ConnectionLossException e) {
+                if (i == 100) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+        awaitProperty("db.url", "jdbc:c");
+    }
+
+    private void create(final String path, final String data) throws Exception {
+        client.create(path, data.getBytes(StandardCharsets.UTF_8), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+    }
+
+    private void awaitProperty(final String key, final String value) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (Objects.equals(value, resolver.getRawProperty(key))) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        Assert.assertThat(resolver.getRawProperty(key), CoreMatchers.is(value));
+    }
+}